@@ -0,0 +1,29 @@
+package com.singh.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.net.URI;
+
+@Configuration
+public class DynamoDbClientConfig {
+
+    /**
+     * Client for reading the migrated table back, pointed at LocalStack by {@code aws.dynamodb.endpoint}
+     * or {@code AWS_ENDPOINT_URL} and at the regional endpoint otherwise.
+     */
+    @Bean
+    public DynamoDbClient dynamoDbClient(@Value("${aws.dynamodb.endpoint:${AWS_ENDPOINT_URL:}}") String endpoint,
+                                         @Value("${aws.region}") String awsRegion) {
+        DynamoDbClientBuilder builder = DynamoDbClient.builder().region(Region.of(awsRegion));
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
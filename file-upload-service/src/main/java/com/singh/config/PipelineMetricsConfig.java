@@ -0,0 +1,22 @@
+package com.singh.config;
+
+import com.singh.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PipelineMetricsConfig {
+
+    /**
+     * Registers the pipeline meters on the actuator registry, so they show up under
+     * {@code /actuator/metrics}. EMF lines are off by default outside Lambda.
+     */
+    @Bean
+    public PipelineMetrics pipelineMetrics(MeterRegistry meterRegistry,
+                                           @Value("${pipeline.metrics.namespace:UserMigrationPipeline}") String namespace,
+                                           @Value("${pipeline.metrics.emf-enabled:false}") boolean emfEnabled) {
+        return new PipelineMetrics(meterRegistry, namespace, "upload", emfEnabled ? PipelineMetrics.stdoutSink() : null);
+    }
+}
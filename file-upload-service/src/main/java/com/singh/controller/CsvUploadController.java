@@ -1,7 +1,15 @@
 package com.singh.controller;
 
+import com.singh.dto.ReconciliationReport;
+import com.singh.dto.StreamingUploadResult;
+import com.singh.dto.UploadResult;
+import com.singh.service.MigrationJobService;
+import com.singh.service.ReconciliationService;
+import com.singh.service.S3StreamingUploadService;
 import com.singh.service.S3UploadService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,20 +20,79 @@ import org.springframework.web.multipart.MultipartFile;
 public class CsvUploadController {
 
     private final S3UploadService s3UploadService;
+    private final S3StreamingUploadService s3StreamingUploadService;
+    private final ReconciliationService reconciliationService;
+    private final MigrationJobService migrationJobService;
 
     @Autowired
-    public CsvUploadController(S3UploadService s3UploadService) {
+    public CsvUploadController(S3UploadService s3UploadService, S3StreamingUploadService s3StreamingUploadService,
+                               ReconciliationService reconciliationService, MigrationJobService migrationJobService) {
         this.s3UploadService = s3UploadService;
+        this.s3StreamingUploadService = s3StreamingUploadService;
+        this.reconciliationService = reconciliationService;
+        this.migrationJobService = migrationJobService;
     }
 
     @PostMapping(path = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> uploadCsvFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadCsvFile(@RequestParam("file") MultipartFile file) {
         try {
-            String s3Key = s3UploadService.uploadCsv(file);
-            return ResponseEntity.ok("File uploaded successfully to S3 with key: " + s3Key);
+            UploadResult result = s3UploadService.uploadCsv(file);
+            return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to upload file: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams the raw request body (not multipart/form-data) into an S3 multipart upload, so
+     * the file is never buffered as a whole and is not subject to the multipart size limit.
+     * Example: {@code curl -T users.csv -H 'Content-Type: text/csv' .../api/csv/upload/stream?filename=users.csv}
+     * <p>
+     * A gzip or zstd compressed body is stored compressed, e.g.
+     * {@code curl -T users.csv.gz -H 'Content-Type: text/csv' -H 'Content-Encoding: gzip' ...}.
+     */
+    @RequestMapping(path = "/upload/stream", method = {RequestMethod.POST, RequestMethod.PUT},
+            consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.APPLICATION_JSON_VALUE,
+                    "application/gzip", "application/zstd"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> streamCsvFile(@RequestParam(name = "filename", required = false) String fileName,
+                                           HttpServletRequest request) {
+        try {
+            StreamingUploadResult result = s3StreamingUploadService.upload(request.getInputStream(), fileName,
+                    request.getContentType(), request.getHeader(HttpHeaders.CONTENT_ENCODING));
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to upload file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compares an uploaded CSV with what the pipeline wrote to DynamoDB and reports missing, extra and
+     * mismatched ids. Example: {@code curl -X POST '.../api/csv/reconcile?key=/users/users.csv'}
+     */
+    @PostMapping(path = "/reconcile", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> reconcile(@RequestParam("key") String key) {
+        try {
+            ReconciliationReport report = reconciliationService.reconcile(key);
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to reconcile " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rows per stage, rows per second, the bottleneck stage and the estimated completion of the
+     * migration job an upload started. Example: {@code curl .../api/csv/jobs/<jobId>}
+     */
+    @GetMapping(path = "/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> job(@PathVariable("id") String id) {
+        try {
+            return migrationJobService.report(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to read job " + id + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.singh.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Where a migration job stands, from the sharded counters its stages keep in the job table. Counts are
+ * at least once, so a redelivered message can push a stage slightly past the rows it really saw.
+ * <p>
+ * {@code expectedRows} are the rows ingest will read, known once it has read the whole object and
+ * estimated before that from the bytes it has read so far; -1 while neither is possible. The
+ * {@code bottleneck} is the stage with the most rows waiting in front of it, or ingest while nothing
+ * is queued; {@code null} once the job is complete. {@code estimatedCompletion} extrapolates the
+ * writer's rate to the rows it still has to write.
+ */
+public record MigrationJobReport(String jobId, String bucket, String key, Status status, Instant createdAt,
+                                 List<StageReport> stages, String bottleneck, long expectedRows, long rejectedRows,
+                                 double percentComplete, Instant estimatedCompletion) {
+
+    public enum Status {
+        /** Registered, but no stage has counted rows yet. */
+        PENDING,
+        RUNNING,
+        /** Ingest has read the whole object and every row it read has been written or rejected. */
+        COMPLETED
+    }
+
+    /**
+     * Rows a stage has processed, its rate between the first and the last of them, and the rows
+     * waiting for it: the rest of the object for ingest, rows the previous stage has passed on for
+     * the others.
+     */
+    public record StageReport(String stage, long rows, double rowsPerSecond, long backlog,
+                              Instant firstAt, Instant lastAt, Instant doneAt) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.singh.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of reconciling a source CSV against the table. {@code missing} ids are in the CSV but not
+ * the table, {@code extra} ids are in the table but not the CSV, and {@code mismatched} ids are in
+ * both with a different name or email; the id lists are samples of at most {@code reconcile.sample-size}.
+ * {@code skippedRows} had no id or the wrong number of fields and are not compared.
+ */
+public record ReconciliationReport(String bucket, String key, String table,
+                                   long sourceRows, long skippedRows, long duplicateIds, long tableItems,
+                                   long matched, long missing, long extra, long mismatched,
+                                   List<String> missingIds, List<String> extraIds, List<String> mismatchedIds,
+                                   long durationMillis, long rowsPerMinute) {
+
+    public boolean consistent() {
+        return missing == 0 && extra == 0 && mismatched == 0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.singh.dto;
+
+/**
+ * Outcome of a streaming multipart upload, including the observed throughput and the migration job it
+ * started. {@code bytes} are the stored bytes, compressed when {@code contentEncoding} is set.
+ */
+public record StreamingUploadResult(String jobId, String bucket, String key, long bytes, int parts,
+                                    String contentEncoding, long durationMillis, long bytesPerSecond) {
+
+    public static StreamingUploadResult of(String jobId, String bucket, String key, long bytes, int parts,
+                                           String contentEncoding, long durationNanos) {
+        long durationMillis = Math.max(1, durationNanos / 1_000_000);
+        return new StreamingUploadResult(jobId, bucket, key, bytes, parts, contentEncoding, durationMillis,
+                bytes * 1000 / durationMillis);
+    }
+}
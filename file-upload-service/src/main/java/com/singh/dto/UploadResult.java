@@ -0,0 +1,8 @@
+package com.singh.dto;
+
+/**
+ * Where an upload was stored and the migration job it started; {@code GET /api/csv/jobs/{jobId}}
+ * follows the job through the pipeline.
+ */
+public record UploadResult(String jobId, String bucket, String key) {
+}
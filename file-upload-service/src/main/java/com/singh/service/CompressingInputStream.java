@@ -0,0 +1,93 @@
+package com.singh.service;
+
+import com.singh.csv.CsvCompression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses {@code source} as it is read, so a body can be compressed on its way into a multipart
+ * upload: only one block of input and the compressed bytes it produced are buffered at a time.
+ */
+class CompressingInputStream extends InputStream {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final InputStream source;
+    private final Buffer compressed = new Buffer();
+    private final OutputStream compressor;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] single = new byte[1];
+
+    /** Next byte of {@code compressed} to hand out. */
+    private int position;
+    private long sourceBytes;
+    private boolean finished;
+
+    CompressingInputStream(InputStream source, CsvCompression compression) throws IOException {
+        this.source = source;
+        this.compressor = compression.compress(compressed);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        // A compressor may swallow several blocks before it emits anything
+        while (position == compressed.size()) {
+            if (finished) {
+                return -1;
+            }
+            compressed.reset();
+            position = 0;
+            int count = source.read(block);
+            if (count < 0) {
+                // Flushes the remaining output and the trailer
+                compressor.close();
+                finished = true;
+            } else {
+                sourceBytes += count;
+                compressor.write(block, 0, count);
+            }
+        }
+        int count = Math.min(length, compressed.size() - position);
+        System.arraycopy(compressed.bytes(), position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    /** Uncompressed bytes read from {@code source} so far. */
+    long sourceBytes() {
+        return sourceBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (source) {
+            if (!finished) {
+                // Releases the codec's native memory
+                finished = true;
+                compressor.close();
+            }
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(BLOCK_SIZE);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
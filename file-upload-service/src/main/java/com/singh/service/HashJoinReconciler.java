@@ -0,0 +1,212 @@
+package com.singh.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Grace hash join of the source rows against the table items. Both sides are spilled to
+ * {@code partitions} files per side by a hash of the id, so every id lands in the same partition on
+ * both sides; {@link #join()} then loads one source partition at a time into a map and streams the
+ * matching table partition past it. Heap use is about one source partition, however large the inputs.
+ * <p>
+ * {@link #addSource} is called from one thread, {@link #addTarget} from any number of scan workers.
+ */
+final class HashJoinReconciler implements Closeable {
+
+    private final Path directory;
+    private final int partitions;
+    private final int sampleSize;
+    private final DataOutputStream[] sources;
+    private final DataOutputStream[] targets;
+
+    private long sourceRows;
+
+    HashJoinReconciler(Path directory, int partitions, int sampleSize) throws IOException {
+        this.directory = directory;
+        this.partitions = partitions;
+        this.sampleSize = sampleSize;
+        this.sources = new DataOutputStream[partitions];
+        this.targets = new DataOutputStream[partitions];
+        for (int i = 0; i < partitions; i++) {
+            sources[i] = open(sourceFile(i));
+            targets[i] = open(targetFile(i));
+        }
+    }
+
+    void addSource(String id, String name, String email) {
+        write(sources[partition(id)], id, name, email);
+        sourceRows++;
+    }
+
+    void addTarget(String id, String name, String email) {
+        DataOutputStream out = targets[partition(id)];
+        synchronized (out) {
+            write(out, id, name, email);
+        }
+    }
+
+    long sourceRows() {
+        return sourceRows;
+    }
+
+    /**
+     * Joins the spilled partitions; call once both sides are complete.
+     */
+    Result join() throws IOException {
+        for (int i = 0; i < partitions; i++) {
+            sources[i].close();
+            targets[i].close();
+        }
+        Result result = new Result();
+        for (int i = 0; i < partitions; i++) {
+            Map<String, String[]> expected = new HashMap<>();
+            try (DataInputStream in = input(sourceFile(i))) {
+                String[] row;
+                while ((row = read(in)) != null) {
+                    if (expected.put(row[0], row) != null) {
+                        result.duplicateIds++;
+                    }
+                }
+            }
+            try (DataInputStream in = input(targetFile(i))) {
+                String[] item;
+                while ((item = read(in)) != null) {
+                    result.tableItems++;
+                    String[] row = expected.remove(item[0]);
+                    if (row == null) {
+                        result.extra++;
+                        sample(result.extraIds, item[0]);
+                    } else if (Objects.equals(row[1], item[1]) && Objects.equals(row[2], item[2])) {
+                        result.matched++;
+                    } else {
+                        result.mismatched++;
+                        sample(result.mismatchedIds, item[0]);
+                    }
+                }
+            }
+            result.missing += expected.size();
+            for (String id : expected.keySet()) {
+                sample(result.missingIds, id);
+            }
+            Files.deleteIfExists(sourceFile(i));
+            Files.deleteIfExists(targetFile(i));
+        }
+        return result;
+    }
+
+    /** Deletes whatever is left of the spill files. */
+    @Override
+    public void close() {
+        for (int i = 0; i < partitions; i++) {
+            closeQuietly(sources[i]);
+            closeQuietly(targets[i]);
+            try {
+                Files.deleteIfExists(sourceFile(i));
+                Files.deleteIfExists(targetFile(i));
+            } catch (IOException e) {
+                // Left behind in the temp directory
+            }
+        }
+    }
+
+    /** Mixed so the ids of one partition do not also share the low bits HashMap buckets by. */
+    private int partition(String id) {
+        return (int) (((id.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL) * partitions >>> 32);
+    }
+
+    private void sample(List<String> ids, String id) {
+        if (ids.size() < sampleSize) {
+            ids.add(id);
+        }
+    }
+
+    private Path sourceFile(int partition) {
+        return directory.resolve("source-" + partition);
+    }
+
+    private Path targetFile(int partition) {
+        return directory.resolve("table-" + partition);
+    }
+
+    private static DataOutputStream open(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+    }
+
+    private static DataInputStream input(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+    }
+
+    private static void write(DataOutputStream out, String id, String name, String email) {
+        try {
+            writeString(out, id);
+            writeString(out, name);
+            writeString(out, email);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill row " + id, e);
+        }
+    }
+
+    /** Length-prefixed UTF-8, -1 for null; unlike writeUTF not limited to 64 KiB. */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Next {id, name, email} of a spill file, or {@code null} at its end. */
+    private static String[] read(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        return new String[]{readString(in, length), readString(in, in.readInt()), readString(in, in.readInt())};
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Only deleted afterwards
+        }
+    }
+
+    /** Counts and sample ids of one join. */
+    static final class Result {
+        long tableItems;
+        long matched;
+        long missing;
+        long extra;
+        long mismatched;
+        long duplicateIds;
+        final List<String> missingIds = new ArrayList<>();
+        final List<String> extraIds = new ArrayList<>();
+        final List<String> mismatchedIds = new ArrayList<>();
+    }
+}
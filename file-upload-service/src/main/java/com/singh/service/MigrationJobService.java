@@ -0,0 +1,168 @@
+package com.singh.service;
+
+import com.singh.dto.MigrationJobReport;
+import com.singh.dto.MigrationJobReport.StageReport;
+import com.singh.dto.MigrationJobReport.Status;
+import com.singh.progress.JobProgress;
+import com.singh.progress.JobProgressTable;
+import com.singh.progress.JobProgressTable.Snapshot;
+import com.singh.progress.JobProgressTable.StageCounts;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Migration jobs: every upload gets a job id, stamped on the object as S3 metadata, which ingest,
+ * transform and the writer carry along as a message attribute and count their rows under in the job
+ * table. {@link #report} turns those counts into rates, backlogs and an estimated completion time.
+ * <p>
+ * Tracking is off while {@code jobs.table} is blank; uploads still get a job id then.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MigrationJobService {
+
+    private final DynamoDbClient dynamoDb;
+
+    @Value("${jobs.table:user_migration_job}")
+    private String tableName;
+
+    /** How long job items are kept; matches {@code pipeline.jobs.ttl} of the stages. */
+    @Value("${jobs.ttl:7d}")
+    private Duration ttl = Duration.ofDays(7);
+
+    private JobProgressTable table;
+
+    @PostConstruct
+    void validateConfiguration() {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalStateException("jobs.ttl must be positive, was " + ttl);
+        }
+        if (dynamoDb != null && StringUtils.hasText(tableName)) {
+            table = new JobProgressTable(dynamoDb, tableName, ttl);
+            log.info("Tracking migration jobs in table {}", tableName);
+        }
+    }
+
+    public String newJobId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Records a completed upload as a job. Best effort: the upload has succeeded by now, and its rows
+     * are counted whether or not the job item exists.
+     *
+     * @param sourceBytes uncompressed size of the object, or -1 when it was uploaded compressed
+     */
+    public void register(String jobId, String bucket, String key, long objectBytes, long sourceBytes) {
+        if (table == null) {
+            return;
+        }
+        try {
+            table.register(jobId, bucket, key, objectBytes, sourceBytes, Instant.now());
+        } catch (RuntimeException e) {
+            log.warn("Failed to register job {} for s3://{}/{}", jobId, bucket, key, e);
+        }
+    }
+
+    /**
+     * The job's progress so far; empty when the table has neither the job nor any count of it.
+     */
+    public Optional<MigrationJobReport> report(String jobId) {
+        if (table == null) {
+            throw new IllegalStateException("Job tracking is off; set jobs.table");
+        }
+        return table.read(jobId).map(snapshot -> estimate(snapshot, Instant.now()));
+    }
+
+    /**
+     * Derives the report from the summed counters. Before ingest has read the whole object, the rows
+     * to expect are extrapolated from the share of the source bytes it has read; rows the transform
+     * rejects are expected to keep their share so far and are not waited for.
+     */
+    static MigrationJobReport estimate(Snapshot snapshot, Instant now) {
+        StageCounts ingest = snapshot.stage(JobProgress.INGEST);
+        StageCounts transform = snapshot.stage(JobProgress.TRANSFORM);
+        StageCounts rejected = snapshot.stage(JobProgress.REJECTED);
+        StageCounts write = snapshot.stage(JobProgress.WRITE);
+        long transformed = transform.rows() + rejected.rows();
+
+        long expectedRows = -1;
+        if (ingest.doneAt() != null) {
+            expectedRows = ingest.rows();
+        } else if (snapshot.sourceBytes() > 0 && ingest.bytes() > 0) {
+            expectedRows = Math.max(ingest.rows(), Math.round((double) ingest.rows() * snapshot.sourceBytes()
+                    / ingest.bytes()));
+        }
+        long expectedWritten = expectedRows < 0 || transformed == 0
+                ? expectedRows
+                : Math.round((double) expectedRows * transform.rows() / transformed);
+
+        long ingestBacklog = expectedRows < 0 ? -1 : Math.max(0, expectedRows - ingest.rows());
+        long transformBacklog = Math.max(0, ingest.rows() - transformed);
+        long writeBacklog = Math.max(0, transform.rows() - write.rows());
+        List<StageReport> stages = List.of(
+                stage(JobProgress.INGEST, ingest, ingestBacklog),
+                stage(JobProgress.TRANSFORM, transform, transformBacklog),
+                stage(JobProgress.WRITE, write, writeBacklog));
+
+        boolean completed = ingest.doneAt() != null && transformBacklog == 0 && writeBacklog == 0;
+        Status status = completed ? Status.COMPLETED
+                : ingest.rows() > 0 ? Status.RUNNING
+                : Status.PENDING;
+
+        String bottleneck = null;
+        if (!completed && status == Status.RUNNING) {
+            bottleneck = writeBacklog > 0 && writeBacklog >= transformBacklog ? JobProgress.WRITE
+                    : transformBacklog > 0 ? JobProgress.TRANSFORM
+                    : JobProgress.INGEST;
+        }
+
+        double percentComplete = completed ? 100
+                : expectedWritten > 0 ? Math.min(100, 100.0 * write.rows() / expectedWritten)
+                : -1;
+
+        Instant estimatedCompletion = null;
+        if (completed) {
+            estimatedCompletion = write.lastAt() != null ? write.lastAt() : ingest.doneAt();
+        } else if (expectedWritten > 0) {
+            double writeRate = rowsPerSecond(write);
+            if (writeRate > 0) {
+                long remaining = Math.max(0, expectedWritten - write.rows());
+                estimatedCompletion = now.plusMillis(Math.round(remaining * 1000 / writeRate));
+            }
+        }
+
+        return new MigrationJobReport(snapshot.jobId(), snapshot.bucket(), snapshot.key(), status,
+                snapshot.createdAt(), stages, bottleneck, expectedRows, rejected.rows(), percentComplete,
+                estimatedCompletion);
+    }
+
+    private static StageReport stage(String stage, StageCounts counts, long backlog) {
+        return new StageReport(stage, counts.rows(), rowsPerSecond(counts), backlog, counts.firstAt(),
+                counts.lastAt(), counts.doneAt());
+    }
+
+    /**
+     * Rows over the time between the first and the last counted batch, at least a second so a job
+     * counted in one flush does not report a burst rate.
+     */
+    private static double rowsPerSecond(StageCounts counts) {
+        if (counts.rows() == 0 || counts.firstAt() == null || counts.lastAt() == null) {
+            return 0;
+        }
+        long millis = Math.max(1000, Duration.between(counts.firstAt(), counts.lastAt()).toMillis());
+        return counts.rows() * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,250 @@
+package com.singh.service;
+
+import com.singh.csv.CsvCompression;
+import com.singh.csv.UserMigrationCsvReader;
+import com.singh.csv.UserMigrationRecord;
+import com.singh.csv.rules.RuleOutcome;
+import com.singh.csv.rules.RulePipeline;
+import com.singh.csv.rules.TransformRules;
+import com.singh.dto.ReconciliationReport;
+import com.singh.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks that every row of an uploaded CSV made it into the table with its transformed values.
+ * A segmented parallel scan of the table, projected on id, name and email, runs on virtual threads
+ * while the source object streams from S3 on the calling thread; both sides go through a
+ * {@link HashJoinReconciler}, so neither has to fit in memory.
+ * <p>
+ * Source rows go through the same {@code transform.rules} as the transform before they are compared,
+ * so set it to what the transform runs. Rows a rule rejects, such as an invalid email, are counted as
+ * skipped like malformed rows; the rejected-rows topic has the reason.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReconciliationService {
+
+    /** Source records run through the rules together, on the reading thread. */
+    private static final int RULE_BATCH_SIZE = 1024;
+
+    /** {@code name} is a DynamoDB reserved word, so the projection goes through placeholders. */
+    private static final String PROJECTION = "#id, #name, #email";
+    private static final Map<String, String> PROJECTION_NAMES =
+            Map.of("#id", "id", "#name", "name", "#email", "email");
+
+    private final S3Client s3Client;
+    private final DynamoDbClient dynamoDb;
+    private final PipelineMetrics metrics;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    @Value("${reconcile.table:user_migration_record}")
+    private String tableName;
+
+    /** Parallel scan segments, each read by its own worker. */
+    @Value("${reconcile.scan-segments:8}")
+    private int scanSegments;
+
+    /** Spill partitions per side; heap use is about the source rows divided by this. */
+    @Value("${reconcile.partitions:16}")
+    private int partitions;
+
+    /** Ids listed per kind of difference. */
+    @Value("${reconcile.sample-size:100}")
+    private int sampleSize;
+
+    /** The transform's rule list; blank compares the raw CSV values. */
+    @Value("${transform.rules:" + TransformRules.DEFAULT_RULES + "}")
+    private String rules;
+
+    private RulePipeline rulePipeline;
+
+    @PostConstruct
+    void validateConfiguration() {
+        if (scanSegments < 1 || scanSegments > 1000) {
+            throw new IllegalStateException("reconcile.scan-segments must be between 1 and 1000");
+        }
+        if (partitions < 1 || partitions > 4096) {
+            throw new IllegalStateException("reconcile.partitions must be between 1 and 4096");
+        }
+        if (sampleSize < 0) {
+            throw new IllegalStateException("reconcile.sample-size must not be negative");
+        }
+        try {
+            rulePipeline = new RulePipeline(TransformRules.byNames(rules), RULE_BATCH_SIZE, 1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid transform rule configuration: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reconciles {@code s3://<bucket>/<key>} against the table.
+     */
+    public ReconciliationReport reconcile(String key) throws IOException {
+        long start = System.nanoTime();
+        Path directory = Files.createTempDirectory("reconcile-");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<Long>> scans = new ArrayList<>(scanSegments);
+        long sourceRows;
+        long skippedRows;
+        HashJoinReconciler.Result result;
+
+        try (HashJoinReconciler join = new HashJoinReconciler(directory, partitions, sampleSize)) {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int segment = 0; segment < scanSegments; segment++) {
+                    int number = segment;
+                    scans.add(executor.submit(() -> {
+                        try {
+                            return scanSegment(number, join, failure);
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                            throw e;
+                        }
+                    }));
+                }
+                try {
+                    skippedRows = metrics.time("read-source", () -> readSource(key, join, failure));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                }
+            }
+            Throwable error = failure.get();
+            if (error != null) {
+                throw new IllegalStateException("Scan of " + tableName + " failed: " + error.getMessage(), error);
+            }
+            sourceRows = join.sourceRows();
+            metrics.rowsIn(sourceRows + skippedRows);
+            log.debug("Scanned {} items of {} in {} segments", scans.stream().mapToLong(Future::resultNow).sum(),
+                    tableName, scanSegments);
+
+            long joinStart = System.nanoTime();
+            result = join.join();
+            metrics.latency("join", System.nanoTime() - joinStart);
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+
+        long durationMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        ReconciliationReport report = new ReconciliationReport(bucketName, key, tableName,
+                sourceRows, skippedRows, result.duplicateIds, result.tableItems,
+                result.matched, result.missing, result.extra, result.mismatched,
+                result.missingIds, result.extraIds, result.mismatchedIds,
+                durationMillis, (sourceRows + result.tableItems) * 60_000 / durationMillis);
+        metrics.latency("reconcile", System.nanoTime() - start);
+        log.info("Reconciled s3://{}/{} against {} → consistent={}, rows={}, items={}, missing={}, extra={}, "
+                        + "mismatched={}, durationMs={}", bucketName, key, tableName, report.consistent(),
+                sourceRows, result.tableItems, result.missing, result.extra, result.mismatched, durationMillis);
+        return report;
+    }
+
+    /**
+     * Pages through one scan segment into the join; stops early once another worker has failed.
+     *
+     * @return items scanned
+     */
+    private long scanSegment(int segment, HashJoinReconciler join, AtomicReference<Throwable> failure) {
+        long items = 0;
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest request = ScanRequest.builder()
+                    .tableName(tableName)
+                    .segment(segment)
+                    .totalSegments(scanSegments)
+                    .projectionExpression(PROJECTION)
+                    .expressionAttributeNames(PROJECTION_NAMES)
+                    .exclusiveStartKey(startKey)
+                    .build();
+            ScanResponse page = metrics.time("scan", () -> dynamoDb.scan(request));
+            metrics.batchSize("scan", page.items().size());
+            for (Map<String, AttributeValue> item : page.items()) {
+                join.addTarget(string(item, "id"), string(item, "name"), string(item, "email"));
+            }
+            items += page.items().size();
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty()
+                    ? page.lastEvaluatedKey()
+                    : null;
+        } while (startKey != null && failure.get() == null);
+        log.debug("Scanned {} items from segment {} of {}", items, segment, scanSegments);
+        return items;
+    }
+
+    /**
+     * Streams the source CSV through the transform rules into the join, decompressing it by its
+     * {@code Content-Encoding} or magic bytes; stops early once a scan worker has failed.
+     *
+     * @return rows skipped as malformed or rejected by a rule
+     */
+    private long readSource(String key, HashJoinReconciler join, AtomicReference<Throwable> failure) {
+        try (ResponseInputStream<GetObjectResponse> object = s3Client.getObject(
+                builder -> builder.bucket(bucketName).key(key))) {
+            BufferedInputStream in = new BufferedInputStream(object, 64 * 1024);
+            CsvCompression declared = CsvCompression.fromMetadata(
+                    object.response().contentEncoding(), object.response().contentType());
+            CsvCompression compression = declared != CsvCompression.NONE ? declared : CsvCompression.detect(in);
+            InputStream content = compression.decompress(in);
+            metrics.bytesRead(object.response().contentLength());
+
+            AtomicLong skipped = new AtomicLong();
+            List<UserMigrationRecord> batch = new ArrayList<>(RULE_BATCH_SIZE);
+            UserMigrationCsvReader.read(new InputStreamReader(content, StandardCharsets.UTF_8), record -> {
+                batch.add(record);
+                if (batch.size() == RULE_BATCH_SIZE) {
+                    skipped.addAndGet(addSource(batch, join));
+                }
+                return failure.get() == null;
+            }, malformed -> skipped.incrementAndGet());
+            return skipped.addAndGet(addSource(batch, join));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read s3://" + bucketName + "/" + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds the records of {@code batch} that pass the rules to the join and clears it.
+     *
+     * @return records the rules rejected
+     */
+    private int addSource(List<UserMigrationRecord> batch, HashJoinReconciler join) {
+        RuleOutcome outcome = rulePipeline.apply(batch);
+        for (UserMigrationRecord record : outcome.accepted()) {
+            join.addSource(record.getId(), record.getName(), record.getEmail());
+        }
+        batch.clear();
+        return outcome.rejected().size();
+    }
+
+    private static String string(Map<String, AttributeValue> item, String attribute) {
+        AttributeValue value = item.get(attribute);
+        return value == null ? null : value.s();
+    }
+}
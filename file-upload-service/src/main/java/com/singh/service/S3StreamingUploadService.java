@@ -0,0 +1,289 @@
+package com.singh.service;
+
+import com.singh.csv.CsvCompression;
+import com.singh.dto.StreamingUploadResult;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pipes a request body straight into an S3 multipart upload. The body is read one part at a time
+ * and parts are uploaded in parallel on virtual threads; at most {@code max-in-flight-parts}
+ * part buffers exist at once, so heap use is bounded by {@code part-size * max-in-flight-parts}
+ * regardless of the object size.
+ * <p>
+ * A body that is already gzip or zstd compressed, by its {@code Content-Encoding} or its magic
+ * bytes, is stored as it is; otherwise {@code aws.s3.upload.compression} can compress it on the way.
+ * Either way the object gets the matching {@code Content-Encoding}, which ingest decompresses by.
+ * <p>
+ * Every upload starts a migration job: the object carries the job id as metadata, and the job is
+ * registered with {@link MigrationJobService} once the upload completes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class S3StreamingUploadService {
+
+    /** S3 rejects non-final parts smaller than 5 MiB. */
+    private static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+    private static final int MAX_PARTS = 10_000;
+
+    private final S3Client s3Client;
+    private final PipelineMetrics metrics;
+    private final MigrationJobService jobService;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    @Value("${aws.s3.multipart.part-size:8MB}")
+    private DataSize partSize;
+
+    @Value("${aws.s3.multipart.max-in-flight-parts:4}")
+    private int maxInFlightParts;
+
+    /**
+     * Codec for bodies that arrive uncompressed: {@code none}, {@code gzip} or {@code zstd}. Ingest
+     * reads a compressed object as one stream rather than in parallel byte ranges.
+     */
+    @Value("${aws.s3.upload.compression:none}")
+    private String compressionName = "none";
+
+    private CsvCompression compression;
+
+    @PostConstruct
+    void validateConfiguration() {
+        if (partSize.toBytes() < MIN_PART_SIZE || partSize.toBytes() > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("aws.s3.multipart.part-size must be between 5MB and 2GB, was " + partSize);
+        }
+        if (maxInFlightParts < 1) {
+            throw new IllegalStateException("aws.s3.multipart.max-in-flight-parts must be at least 1");
+        }
+        try {
+            compression = CsvCompression.fromName(compressionName);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("aws.s3.upload.compression: " + e.getMessage(), e);
+        }
+        log.info("Streaming uploads use {} byte parts, up to {} in flight, compression={}",
+                partSize.toBytes(), maxInFlightParts, compression);
+    }
+
+    /** Codec uncompressed bodies are stored with. */
+    public CsvCompression compression() {
+        return compression;
+    }
+
+    /**
+     * Uploads everything readable from {@code body} to S3 as a multipart upload.
+     * The upload is aborted if any part fails or the body is empty.
+     */
+    public StreamingUploadResult upload(InputStream body, String fileName, String contentType) throws IOException {
+        return upload(body, fileName, contentType, null);
+    }
+
+    /**
+     * Like {@link #upload(InputStream, String, String)} for a body sent with {@code contentEncoding};
+     * only gzip and zstd are accepted besides identity.
+     */
+    public StreamingUploadResult upload(InputStream body, String fileName, String contentType,
+                                        String contentEncoding) throws IOException {
+        CsvCompression declared = CsvCompression.fromName(contentEncoding);
+        BufferedInputStream in = new BufferedInputStream(body);
+        CsvCompression encoding = declared != CsvCompression.NONE ? declared : CsvCompression.detect(in);
+        InputStream content = in;
+        if (encoding == CsvCompression.NONE && compression != CsvCompression.NONE) {
+            encoding = compression;
+            content = new CompressingInputStream(in, compression);
+        }
+
+        String key = generateObjectKey(fileName);
+        String jobId = jobService.newJobId();
+        long start = System.nanoTime();
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(StringUtils.hasText(contentType) ? contentType : "text/csv")
+                .contentEncoding(encoding.contentEncoding())
+                .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                .metadata(Map.of(JobProgress.JOB_ID_METADATA, jobId))
+                .build()).uploadId();
+        log.info("Started multipart upload {} -> s3://{}/{} (content-encoding={}, job={})",
+                uploadId, bucketName, key, encoding.contentEncoding(), jobId);
+
+        try (InputStream stored = content) {
+            long[] bytes = new long[1];
+            List<CompletedPart> parts = uploadParts(stored, key, uploadId, bytes);
+            // An empty body still compresses to a few bytes of framing; uploaded compressed, its size is unknown
+            long sourceBytes = stored instanceof CompressingInputStream compressing
+                    ? compressing.sourceBytes()
+                    : encoding == CsvCompression.NONE ? bytes[0] : -1;
+            if (sourceBytes == 0 || bytes[0] == 0) {
+                throw new IllegalArgumentException("Uploaded body is empty");
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+
+            jobService.register(jobId, bucketName, key, bytes[0], sourceBytes);
+
+            StreamingUploadResult result = StreamingUploadResult.of(jobId, bucketName, key, bytes[0], parts.size(),
+                    encoding.contentEncoding(), System.nanoTime() - start);
+            metrics.bytesRead(result.bytes());
+            metrics.batchSize("upload", result.parts());
+            metrics.latency("upload", System.nanoTime() - start);
+            log.info("Uploaded successfully: s3://{}/{} → bytes={}, parts={}, durationMs={}, bytesPerSecond={}",
+                    bucketName, key, result.bytes(), result.parts(), result.durationMillis(), result.bytesPerSecond());
+            return result;
+
+        } catch (Exception e) {
+            log.error("Streaming upload failed for s3://{}/{}. Aborting upload {}", bucketName, key, uploadId, e);
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    private List<CompletedPart> uploadParts(InputStream body, String key, String uploadId, long[] totalBytes)
+            throws IOException {
+        int bufferSize = (int) partSize.toBytes();
+        Semaphore buffers = new Semaphore(maxInFlightParts);
+        Queue<byte[]> recycled = new ConcurrentLinkedQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<CompletedPart>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int partNumber = 1; failure.get() == null; partNumber++) {
+                acquire(buffers);
+                byte[] buffer = Optional.ofNullable(recycled.poll()).orElseGet(() -> new byte[bufferSize]);
+
+                int length;
+                try {
+                    length = body.readNBytes(buffer, 0, bufferSize);
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                    buffers.release();
+                    break;
+                }
+                if (length == 0) {
+                    buffers.release();
+                    break;
+                }
+                if (partNumber > MAX_PARTS) {
+                    buffers.release();
+                    throw new IllegalArgumentException("Upload exceeds " + MAX_PARTS + " parts of "
+                            + bufferSize + " bytes; increase aws.s3.multipart.part-size");
+                }
+                totalBytes[0] += length;
+
+                int number = partNumber;
+                futures.add(executor.submit(() -> {
+                    try {
+                        return uploadPart(key, uploadId, number, buffer, length);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        recycled.add(buffer);
+                        buffers.release();
+                    }
+                }));
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Part upload failed: " + error.getMessage(), error);
+        }
+        return futures.stream()
+                .map(Future::resultNow)
+                .sorted(Comparator.comparing(CompletedPart::partNumber))
+                .toList();
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer, int length) {
+        UploadPartResponse response = metrics.time("part-upload", () -> s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) length)
+                        .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                        .build(),
+                RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)));
+        log.debug("Uploaded part {} ({} bytes) of {}", partNumber, length, uploadId);
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .checksumCRC32(response.checksumCRC32())
+                .build();
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload {} for s3://{}/{}", uploadId, bucketName, key, e);
+        }
+    }
+
+    private static void acquire(Semaphore semaphore) throws IOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free part buffer");
+        }
+    }
+
+    private String generateObjectKey(String originalFilename) {
+        String fileName = Optional.ofNullable(originalFilename)
+                .filter(StringUtils::hasText)
+                .orElse("upload.csv");
+
+        return "/users/" + fileName;
+    }
+}
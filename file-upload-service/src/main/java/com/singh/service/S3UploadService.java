@@ -1,5 +1,10 @@
 package com.singh.service;
 
+import com.singh.csv.CsvCompression;
+import com.singh.dto.StreamingUploadResult;
+import com.singh.dto.UploadResult;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
 import io.awspring.cloud.sns.core.SnsTemplate;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -12,8 +17,9 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -23,33 +29,55 @@ public class S3UploadService {
 
     private final S3Client s3Client;
     private final SnsTemplate snsTemplate;
+    private final PipelineMetrics metrics;
+    private final S3StreamingUploadService streamingUploadService;
+    private final MigrationJobService jobService;
 
     @Value("${aws.s3.bucket}")
     private String bucketName;
 
     /**
-     * Uploads CSV/JSON file to S3 and optionally notifies SNS
+     * Uploads CSV/JSON file to S3 and optionally notifies SNS. A gzip or zstd compressed file is
+     * stored as it is with its {@code Content-Encoding}; an uncompressed one is compressed when
+     * {@code aws.s3.upload.compression} is set. The object is stamped with the id of the migration
+     * job it starts.
      */
-    public String uploadCsv(MultipartFile file) throws IOException {
+    public UploadResult uploadCsv(MultipartFile file) throws IOException {
         validateNotEmpty(file);
 
         String key = generateObjectKey(file.getOriginalFilename());
+        String contentType = file.getContentType() != null ? file.getContentType() : "text/csv";
         log.info("Uploading '{}' ({} bytes) -> s3://{}/{}",
                 file.getOriginalFilename(), file.getSize(), bucketName, key);
 
-        PutObjectRequest putRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType(file.getContentType() != null ? file.getContentType() : "text/csv")
-                .build();
+        try (BufferedInputStream inputStream = new BufferedInputStream(file.getInputStream())) {
+            CsvCompression encoding = CsvCompression.detect(inputStream);
+            if (encoding == CsvCompression.NONE && streamingUploadService.compression() != CsvCompression.NONE) {
+                // The compressed length is unknown up front, so it goes up as a multipart upload
+                StreamingUploadResult result =
+                        streamingUploadService.upload(inputStream, file.getOriginalFilename(), contentType);
+                return new UploadResult(result.jobId(), result.bucket(), result.key());
+            }
 
-        try (InputStream inputStream = file.getInputStream()) {
+            String jobId = jobService.newJobId();
+
+            PutObjectRequest putRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentEncoding(encoding.contentEncoding())
+                    .metadata(Map.of(JobProgress.JOB_ID_METADATA, jobId))
+                    .build();
 
             // upload file
-            s3Client.putObject(putRequest, RequestBody.fromInputStream(inputStream, file.getSize()));
+            metrics.time("upload", () -> s3Client.putObject(putRequest, RequestBody.fromInputStream(inputStream, file.getSize())));
+            metrics.bytesRead(file.getSize());
+
+            jobService.register(jobId, bucketName, key, file.getSize(),
+                    encoding == CsvCompression.NONE ? file.getSize() : -1);
 
-            log.info("Uploaded successfully: s3://{}/{}", bucketName, key);
-            return key;
+            log.info("Uploaded successfully: s3://{}/{} (job={})", bucketName, key, jobId);
+            return new UploadResult(jobId, bucketName, key);
 
         } catch (Exception e) {
             log.error("Upload failed for s3://{}/{}", bucketName, key, e);
@@ -0,0 +1,93 @@
+package com.singh.service;
+
+import com.singh.dto.MigrationJobReport;
+import com.singh.dto.MigrationJobReport.Status;
+import com.singh.progress.JobProgress;
+import com.singh.progress.JobProgressTable.Snapshot;
+import com.singh.progress.JobProgressTable.StageCounts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MigrationJobServiceTests {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void extrapolatesExpectedRowsFromBytesWhileIngestIsRunning() {
+        // A quarter of the source read; the writer keeps up with 400 of the 1000 rows at 100 rows/s
+        Snapshot snapshot = snapshot(4_000, Map.of(
+                JobProgress.INGEST, counts(1_000, 1_000, 0, 10, null),
+                JobProgress.TRANSFORM, counts(450, 0, 1, 10, null),
+                JobProgress.REJECTED, counts(50, 0, 1, 10, null),
+                JobProgress.WRITE, counts(400, 0, 2, 6, null)));
+
+        MigrationJobReport report = MigrationJobService.estimate(snapshot, START.plusSeconds(10));
+
+        assertEquals(Status.RUNNING, report.status());
+        assertEquals(4_000, report.expectedRows());
+        assertEquals(50, report.rejectedRows());
+        assertEquals(3_000, report.stages().get(0).backlog());
+        assertEquals(500, report.stages().get(1).backlog());
+        assertEquals(50, report.stages().get(2).backlog());
+        assertEquals(100, report.stages().get(2).rowsPerSecond(), 0.001);
+        assertEquals(JobProgress.TRANSFORM, report.bottleneck());
+        // 3600 of the 4000 rows are expected to pass the rules
+        assertEquals(400 * 100.0 / 3_600, report.percentComplete(), 0.001);
+        assertEquals(START.plusSeconds(10 + 32), report.estimatedCompletion());
+    }
+
+    @Test
+    void completesOnceIngestIsDoneAndNothingIsQueued() {
+        Snapshot snapshot = snapshot(-1, Map.of(
+                JobProgress.INGEST, counts(1_000, 1_000, 0, 10, START.plusSeconds(10)),
+                JobProgress.TRANSFORM, counts(990, 0, 1, 11, null),
+                JobProgress.REJECTED, counts(10, 0, 1, 11, null),
+                JobProgress.WRITE, counts(990, 0, 2, 12, null)));
+
+        MigrationJobReport report = MigrationJobService.estimate(snapshot, START.plusSeconds(60));
+
+        assertEquals(Status.COMPLETED, report.status());
+        assertEquals(1_000, report.expectedRows());
+        assertEquals(100, report.percentComplete());
+        assertNull(report.bottleneck());
+        assertEquals(START.plusSeconds(12), report.estimatedCompletion());
+    }
+
+    @Test
+    void cannotEstimateACompressedUploadBeforeIngestIsDone() {
+        Snapshot snapshot = snapshot(-1, Map.of(
+                JobProgress.INGEST, counts(1_000, 1_000, 0, 10, null),
+                JobProgress.TRANSFORM, counts(1_000, 0, 1, 10, null),
+                JobProgress.REJECTED, counts(0, 0, -1, -1, null),
+                JobProgress.WRITE, counts(1_000, 0, 2, 10, null)));
+
+        MigrationJobReport report = MigrationJobService.estimate(snapshot, START.plusSeconds(10));
+
+        assertEquals(Status.RUNNING, report.status());
+        assertEquals(-1, report.expectedRows());
+        assertEquals(-1, report.percentComplete());
+        assertNull(report.estimatedCompletion());
+        assertEquals(JobProgress.INGEST, report.bottleneck());
+    }
+
+    @Test
+    void reportingNeedsATable() {
+        assertThrows(IllegalStateException.class, () -> new MigrationJobService(null).report("job-1"));
+    }
+
+    private static Snapshot snapshot(long sourceBytes, Map<String, StageCounts> stages) {
+        return new Snapshot("job-1", "bucket", "/users/users.csv", 1_000, sourceBytes, START, stages);
+    }
+
+    /** Counts whose first and last rows were counted the given seconds after {@link #START}; -1 for none. */
+    private static StageCounts counts(long rows, long bytes, int firstSecond, int lastSecond, Instant doneAt) {
+        return new StageCounts(rows, bytes, firstSecond < 0 ? null : START.plusSeconds(firstSecond),
+                lastSecond < 0 ? null : START.plusSeconds(lastSecond), doneAt);
+    }
+}
@@ -0,0 +1,209 @@
+package com.singh.service;
+
+import com.singh.csv.rules.TransformRules;
+import com.singh.dto.ReconciliationReport;
+import com.singh.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReconciliationServiceTests {
+
+    @Test
+    void reportsMissingExtraAndMismatchedIds() throws IOException {
+        String csv = """
+                email,id,name
+                " Jane.Doe@Example.com ",1,"  Jane   Doe "
+                john@example.com,2,John
+                jim@example.com,3,Jim
+                jill.smith@example.com,4,
+                ,5
+                no-id@example.com,,Nobody
+                """;
+        StubDynamoDbClient table = new StubDynamoDbClient(List.of(
+                item("1", "Jane Doe", "jane.doe@example.com"),
+                item("2", "Johnny", "john@example.com"),
+                item("4", "Jill Smith", "jill.smith@example.com"),
+                item("9", "Extra", "extra@example.com")));
+
+        ReconciliationReport report = service(new StubS3Client(csv.getBytes(StandardCharsets.UTF_8), null), table)
+                .reconcile("/users/users.csv");
+
+        assertEquals(4, report.sourceRows());
+        assertEquals(2, report.skippedRows());
+        assertEquals(4, report.tableItems());
+        assertEquals(2, report.matched());
+        assertEquals(List.of("3"), report.missingIds());
+        assertEquals(List.of("9"), report.extraIds());
+        assertEquals(List.of("2"), report.mismatchedIds());
+        assertFalse(report.consistent());
+        assertTrue(table.segments.containsAll(List.of(0, 1, 2)));
+    }
+
+    @Test
+    void reconcilesCompressedSourceAcrossPartitions() throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,email\n");
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\n");
+            items.add(item(Integer.toString(i), "User " + i, "user" + i + "@example.com"));
+        }
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        ReconciliationReport report = service(new StubS3Client(gzipped.toByteArray(), "gzip"),
+                new StubDynamoDbClient(items)).reconcile("/users/users.csv.gz");
+
+        assertEquals(5_000, report.sourceRows());
+        assertEquals(5_000, report.matched());
+        assertTrue(report.consistent());
+    }
+
+    @Test
+    void comparesSourceRowsAsTheConfiguredRulesLeaveThem() throws IOException {
+        String csv = """
+                id,name,email
+                1,"  Jane   Doe ",Jane.Doe@Example.com
+                2,Bob,not-an-email
+                """;
+        StubS3Client s3 = new StubS3Client(csv.getBytes(StandardCharsets.UTF_8), null);
+        StubDynamoDbClient table = new StubDynamoDbClient(List.of(item("1", "Jane Doe", "jane.doe@example.com")));
+
+        ReconciliationReport normalized = service(s3, table, TransformRules.DEFAULT_RULES)
+                .reconcile("/users/users.csv");
+
+        assertEquals(1, normalized.sourceRows());
+        assertEquals(1, normalized.skippedRows());
+        assertEquals(1, normalized.matched());
+        assertTrue(normalized.consistent());
+
+        ReconciliationReport trimmed = service(s3, table, "trim,validate-id").reconcile("/users/users.csv");
+
+        assertEquals(2, trimmed.sourceRows());
+        assertEquals(0, trimmed.skippedRows());
+        assertEquals(List.of("1"), trimmed.mismatchedIds());
+        assertEquals(List.of("2"), trimmed.missingIds());
+    }
+
+    private static ReconciliationService service(S3Client s3, DynamoDbClient dynamoDb) {
+        return service(s3, dynamoDb, TransformRules.DEFAULT_RULES);
+    }
+
+    private static ReconciliationService service(S3Client s3, DynamoDbClient dynamoDb, String rules) {
+        ReconciliationService service = new ReconciliationService(s3, dynamoDb,
+                new PipelineMetrics(new SimpleMeterRegistry(), PipelineMetrics.DEFAULT_NAMESPACE, "upload", null));
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+        ReflectionTestUtils.setField(service, "tableName", "user_migration_record");
+        ReflectionTestUtils.setField(service, "scanSegments", 3);
+        ReflectionTestUtils.setField(service, "partitions", 4);
+        ReflectionTestUtils.setField(service, "sampleSize", 10);
+        ReflectionTestUtils.setField(service, "rules", rules);
+        service.validateConfiguration();
+        return service;
+    }
+
+    private static Map<String, AttributeValue> item(String id, String name, String email) {
+        return Map.of("id", AttributeValue.fromS(id), "name", AttributeValue.fromS(name),
+                "email", AttributeValue.fromS(email));
+    }
+
+    /** Splits the items across segments by index and returns them two per page. */
+    private static final class StubDynamoDbClient implements DynamoDbClient {
+
+        private static final int PAGE_SIZE = 2;
+
+        private final List<Map<String, AttributeValue>> items;
+        private final List<Integer> segments = new CopyOnWriteArrayList<>();
+
+        private StubDynamoDbClient(List<Map<String, AttributeValue>> items) {
+            this.items = items;
+        }
+
+        @Override
+        public ScanResponse scan(ScanRequest request) {
+            segments.add(request.segment());
+            List<Map<String, AttributeValue>> segment = new ArrayList<>();
+            for (int i = request.segment(); i < items.size(); i += request.totalSegments()) {
+                segment.add(items.get(i));
+            }
+            int from = request.hasExclusiveStartKey()
+                    ? Integer.parseInt(request.exclusiveStartKey().get("offset").n())
+                    : 0;
+            int to = Math.min(from + PAGE_SIZE, segment.size());
+            ScanResponse.Builder response = ScanResponse.builder().items(segment.subList(from, to));
+            if (to < segment.size()) {
+                response.lastEvaluatedKey(Map.of("offset", AttributeValue.fromN(Integer.toString(to))));
+            }
+            return response.build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class StubS3Client implements S3Client {
+
+        private final byte[] object;
+        private final String contentEncoding;
+
+        private StubS3Client(byte[] object, String contentEncoding) {
+            this.object = object;
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            GetObjectResponse response = GetObjectResponse.builder()
+                    .contentLength((long) object.length)
+                    .contentEncoding(contentEncoding)
+                    .build();
+            return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(object)));
+        }
+
+        @Override
+        public S3ServiceClientConfiguration serviceClientConfiguration() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
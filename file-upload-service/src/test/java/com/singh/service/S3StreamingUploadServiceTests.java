@@ -0,0 +1,199 @@
+package com.singh.service;
+
+import com.singh.dto.StreamingUploadResult;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3StreamingUploadServiceTests {
+
+    private static final int PART_SIZE = (int) DataSize.ofMegabytes(5).toBytes();
+
+    @Test
+    void uploadsBodyAsOrderedParts() throws IOException {
+        RecordingS3Client s3 = new RecordingS3Client(-1);
+        byte[] body = new byte[PART_SIZE * 2 + 123];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+
+        StreamingUploadResult result = service(s3).upload(new ByteArrayInputStream(body), "users.csv", "text/csv");
+
+        assertEquals(body.length, result.bytes());
+        assertEquals(3, result.parts());
+        assertEquals(List.of(1, 2, 3), s3.completedParts.stream().map(CompletedPart::partNumber).toList());
+        byte[] uploaded = new byte[body.length];
+        for (int part = 1; part <= 3; part++) {
+            byte[] bytes = s3.parts.get(part);
+            System.arraycopy(bytes, 0, uploaded, (part - 1) * PART_SIZE, bytes.length);
+        }
+        assertArrayEquals(body, uploaded);
+        assertEquals(result.jobId(), s3.metadata.get(JobProgress.JOB_ID_METADATA));
+    }
+
+    @Test
+    void abortsWhenAPartFails() {
+        RecordingS3Client s3 = new RecordingS3Client(2);
+
+        assertThrows(IllegalStateException.class, () -> service(s3)
+                .upload(new ByteArrayInputStream(new byte[PART_SIZE * 3]), "users.csv", "text/csv"));
+        assertTrue(s3.aborted);
+    }
+
+    @Test
+    void abortsEmptyBody() {
+        RecordingS3Client s3 = new RecordingS3Client(-1);
+
+        assertThrows(IllegalArgumentException.class, () -> service(s3)
+                .upload(new ByteArrayInputStream(new byte[0]), "users.csv", "text/csv"));
+        assertTrue(s3.aborted);
+    }
+
+    @Test
+    void compressesUncompressedBodyWhenConfigured() throws IOException {
+        RecordingS3Client s3 = new RecordingS3Client(-1);
+        byte[] csv = "id,name,email\n1,User 1,user1@example.com\n".repeat(200_000).getBytes(StandardCharsets.UTF_8);
+
+        StreamingUploadResult result = service(s3, "gzip")
+                .upload(new ByteArrayInputStream(csv), "users.csv", "text/csv");
+
+        assertEquals("gzip", result.contentEncoding());
+        assertEquals("gzip", s3.contentEncoding);
+        assertTrue(result.bytes() < csv.length / 5);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(s3.uploaded()))) {
+            assertArrayEquals(csv, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void storesCompressedBodyAsSent() throws IOException {
+        RecordingS3Client s3 = new RecordingS3Client(-1);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write("id,name,email\n1,User 1,user1@example.com\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Recognised by its magic bytes, without a Content-Encoding header; zstd is not applied on top
+        StreamingUploadResult result = service(s3, "zstd")
+                .upload(new ByteArrayInputStream(gzipped.toByteArray()), "users.csv.gz", "text/csv");
+
+        assertEquals("gzip", result.contentEncoding());
+        assertEquals("gzip", s3.contentEncoding);
+        assertArrayEquals(gzipped.toByteArray(), s3.uploaded());
+    }
+
+    private static S3StreamingUploadService service(S3Client s3) {
+        return service(s3, "none");
+    }
+
+    private static S3StreamingUploadService service(S3Client s3, String compression) {
+        S3StreamingUploadService service = new S3StreamingUploadService(s3,
+                new PipelineMetrics(new SimpleMeterRegistry(), PipelineMetrics.DEFAULT_NAMESPACE, "upload", null),
+                new MigrationJobService(null));
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+        ReflectionTestUtils.setField(service, "partSize", DataSize.ofBytes(PART_SIZE));
+        ReflectionTestUtils.setField(service, "maxInFlightParts", 2);
+        ReflectionTestUtils.setField(service, "compressionName", compression);
+        service.validateConfiguration();
+        return service;
+    }
+
+    private static final class RecordingS3Client implements S3Client {
+
+        private final int failingPart;
+        private final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        private List<CompletedPart> completedParts;
+        private String contentEncoding;
+        private Map<String, String> metadata;
+        private volatile boolean aborted;
+
+        private RecordingS3Client(int failingPart) {
+            this.failingPart = failingPart;
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            contentEncoding = request.contentEncoding();
+            metadata = request.metadata();
+            return CreateMultipartUploadResponse.builder().uploadId("upload-1").build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            if (request.partNumber() == failingPart) {
+                throw new IllegalStateException("part " + failingPart + " failed");
+            }
+            try (var in = body.contentStreamProvider().newStream()) {
+                parts.put(request.partNumber(), in.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            completedParts = request.multipartUpload().parts();
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            aborted = true;
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        private byte[] uploaded() {
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            for (CompletedPart part : completedParts) {
+                object.writeBytes(parts.get(part.partNumber()));
+            }
+            return object.toByteArray();
+        }
+
+        @Override
+        public S3ServiceClientConfiguration serviceClientConfiguration() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
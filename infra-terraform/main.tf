@@ -27,6 +27,40 @@ resource "aws_dynamodb_table" "user_table" {
   }
 }
 
+# Ingest progress per S3 key + ETag, and markers for chunks the writer has committed; items expire via TTL
+resource "aws_dynamodb_table" "checkpoint_table" {
+  name         = "user_migration_checkpoint"
+  billing_mode = "PAY_PER_REQUEST"
+  hash_key     = "id"
+
+  attribute {
+    name = "id"
+    type = "S"
+  }
+
+  ttl {
+    attribute_name = "expiresAt"
+    enabled        = true
+  }
+}
+
+# Migration jobs registered by the upload service, and the sharded per-stage row counters of each; items expire via TTL
+resource "aws_dynamodb_table" "job_table" {
+  name         = "user_migration_job"
+  billing_mode = "PAY_PER_REQUEST"
+  hash_key     = "id"
+
+  attribute {
+    name = "id"
+    type = "S"
+  }
+
+  ttl {
+    attribute_name = "expiresAt"
+    enabled        = true
+  }
+}
+
 # SNS Topics for chaining
 resource "aws_sns_topic" "ingest_to_transform" {
   name = "user-migration-ingest-to-transform"
@@ -36,10 +70,70 @@ resource "aws_sns_topic" "transform_to_dynamo" {
   name = "user-migration-transform-to-dynamo"
 }
 
+# Rows the transform rules rejected; subscribe a queue or email to review them
+resource "aws_sns_topic" "transform_rejected" {
+  name = "user-migration-transform-rejected"
+}
+
 resource "aws_sns_topic" "user_migration_fanout_topic" {
   name = "user_migration_fanout_topic"
 }
 
+# SQS buffer between transform and the Dynamo writer (dynamo_writer_source = "sqs")
+locals {
+  writer_via_sqs = var.dynamo_writer_source == "sqs"
+}
+
+resource "aws_sqs_queue" "dynamo_writer_dlq" {
+  count = local.writer_via_sqs ? 1 : 0
+
+  name                      = "user-migration-dynamo-writer-dlq"
+  message_retention_seconds = 1209600
+}
+
+resource "aws_sqs_queue" "dynamo_writer_queue" {
+  count = local.writer_via_sqs ? 1 : 0
+
+  name = "user-migration-dynamo-writer"
+  # At least 6x the function timeout, so in-flight batches are not redelivered while being written
+  visibility_timeout_seconds = 360
+
+  redrive_policy = jsonencode({
+    deadLetterTargetArn = aws_sqs_queue.dynamo_writer_dlq[0].arn
+    maxReceiveCount     = 5
+  })
+}
+
+resource "aws_sqs_queue_policy" "dynamo_writer_queue_policy" {
+  count = local.writer_via_sqs ? 1 : 0
+
+  queue_url = aws_sqs_queue.dynamo_writer_queue[0].id
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [{
+      Effect    = "Allow"
+      Principal = { Service = "sns.amazonaws.com" }
+      Action    = "sqs:SendMessage"
+      Resource  = aws_sqs_queue.dynamo_writer_queue[0].arn
+      Condition = {
+        ArnEquals = { "aws:SourceArn" = aws_sns_topic.transform_to_dynamo.arn }
+      }
+    }]
+  })
+}
+
+resource "aws_sns_topic_subscription" "dynamo_writer_queue_subscription" {
+  count = local.writer_via_sqs ? 1 : 0
+
+  topic_arn = aws_sns_topic.transform_to_dynamo.arn
+  protocol  = "sqs"
+  endpoint  = aws_sqs_queue.dynamo_writer_queue[0].arn
+  # The writer reads the record payload straight from the message body
+  raw_message_delivery = true
+
+  depends_on = [aws_sqs_queue_policy.dynamo_writer_queue_policy]
+}
+
 # IAM Role for Lambdas
 resource "aws_iam_role" "lambda_exec_role" {
   name = "lambda_exec_role_shared"
@@ -80,13 +174,30 @@ resource "aws_iam_role_policy" "lambda_custom_policy" {
         Action = ["sns:Publish","sns:Subscribe"]
         Resource = [
           aws_sns_topic.ingest_to_transform.arn,
-          aws_sns_topic.transform_to_dynamo.arn
+          aws_sns_topic.transform_to_dynamo.arn,
+          aws_sns_topic.transform_rejected.arn,
+          aws_sns_topic.user_migration_fanout_topic.arn
+        ]
+      },
+      {
+        Effect = "Allow"
+        Action = ["dynamodb:PutItem","dynamodb:BatchWriteItem","dynamodb:UpdateItem","dynamodb:GetItem","dynamodb:BatchGetItem"]
+        Resource = [
+          aws_dynamodb_table.user_table.arn,
+          aws_dynamodb_table.checkpoint_table.arn,
+          aws_dynamodb_table.job_table.arn
         ]
       },
+      # Ingest hands objects that outlast its time budget to a new invocation of itself
+      {
+        Effect = "Allow"
+        Action = ["lambda:InvokeFunction"]
+        Resource = "arn:aws:lambda:*:*:function:user-migration-s3-ingest*"
+      },
       {
         Effect = "Allow"
-        Action = ["dynamodb:PutItem","dynamodb:BatchWriteItem","dynamodb:UpdateItem","dynamodb:GetItem"]
-        Resource = aws_dynamodb_table.user_table.arn
+        Action = ["sqs:ReceiveMessage","sqs:DeleteMessage","sqs:GetQueueAttributes","sqs:ChangeMessageVisibility"]
+        Resource = "arn:aws:sqs:*:*:user-migration-dynamo-writer"
       },
       {
         Effect = "Allow",
@@ -114,45 +225,74 @@ locals {
     user-migration-s3-ingest = {
       handler = "org.springframework.cloud.function.adapter.aws.FunctionInvoker::handleRequest"
       jar     = var.jar_lambda-s3-ingest
+      module  = "lambda-s3-ingest"
       env     = {
         SNS_INGEST_TO_TRANSFORM_TOPIC_ARN = aws_sns_topic.ingest_to_transform.arn
+        CHECKPOINT_TABLE_NAME = aws_dynamodb_table.checkpoint_table.name
+        JOB_TABLE_NAME = aws_dynamodb_table.job_table.name
         SPRING_PROFILES_ACTIVE = var.spring_profiles_active
       }
     }
     user-migration-transform = {
       handler = "org.springframework.cloud.function.adapter.aws.FunctionInvoker::handleRequest"
       jar     = var.jar_lambda-transform
+      module  = "lambda-transform"
       env     = {
         SNS_TRANSFORM_TO_DYNAMO_TOPIC_ARN = aws_sns_topic.transform_to_dynamo.arn
+        SNS_TRANSFORM_REJECTED_TOPIC_ARN  = aws_sns_topic.transform_rejected.arn
+        JOB_TABLE_NAME = aws_dynamodb_table.job_table.name
         SPRING_PROFILES_ACTIVE = var.spring_profiles_active
       }
     }
     user-migration-dynamo-writer = {
       handler = "org.springframework.cloud.function.adapter.aws.FunctionInvoker::handleRequest"
       jar     = var.jar_lambda-dynamo-writer
+      module  = "lambda-dynamo-writer"
       env     = {
         DYNAMO_TABLE_NAME = aws_dynamodb_table.user_table.name
+        CHECKPOINT_TABLE_NAME = aws_dynamodb_table.checkpoint_table.name
+        JOB_TABLE_NAME = aws_dynamodb_table.job_table.name
         SPRING_PROFILES_ACTIVE = var.spring_profiles_active
+        WRITER_FUNCTION_DEFINITION = local.writer_via_sqs ? "sqsDynamoWriterHandler" : "dynamoWriterHandler"
+        DYNAMO_WRITE_SKIP_UNCHANGED = tostring(var.dynamo_writer_skip_unchanged)
       }
     }
     user-migration-sns-dispatcher = {
       handler = "org.springframework.cloud.function.adapter.aws.FunctionInvoker::handleRequest"
       jar     = var.jar_lambda-sns-dispatcher
+      module  = "lambda-sns-dispatcher"
       env     = {
         SNS_USER_MIGRATION_FANOUT_TOPIC_ARN = aws_sns_topic.user_migration_fanout_topic.arn
         SPRING_PROFILES_ACTIVE = var.spring_profiles_active
+        DISPATCHER_FUNCTION_DEFINITION = var.dispatcher_window_seconds > 0 ? "windowedDispatcherHandler" : "snsDispatcherHandler"
       }
     }
   }
 }
 
+# Native builds (mvn package -Pnative) leave the executable in target/bootstrap; provided.al2023 runs it
+# from the root of the deployment package
+data "archive_file" "native_bootstrap" {
+  for_each = var.lambda_native_image ? local.lambdas : {}
+
+  type        = "zip"
+  source_file = "${path.module}/../${each.value.module}/target/bootstrap"
+  output_path = "${path.module}/.build/${each.key}-native.zip"
+}
+
+locals {
+  lambda_packages = {
+    for name, fn in local.lambdas : name => var.lambda_native_image ? data.archive_file.native_bootstrap[name].output_path : fn.jar
+  }
+}
+
 resource "aws_s3_object" "lambda_jars" {
   for_each = local.lambdas
 
   bucket = aws_s3_bucket.lambda_bucket.id
-  key    = "jars/${each.key}.jar"
-  source = each.value.jar
-  etag   = filemd5(each.value.jar)
+  key    = var.lambda_native_image ? "native/${each.key}.zip" : "jars/${each.key}.jar"
+  source = local.lambda_packages[each.key]
+  etag   = filemd5(local.lambda_packages[each.key])
 }
 
 resource "aws_lambda_function" "multi" {
@@ -160,29 +300,52 @@ resource "aws_lambda_function" "multi" {
 
   function_name = each.key
   handler       = each.value.handler
-  runtime       = "java21"
+  runtime       = var.lambda_native_image ? "provided.al2023" : "java21"
 
   role             = aws_iam_role.lambda_exec_role.arn
   s3_bucket        = aws_s3_bucket.lambda_bucket.id
   s3_key           = aws_s3_object.lambda_jars[each.key].key
-  source_code_hash = filebase64sha256(each.value.jar)
+  source_code_hash = filebase64sha256(local.lambda_packages[each.key])
 
   environment {
-    variables = each.value.env
+    variables = merge(each.value.env,
+      var.spring_aot_enabled && !var.lambda_native_image ? { JAVA_TOOL_OPTIONS = "-Dspring.aot.enabled=true" } : {})
   }
-  memory_size = 1024
+  # A native image needs no JIT or class loading headroom
+  memory_size = var.lambda_native_image ? var.lambda_native_memory_size : 1024
   timeout     = 60
 
+  # SnapStart snapshots published versions only; CRaC priming hooks run before the snapshot
+  publish = var.enable_snapstart
+
+  # SnapStart is for the Java runtimes; native images start fast without it
+  dynamic "snap_start" {
+    for_each = var.enable_snapstart && !var.lambda_native_image ? [1] : []
+    content {
+      apply_on = "PublishedVersions"
+    }
+  }
+
   depends_on = [aws_s3_object.lambda_jars, aws_iam_role_policy.lambda_custom_policy]
 }
 
 # Permissions and triggers for Lambdas
+# With SnapStart enabled, triggers must target the published version, not $LATEST
+locals {
+  lambda_invoke_arns = {
+    for name, fn in aws_lambda_function.multi : name => var.enable_snapstart ? fn.qualified_arn : fn.arn
+  }
+  lambda_qualifiers = {
+    for name, fn in aws_lambda_function.multi : name => var.enable_snapstart ? fn.version : null
+  }
+}
 
 # S3 to S3 Ingest Lambda
 resource "aws_lambda_permission" "allow_s3_invoke" {
   statement_id  = "AllowS3Invoke"
   action        = "lambda:InvokeFunction"
   function_name = aws_lambda_function.multi["user-migration-s3-ingest"].function_name
+  qualifier     = local.lambda_qualifiers["user-migration-s3-ingest"]
   principal     = "s3.amazonaws.com"
   source_arn    = aws_s3_bucket.migration_input_bucket.arn
 }
@@ -191,7 +354,7 @@ resource "aws_s3_bucket_notification" "migration_bucket_notification" {
   bucket = aws_s3_bucket.migration_input_bucket.id
 
   lambda_function {
-    lambda_function_arn = aws_lambda_function.multi["user-migration-s3-ingest"].arn
+    lambda_function_arn = local.lambda_invoke_arns["user-migration-s3-ingest"]
     events              = ["s3:ObjectCreated:*"]
     filter_prefix       = "users/"
   }
@@ -204,6 +367,7 @@ resource "aws_lambda_permission" "allow_sns_invoke_transform" {
   statement_id  = "AllowSNSInvokeTransform"
   action        = "lambda:InvokeFunction"
   function_name = aws_lambda_function.multi["user-migration-transform"].function_name
+  qualifier     = local.lambda_qualifiers["user-migration-transform"]
   principal     = "sns.amazonaws.com"
   source_arn    = aws_sns_topic.ingest_to_transform.arn
 }
@@ -211,42 +375,76 @@ resource "aws_lambda_permission" "allow_sns_invoke_transform" {
 resource "aws_sns_topic_subscription" "transform_subscription" {
   topic_arn = aws_sns_topic.ingest_to_transform.arn
   protocol  = "lambda"
-  endpoint  = aws_lambda_function.multi["user-migration-transform"].arn
+  endpoint  = local.lambda_invoke_arns["user-migration-transform"]
 
   depends_on = [aws_lambda_permission.allow_sns_invoke_transform]
 }
 
-# SNS to Dynamo Writer Lambda
+# SNS to Dynamo Writer Lambda (dynamo_writer_source = "sns")
 resource "aws_lambda_permission" "allow_sns_invoke_dynamo_writer" {
+  count = local.writer_via_sqs ? 0 : 1
+
   statement_id  = "AllowSNSInvokeDynamoWriter"
   action        = "lambda:InvokeFunction"
   function_name = aws_lambda_function.multi["user-migration-dynamo-writer"].function_name
+  qualifier     = local.lambda_qualifiers["user-migration-dynamo-writer"]
   principal     = "sns.amazonaws.com"
   source_arn    = aws_sns_topic.transform_to_dynamo.arn
 }
 
 resource "aws_sns_topic_subscription" "dynamo_writer_subscription" {
+  count = local.writer_via_sqs ? 0 : 1
+
   topic_arn = aws_sns_topic.transform_to_dynamo.arn
   protocol  = "lambda"
-  endpoint  = aws_lambda_function.multi["user-migration-dynamo-writer"].arn
+  endpoint  = local.lambda_invoke_arns["user-migration-dynamo-writer"]
 
   depends_on = [aws_lambda_permission.allow_sns_invoke_dynamo_writer]
 }
 
+# SQS to Dynamo Writer Lambda: batching windows amortize cold starts and connections over many messages
+resource "aws_lambda_event_source_mapping" "dynamo_writer_queue" {
+  count = local.writer_via_sqs ? 1 : 0
+
+  event_source_arn = aws_sqs_queue.dynamo_writer_queue[0].arn
+  function_name    = local.lambda_invoke_arns["user-migration-dynamo-writer"]
+
+  # Only the messages whose records failed to parse or write are redelivered
+  function_response_types            = ["ReportBatchItemFailures"]
+  batch_size                         = var.dynamo_writer_batch_size
+  maximum_batching_window_in_seconds = var.dynamo_writer_batching_window_seconds
+
+  scaling_config {
+    maximum_concurrency = var.dynamo_writer_max_concurrency
+  }
+
+  depends_on = [aws_lambda_function.multi, aws_iam_role_policy.lambda_custom_policy]
+}
+
 # DynamoDB Stream to SNS Dispatcher Lambda
 resource "aws_lambda_permission" "allow_dynamodb_stream_invoke_dispatcher" {
   statement_id  = "AllowDynamoDBInvokeDispatcher"
   action        = "lambda:InvokeFunction"
   function_name = aws_lambda_function.multi["user-migration-sns-dispatcher"].function_name
+  qualifier     = local.lambda_qualifiers["user-migration-sns-dispatcher"]
   principal     = "dynamodb.amazonaws.com"
   source_arn    = aws_dynamodb_table.user_table.stream_arn
 }
 
 resource "aws_lambda_event_source_mapping" "dynamodb_stream_to_sns_dispatcher" {
   event_source_arn  = aws_dynamodb_table.user_table.stream_arn
-  function_name     = aws_lambda_function.multi["user-migration-sns-dispatcher"].arn
+  function_name     = local.lambda_invoke_arns["user-migration-sns-dispatcher"]
   starting_position = "LATEST"
 
+  # Only the stream records whose PublishBatch entries failed are retried
+  function_response_types        = ["ReportBatchItemFailures"]
+  batch_size                     = 100
+  maximum_retry_attempts         = 5
+  bisect_batch_on_function_error = true
+
+  # Aggregation mode: one summary per shard per window instead of one message per row
+  tumbling_window_in_seconds = var.dispatcher_window_seconds > 0 ? var.dispatcher_window_seconds : null
+
   depends_on = [aws_lambda_function.multi, aws_dynamodb_table.user_table]
 }
 
@@ -270,6 +468,22 @@ output "sns_topic_transform_to_dynamo_arn" {
   value = aws_sns_topic.transform_to_dynamo.arn
 }
 
+output "sns_topic_transform_rejected_arn" {
+  value = aws_sns_topic.transform_rejected.arn
+}
+
+output "dynamo_writer_queue_url" {
+  value = local.writer_via_sqs ? aws_sqs_queue.dynamo_writer_queue[0].id : null
+}
+
 output "dynamodb_table_name" {
   value = aws_dynamodb_table.user_table.name
 }
+
+output "checkpoint_table_name" {
+  value = aws_dynamodb_table.checkpoint_table.name
+}
+
+output "job_table_name" {
+  value = aws_dynamodb_table.job_table.name
+}
@@ -27,4 +27,75 @@ variable "spring_profiles_active" {
   description = "Spring profiles active"
   type        = string
   default     = "local"
-}
\ No newline at end of file
+}
+
+variable "enable_snapstart" {
+  description = "Publish versions with Lambda SnapStart and point triggers at them"
+  type        = bool
+  default     = false
+}
+
+variable "spring_aot_enabled" {
+  description = "Start functions from Spring AOT bean definitions (jars must be built with -Paot)"
+  type        = bool
+  default     = false
+}
+
+variable "lambda_native_image" {
+  description = "Deploy the GraalVM native executables (built with -Pnative into target/bootstrap) on provided.al2023 instead of the jars on java21"
+  type        = bool
+  default     = false
+}
+
+variable "lambda_native_memory_size" {
+  description = "Memory (MB) of each function when lambda_native_image is set"
+  type        = number
+  default     = 256
+}
+
+
+variable "dynamo_writer_source" {
+  description = "How the Dynamo writer consumes the transform topic: \"sqs\" (queue with batching windows) or \"sns\" (one invocation per message)"
+  type        = string
+  default     = "sqs"
+
+  validation {
+    condition     = contains(["sqs", "sns"], var.dynamo_writer_source)
+    error_message = "dynamo_writer_source must be \"sqs\" or \"sns\"."
+  }
+}
+
+variable "dynamo_writer_batch_size" {
+  description = "Maximum SQS messages per writer invocation (Lambda also caps the batch at 6 MB)"
+  type        = number
+  default     = 500
+}
+
+variable "dynamo_writer_batching_window_seconds" {
+  description = "How long Lambda gathers SQS messages before invoking the writer"
+  type        = number
+  default     = 5
+}
+
+variable "dynamo_writer_max_concurrency" {
+  description = "Maximum concurrent writer invocations the SQS event source scales to"
+  type        = number
+  default     = 10
+}
+
+variable "dynamo_writer_skip_unchanged" {
+  description = "Skip rewriting rows whose stored content hash matches (idempotent re-runs)"
+  type        = bool
+  default     = true
+}
+
+variable "dispatcher_window_seconds" {
+  description = "Tumbling window (1-900 s) in which the dispatcher aggregates stream changes into one summary per shard; 0 publishes one event per changed row"
+  type        = number
+  default     = 0
+
+  validation {
+    condition     = var.dispatcher_window_seconds >= 0 && var.dispatcher_window_seconds <= 900
+    error_message = "dispatcher_window_seconds must be between 0 and 900."
+  }
+}
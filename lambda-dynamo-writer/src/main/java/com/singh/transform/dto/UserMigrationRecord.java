@@ -1,25 +0,0 @@
-package com.singh.transform.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
-
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@DynamoDbBean
-public class UserMigrationRecord {
-
-    private String id;
-    private String name;
-    private String email;
-
-    @DynamoDbPartitionKey
-    public String getId() {
-        return id;
-    }
-}
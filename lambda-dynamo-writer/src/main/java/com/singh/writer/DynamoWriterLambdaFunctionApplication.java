@@ -1,11 +1,14 @@
-package com.singh.transform;
+package com.singh.writer;
 
+import com.singh.writer.config.DynamoWriterRuntimeHints;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @Slf4j
 @SpringBootApplication
+@ImportRuntimeHints(DynamoWriterRuntimeHints.class)
 public class DynamoWriterLambdaFunctionApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,208 @@
+package com.singh.writer.batch;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces {@code BatchWriteItem} calls to what the table accepts, with additive-increase /
+ * multiplicative-decrease (AIMD) on two limits:
+ * <ul>
+ *     <li>a token bucket of write capacity units per second, charged up front with one unit per
+ *     item and settled against the {@code ConsumedCapacity} DynamoDB reports;</li>
+ *     <li>the number of batch calls in flight, between 1 and {@code dynamo.write.concurrency}.</li>
+ * </ul>
+ * While the bucket is being drained, the rate grows by the units of every unthrottled call until
+ * the first throttle, doubling about once a second (slow start); after that it grows by
+ * {@code dynamo.write.rate.increase} units per second of unthrottled writing. A throttle (exception
+ * or unprocessed items) cuts both limits by {@code dynamo.write.rate.decrease}, at most once per
+ * {@link #DECREASE_COOLDOWN} so a burst of concurrent throttles counts once. The rate ends up
+ * oscillating just under the table's real capacity.
+ * <p>
+ * One instance serves all invocations of a warm container, so a learned rate carries over to the
+ * next invocation instead of being rediscovered by throttling again. Waiting uses
+ * {@link ReentrantLock} rather than {@code synchronized} so waiting virtual threads do not pin
+ * their carrier.
+ */
+@Slf4j
+@Component
+public class AdaptiveWriteLimiter {
+
+    static final Duration DECREASE_COOLDOWN = Duration.ofSeconds(1);
+
+    @Value("${dynamo.write.concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${dynamo.write.rate.initial:1000}")
+    private double initialRate;
+
+    @Value("${dynamo.write.rate.min:25}")
+    private double minRate;
+
+    @Value("${dynamo.write.rate.max:40000}")
+    private double maxRate;
+
+    @Value("${dynamo.write.rate.increase:100}")
+    private double rateIncrease;
+
+    @Value("${dynamo.write.rate.decrease:0.5}")
+    private double rateDecrease;
+
+    LongSupplier clock = System::nanoTime;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final Condition tokensAdded = lock.newCondition();
+
+    private double rate;
+    private double tokens;
+    private long refilledAt;
+    private int concurrencyLimit;
+    private int inFlight;
+    private int successesSinceIncrease;
+    private long decreasedAt;
+    private boolean slowStart;
+
+    @PostConstruct
+    void init() {
+        if (maxConcurrency < 1) {
+            throw new IllegalStateException("dynamo.write.concurrency must be at least 1");
+        }
+        if (minRate <= 0 || minRate > initialRate || initialRate > maxRate) {
+            throw new IllegalStateException("dynamo.write.rate.* must satisfy 0 < min <= initial <= max");
+        }
+        if (rateIncrease < 0 || rateDecrease <= 0 || rateDecrease >= 1) {
+            throw new IllegalStateException(
+                    "dynamo.write.rate.increase must be >= 0 and dynamo.write.rate.decrease in (0, 1)");
+        }
+        rate = initialRate;
+        tokens = initialRate;
+        refilledAt = clock.getAsLong();
+        decreasedAt = refilledAt - DECREASE_COOLDOWN.toNanos();
+        concurrencyLimit = maxConcurrency;
+        slowStart = true;
+    }
+
+    /**
+     * Waits for a call slot and for {@code units} write capacity units. Every successful acquire
+     * must be followed by one {@link #release}.
+     */
+    public void acquire(int units) throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= concurrencyLimit) {
+                slotFreed.await();
+            }
+            inFlight++;
+            try {
+                // The bucket holds one second of capacity; a call larger than that waits for a full bucket
+                while (true) {
+                    refill();
+                    double needed = Math.min(units, rate);
+                    if (tokens >= needed) {
+                        break;
+                    }
+                    long waitNanos = (long) ((needed - tokens) / rate * TimeUnit.SECONDS.toNanos(1)) + 1;
+                    tokensAdded.awaitNanos(waitNanos);
+                }
+                tokens -= units;
+            } catch (InterruptedException e) {
+                inFlight--;
+                slotFreed.signal();
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends a call started with {@link #acquire}.
+     *
+     * @param units         the units passed to {@code acquire}
+     * @param consumedUnits capacity DynamoDB reported as consumed, or a negative value when unknown
+     * @param throttled     whether the call was throttled or left items unprocessed
+     */
+    public void release(int units, double consumedUnits, boolean throttled) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (consumedUnits >= 0) {
+                // Items over 1 KB cost more than the unit charged up front
+                tokens -= consumedUnits - units;
+            }
+            if (throttled) {
+                decrease();
+            } else {
+                increase(units);
+            }
+            slotFreed.signal();
+            tokensAdded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double rate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int concurrencyLimit() {
+        lock.lock();
+        try {
+            return concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(rate, tokens + rate * (now - refilledAt) / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+
+    private void increase(int units) {
+        refill();
+        // Only raise a rate that is actually being used up; otherwise it would grow without bound
+        // while concurrency or the caller is the limit
+        if (tokens < rate / 2) {
+            // A call spends units / rate seconds of the budget, so calls add up to rateIncrease per second
+            rate = Math.min(maxRate, rate + (slowStart ? units : rateIncrease * units / rate));
+        }
+        // One more call in flight once a full window of calls has gone through unthrottled
+        if (++successesSinceIncrease >= concurrencyLimit && concurrencyLimit < maxConcurrency) {
+            concurrencyLimit++;
+            successesSinceIncrease = 0;
+        }
+    }
+
+    private void decrease() {
+        long now = clock.getAsLong();
+        successesSinceIncrease = 0;
+        if (now - decreasedAt < DECREASE_COOLDOWN.toNanos()) {
+            return;
+        }
+        decreasedAt = now;
+        slowStart = false;
+        refill();
+        rate = Math.max(minRate, rate * rateDecrease);
+        concurrencyLimit = Math.max(1, (int) (concurrencyLimit * rateDecrease));
+        // Drop the burst allowance so the lower rate applies immediately
+        tokens = Math.min(tokens, 0);
+        log.info("Write throttled; backing off to {} WCU/s with {} calls in flight",
+                Math.round(rate), concurrencyLimit);
+    }
+}
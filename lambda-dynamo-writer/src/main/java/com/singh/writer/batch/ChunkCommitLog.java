@@ -0,0 +1,126 @@
+package com.singh.writer.batch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Markers for ingested chunks whose records are all written, kept in the ingest checkpoint table
+ * under the chunk id that ingest attaches to each chunk. When ingest resumes an object and publishes
+ * a chunk again, the writer finds its marker and skips the chunk instead of rewriting its records.
+ * <p>
+ * Puts are idempotent, so the markers only save work: a marker that cannot be read or written means
+ * the chunk is written again. Off without a table, and for messages without a chunk id.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkCommitLog {
+
+    /** DynamoDB limits for a single BatchGetItem and BatchWriteItem call. */
+    private static final int MAX_BATCH_GET_SIZE = 100;
+    private static final int MAX_BATCH_WRITE_SIZE = 25;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String ID = "id";
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final DynamoDbClient dynamoDb;
+
+    @Value("${dynamo.write.chunk-log.table:${CHECKPOINT_TABLE_NAME:}}")
+    private String tableName;
+
+    @Value("${dynamo.write.chunk-log.ttl:7d}")
+    private Duration ttl;
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(tableName);
+    }
+
+    /**
+     * Returns the chunk ids among {@code chunkIds} that have been committed before.
+     */
+    public Set<String> committed(Collection<String> chunkIds) {
+        if (!isEnabled() || chunkIds.isEmpty()) {
+            return Set.of();
+        }
+        List<String> ids = List.copyOf(new HashSet<>(chunkIds));
+        Set<String> committed = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_GET_SIZE) {
+            List<Map<String, AttributeValue>> keys = ids.subList(from, Math.min(from + MAX_BATCH_GET_SIZE, ids.size()))
+                    .stream()
+                    .map(id -> Map.of(ID, AttributeValue.fromS(id)))
+                    .toList();
+            Map<String, KeysAndAttributes> request = Map.of(tableName, KeysAndAttributes.builder()
+                    .keys(keys)
+                    .projectionExpression(ID)
+                    .build());
+            try {
+                for (int attempt = 1; attempt <= MAX_ATTEMPTS && !request.isEmpty(); attempt++) {
+                    Map<String, KeysAndAttributes> keysToRead = request;
+                    BatchGetItemResponse response = dynamoDb.batchGetItem(builder -> builder.requestItems(keysToRead));
+                    response.responses().getOrDefault(tableName, List.of())
+                            .forEach(item -> committed.add(item.get(ID).s()));
+                    request = response.unprocessedKeys();
+                }
+            } catch (SdkException e) {
+                log.warn("Failed to read {} chunk markers; writing those chunks again", keys.size(), e);
+            }
+        }
+        return committed;
+    }
+
+    /**
+     * Marks chunks as committed; best effort.
+     */
+    public void markCommitted(Collection<String> chunkIds) {
+        if (!isEnabled() || chunkIds.isEmpty()) {
+            return;
+        }
+        AttributeValue expiresAt = AttributeValue.fromN(Long.toString(Instant.now().plus(ttl).getEpochSecond()));
+        List<String> ids = List.copyOf(new HashSet<>(chunkIds));
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_WRITE_SIZE) {
+            List<WriteRequest> puts = new ArrayList<>();
+            for (String id : ids.subList(from, Math.min(from + MAX_BATCH_WRITE_SIZE, ids.size()))) {
+                puts.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder()
+                                .item(Map.of(ID, AttributeValue.fromS(id), EXPIRES_AT, expiresAt))
+                                .build())
+                        .build());
+            }
+            Map<String, List<WriteRequest>> request = Map.of(tableName, puts);
+            try {
+                for (int attempt = 1; attempt <= MAX_ATTEMPTS && !request.isEmpty(); attempt++) {
+                    Map<String, List<WriteRequest>> itemsToWrite = request;
+                    BatchWriteItemResponse response = dynamoDb.batchWriteItem(builder -> builder.requestItems(itemsToWrite));
+                    request = response.unprocessedItems();
+                }
+                if (!request.isEmpty()) {
+                    log.warn("{} chunk markers were not written; a redelivery of those chunks writes them again",
+                            request.getOrDefault(tableName, List.of()).size());
+                }
+            } catch (SdkException e) {
+                log.warn("Failed to write {} chunk markers; a redelivery of those chunks writes them again", puts.size(), e);
+            }
+        }
+    }
+}
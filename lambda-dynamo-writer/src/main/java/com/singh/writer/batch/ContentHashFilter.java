@@ -0,0 +1,195 @@
+package com.singh.writer.batch;
+
+import com.singh.writer.dto.UserMigrationRecord;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Skips records whose content is already stored. Each item carries a {@code contentHash}; a record is
+ * unchanged when its hash matches the one in a warm in-process cache or, on a cache miss, the one
+ * read back with {@code BatchGetItem}. Reading a hash costs half a read unit, against a full write
+ * unit and a stream event for rewriting the row.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContentHashFilter {
+
+    /** DynamoDB limit for a single BatchGetItem call. */
+    public static final int MAX_BATCH_GET_SIZE = 100;
+
+    private static final byte FIELD_SEPARATOR = 0x1F;
+    private static final byte NULL_FIELD = 0x00;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+
+    @Value("${dynamo.write.skip-unchanged:false}")
+    private boolean enabled;
+
+    @Value("${dynamo.write.hash-cache-size:100000}")
+    private int cacheSize;
+
+    @Value("${dynamo.write.concurrency:4}")
+    private int concurrency;
+
+    private Map<String, String> hashCache;
+
+    @PostConstruct
+    void initCache() {
+        hashCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stamps every record with its content hash and, when skipping is enabled, returns the records
+     * that differ from what is stored. Records whose stored hash cannot be read are kept.
+     */
+    public List<UserMigrationRecord> changed(List<UserMigrationRecord> records, DynamoDbTable<UserMigrationRecord> table) {
+        records.forEach(record -> record.setContentHash(hash(record)));
+        if (!enabled) {
+            return records;
+        }
+
+        List<UserMigrationRecord> misses = new ArrayList<>();
+        for (UserMigrationRecord record : records) {
+            if (!record.getContentHash().equals(hashCache.get(record.getId()))) {
+                misses.add(record);
+            }
+        }
+        if (misses.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, String> stored = storedHashes(misses, table);
+        List<UserMigrationRecord> changed = new ArrayList<>(misses.size());
+        for (UserMigrationRecord record : misses) {
+            if (record.getContentHash().equals(stored.get(record.getId()))) {
+                hashCache.put(record.getId(), record.getContentHash());
+            } else {
+                changed.add(record);
+            }
+        }
+        log.debug("Content hash check: {} records, {} cache misses, {} changed", records.size(), misses.size(), changed.size());
+        return changed;
+    }
+
+    /**
+     * Records the hashes of items that were just written, so a re-run in this container skips them
+     * without a read.
+     */
+    public void remember(Collection<UserMigrationRecord> written) {
+        if (!enabled) {
+            return;
+        }
+        for (UserMigrationRecord record : written) {
+            hashCache.put(record.getId(), record.getContentHash());
+        }
+    }
+
+    private Map<String, String> storedHashes(List<UserMigrationRecord> records, DynamoDbTable<UserMigrationRecord> table) {
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<Map<String, String>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int from = 0; from < records.size(); from += MAX_BATCH_GET_SIZE) {
+                List<UserMigrationRecord> batch = records.subList(from, Math.min(from + MAX_BATCH_GET_SIZE, records.size()));
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return readHashes(batch, table);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        Map<String, String> stored = new HashMap<>();
+        for (Future<Map<String, String>> future : futures) {
+            try {
+                stored.putAll(future.resultNow());
+            } catch (IllegalStateException e) {
+                log.warn("BatchGetItem task did not complete normally; writing those records unconditionally", e);
+            }
+        }
+        return stored;
+    }
+
+    private Map<String, String> readHashes(List<UserMigrationRecord> batch, DynamoDbTable<UserMigrationRecord> table) {
+        ReadBatch.Builder<UserMigrationRecord> readBatch = ReadBatch.builder(UserMigrationRecord.class)
+                .mappedTableResource(table);
+        batch.forEach(record -> readBatch.addGetItem(Key.builder().partitionValue(record.getId()).build()));
+
+        Map<String, String> stored = new HashMap<>();
+        try {
+            // The result pages re-request UnprocessedKeys until every key has been read
+            enhancedClient.batchGetItem(BatchGetItemEnhancedRequest.builder()
+                            .readBatches(readBatch.build())
+                            .build())
+                    .resultsForTable(table)
+                    .forEach(item -> stored.put(item.getId(), item.getContentHash()));
+        } catch (AwsServiceException e) {
+            log.warn("BatchGetItem failed for {} records; writing them unconditionally", batch.size(), e);
+        }
+        return stored;
+    }
+
+    /**
+     * Truncated SHA-256 of {@code id}, {@code name} and {@code email}, base64url-encoded.
+     */
+    public static String hash(UserMigrationRecord record) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        update(digest, record.getId());
+        update(digest, record.getName());
+        update(digest, record.getEmail());
+        byte[] hash = digest.digest();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+    }
+
+    private static void update(MessageDigest digest, String field) {
+        if (field == null) {
+            digest.update(NULL_FIELD);
+        } else {
+            digest.update(field.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(FIELD_SEPARATOR);
+    }
+}
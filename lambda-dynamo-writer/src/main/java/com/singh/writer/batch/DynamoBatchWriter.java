@@ -0,0 +1,254 @@
+package com.singh.writer.batch;
+
+import com.singh.metrics.PipelineMetrics;
+import com.singh.writer.dto.UserMigrationRecord;
+import io.awspring.cloud.dynamodb.DynamoDbTableNameResolver;
+import io.awspring.cloud.dynamodb.DynamoDbTableSchemaResolver;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
+
+/**
+ * Persists records with {@code BatchWriteItem}: records are grouped into 25-item batches, several
+ * batches are sent at once, and {@code UnprocessedItems} are retried with exponential backoff and
+ * full jitter. Calls are paced by the {@link AdaptiveWriteLimiter}; throttled attempts are retried
+ * until {@code dynamo.write.throttle-timeout} has passed, other failures until
+ * {@code dynamo.write.max-attempts} is reached. With {@code dynamo.write.skip-unchanged}, records
+ * whose stored content hash matches are not rewritten.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DynamoBatchWriter {
+
+    /** DynamoDB limit for a single BatchWriteItem call. */
+    public static final int MAX_BATCH_SIZE = 25;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbTableSchemaResolver tableSchemaResolver;
+    private final DynamoDbTableNameResolver tableNameResolver;
+    private final ContentHashFilter contentHashFilter;
+    private final AdaptiveWriteLimiter writeLimiter;
+    private final PipelineMetrics metrics;
+
+    @Value("${dynamo.write.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${dynamo.write.base-backoff:25ms}")
+    private Duration baseBackoff;
+
+    @Value("${dynamo.write.max-backoff:2s}")
+    private Duration maxBackoff;
+
+    /** Kept under the function timeout, so unwritten records are reported rather than cut off. */
+    @Value("${dynamo.write.throttle-timeout:40s}")
+    private Duration throttleTimeout;
+
+    private DynamoDbTable<UserMigrationRecord> table;
+
+    @PostConstruct
+    void initTable() {
+        if (maxAttempts < 1) {
+            throw new IllegalStateException("dynamo.write.max-attempts must be at least 1");
+        }
+        table = enhancedClient.table(tableNameResolver.resolve(UserMigrationRecord.class),
+                tableSchemaResolver.resolve(UserMigrationRecord.class));
+    }
+
+    /**
+     * Writes {@code records} and returns how many were persisted, how many were skipped as unchanged,
+     * how many were given up on, and the ids of the records that were given up on.
+     */
+    public WriteOutcome writeAll(List<UserMigrationRecord> records) {
+        int failed = 0;
+        Set<String> failedIds = new HashSet<>();
+
+        // A single BatchWriteItem call rejects duplicate keys, so keep the last record per id
+        // (the same end state sequential saves would leave behind). Superseded copies are counted
+        // with the record that replaced them.
+        Map<String, UserMigrationRecord> byId = new LinkedHashMap<>();
+        Map<String, Integer> copies = new HashMap<>();
+        for (UserMigrationRecord record : records) {
+            if (record == null || !StringUtils.hasText(record.getId())) {
+                failed++;
+                log.warn("Skipping UserMigrationRecord without an id");
+                continue;
+            }
+            if (byId.put(record.getId(), record) != null) {
+                copies.merge(record.getId(), 1, Integer::sum);
+            }
+        }
+        ToIntFunction<UserMigrationRecord> weight = record -> 1 + copies.getOrDefault(record.getId(), 0);
+        if (byId.isEmpty()) {
+            return new WriteOutcome(0, 0, failed, failedIds);
+        }
+
+        List<UserMigrationRecord> unique = contentHashFilter.changed(new ArrayList<>(byId.values()), table);
+        int unchanged = 0;
+        if (unique.size() < byId.size()) {
+            Set<String> changedIds = new HashSet<>();
+            unique.forEach(record -> changedIds.add(record.getId()));
+            for (UserMigrationRecord record : byId.values()) {
+                if (!changedIds.contains(record.getId())) {
+                    unchanged += weight.applyAsInt(record);
+                }
+            }
+        }
+        if (unique.isEmpty()) {
+            log.debug("All {} records unchanged; nothing to write", byId.size());
+            return new WriteOutcome(0, unchanged, failed, failedIds);
+        }
+
+        List<List<UserMigrationRecord>> batches = new ArrayList<>();
+        for (int from = 0; from < unique.size(); from += MAX_BATCH_SIZE) {
+            batches.add(unique.subList(from, Math.min(from + MAX_BATCH_SIZE, unique.size())));
+        }
+
+        // The limiter bounds the calls in flight, so every batch gets its own virtual thread
+        long throttleDeadline = System.nanoTime() + throttleTimeout.toNanos();
+        List<Future<List<UserMigrationRecord>>> futures = new ArrayList<>(batches.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<UserMigrationRecord> batch : batches) {
+                futures.add(executor.submit(() -> writeBatch(batch, throttleDeadline)));
+            }
+        }
+
+        int written = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            List<UserMigrationRecord> batch = batches.get(i);
+            List<UserMigrationRecord> unwritten;
+            try {
+                unwritten = futures.get(i).resultNow();
+            } catch (IllegalStateException e) {
+                unwritten = batch;
+                log.error("Batch write task did not complete normally", e);
+            }
+            for (UserMigrationRecord record : batch) {
+                written += weight.applyAsInt(record);
+            }
+            for (UserMigrationRecord record : unwritten) {
+                written -= weight.applyAsInt(record);
+                failed += weight.applyAsInt(record);
+                failedIds.add(record.getId());
+            }
+        }
+        if (contentHashFilter.isEnabled()) {
+            contentHashFilter.remember(unique.stream().filter(record -> !failedIds.contains(record.getId())).toList());
+        }
+
+        log.debug("BatchWriteItem finished: {} batches, written={}, unchanged={}, failed={}",
+                batches.size(), written, unchanged, failed);
+        return new WriteOutcome(written, unchanged, failed, failedIds);
+    }
+
+    /**
+     * Writes one batch, retrying unprocessed items, and returns the records that could not be written.
+     */
+    private List<UserMigrationRecord> writeBatch(List<UserMigrationRecord> batch, long throttleDeadline)
+            throws InterruptedException {
+        List<UserMigrationRecord> pending = batch;
+        int attempt = 0;
+        int failedAttempts = 0;
+
+        while (true) {
+            if (attempt > 0) {
+                metrics.retries("write", 1);
+                Thread.sleep(backoff(attempt));
+            }
+            attempt++;
+
+            WriteBatch.Builder<UserMigrationRecord> writeBatch = WriteBatch.builder(UserMigrationRecord.class)
+                    .mappedTableResource(table);
+            pending.forEach(writeBatch::addPutItem);
+            metrics.batchSize("write", pending.size());
+
+            // One unit per item up front; the limiter settles it against the consumed capacity
+            int units = pending.size();
+            double consumedUnits = -1;
+            boolean throttled = false;
+            writeLimiter.acquire(units);
+            try {
+                BatchWriteResult result = enhancedClient.batchWriteItem(BatchWriteItemEnhancedRequest.builder()
+                        .addWriteBatch(writeBatch.build())
+                        .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                        .build());
+                consumedUnits = consumedUnits(result);
+                pending = result.unprocessedPutItemsForTable(table);
+                // DynamoDB leaves items unprocessed when their partition is over capacity
+                throttled = !pending.isEmpty();
+            } catch (AwsServiceException e) {
+                throttled = e.isThrottlingException();
+                if (!throttled && ++failedAttempts >= maxAttempts) {
+                    log.error("BatchWriteItem failed for {} records after {} attempts (first id: {})",
+                            pending.size(), attempt, pending.get(0).getId(), e);
+                    return pending;
+                }
+                log.warn("BatchWriteItem {} on attempt {} for {} records: {}",
+                        throttled ? "throttled" : "failed", attempt, pending.size(), e.getMessage());
+            } finally {
+                writeLimiter.release(units, consumedUnits, throttled);
+            }
+
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+            if (throttled && System.nanoTime() > throttleDeadline) {
+                log.error("Still throttled after {}; returning {} records for redelivery (first id: {})",
+                        throttleTimeout, pending.size(), pending.get(0).getId());
+                return pending;
+            }
+            log.debug("BatchWriteItem attempt {} left {} unwritten items", attempt, pending.size());
+        }
+    }
+
+    private static double consumedUnits(BatchWriteResult result) {
+        List<ConsumedCapacity> consumed = result.consumedCapacity();
+        if (consumed == null || consumed.isEmpty()) {
+            return -1;
+        }
+        double units = 0;
+        for (ConsumedCapacity capacity : consumed) {
+            if (capacity.capacityUnits() != null) {
+                units += capacity.capacityUnits();
+            }
+        }
+        return units;
+    }
+
+    /** Exponential backoff with full jitter, on top of the limiter's pacing. */
+    private long backoff(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), baseBackoff.toMillis() << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * {@code failedIds} lets callers map failures back to the messages the records came from.
+     */
+    public record WriteOutcome(int written, int unchanged, int failed, Set<String> failedIds) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.singh.writer.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.codec.RecordBatchCodec;
+import com.singh.writer.dto.UserMigrationRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * Decodes the records published by the transform stage, whichever event source delivered them.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecordPayloadParser {
+
+    private static final TypeReference<List<UserMigrationRecord>> USER_MIGRATION_RECORD_LIST =
+            new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final RecordBatchCodec<UserMigrationRecord> recordBatchCodec;
+
+    /**
+     * Accepts a binary record batch, or the legacy JSON array while producers are being rolled over.
+     */
+    public List<UserMigrationRecord> parse(String payload) {
+        if (!StringUtils.hasText(payload)) {
+            throw new IllegalArgumentException("Message payload is empty");
+        }
+        if (RecordBatchCodec.isEncoded(payload)) {
+            return recordBatchCodec.decode(payload);
+        }
+        try {
+            return objectMapper.readValue(payload, USER_MIGRATION_RECORD_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to parse JSON payload", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.singh.writer.config;
+
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.singh.writer.dto.UserMigrationRecord;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image ({@code -Pnative}): the SNS and SQS event models, the SQS
+ * batch response and the records are bound by Jackson. The AWS SDK ships its own native-image
+ * metadata; only the interceptor lists it looks up as resources are added here.
+ */
+public class DynamoWriterRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bind(hints, SNSEvent.class);
+        bind(hints, SQSEvent.class);
+        bind(hints, SQSBatchResponse.class);
+        bind(hints, UserMigrationRecord.class);
+        hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/services/*/execution.interceptors");
+    }
+
+    /** Registers {@code type} and its nested types, which the event classes use for their parts. */
+    private static void bind(RuntimeHints hints, Class<?> type) {
+        hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            bind(hints, nested);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.singh.writer.config;
+
+import com.singh.progress.JobProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+
+/**
+ * Job progress is counted when {@code pipeline.jobs.table} (or {@code JOB_TABLE_NAME}) names a table,
+ * for messages ingest tagged with a job id, through the writer's own DynamoDB client.
+ */
+@Slf4j
+@Configuration
+public class JobProgressConfig {
+
+    @Bean
+    public JobProgress jobProgress(DynamoDbClient dynamoDbClient,
+                                   @Value("${pipeline.jobs.table:${JOB_TABLE_NAME:}}") String tableName,
+                                   @Value("${pipeline.jobs.flush-interval:2s}") Duration flushInterval,
+                                   @Value("${pipeline.jobs.ttl:7d}") Duration ttl) {
+        if (!StringUtils.hasText(tableName)) {
+            return JobProgress.disabled(JobProgress.WRITE);
+        }
+        log.info("Counting job progress in table {}", tableName);
+        return new JobProgress(dynamoDbClient, tableName, JobProgress.WRITE, flushInterval, ttl);
+    }
+}
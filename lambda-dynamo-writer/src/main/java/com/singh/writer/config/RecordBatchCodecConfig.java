@@ -0,0 +1,20 @@
+package com.singh.writer.config;
+
+import com.singh.codec.RecordBatchCodec;
+import com.singh.codec.UserMigrationRecordSchema;
+import com.singh.writer.dto.UserMigrationRecord;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RecordBatchCodecConfig {
+
+    /**
+     * The writer only decodes batches, so the compression threshold is irrelevant here.
+     */
+    @Bean
+    public RecordBatchCodec<UserMigrationRecord> userMigrationRecordCodec() {
+        return new RecordBatchCodec<>(new UserMigrationRecordSchema<>(UserMigrationRecord::getId,
+                UserMigrationRecord::getName, UserMigrationRecord::getEmail, UserMigrationRecord::new), -1);
+    }
+}
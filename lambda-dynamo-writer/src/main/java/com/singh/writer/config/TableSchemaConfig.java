@@ -0,0 +1,20 @@
+package com.singh.writer.config;
+
+import com.singh.writer.dto.UserMigrationRecord;
+import com.singh.writer.schema.UserMigrationRecordTableSchema;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+@Configuration
+public class TableSchemaConfig {
+
+    /**
+     * Picked up by the auto-configured {@code DynamoDbTableSchemaResolver}, so the template and the
+     * batch writer use the static schema instead of building a bean schema on the first write.
+     */
+    @Bean
+    public TableSchema<UserMigrationRecord> userMigrationRecordTableSchema() {
+        return UserMigrationRecordTableSchema.INSTANCE;
+    }
+}
@@ -0,0 +1,29 @@
+package com.singh.writer.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Mapped to DynamoDB by {@link com.singh.writer.schema.UserMigrationRecordTableSchema}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserMigrationRecord {
+
+    private String id;
+    private String name;
+    private String email;
+
+    /** Hash of the fields above, stored with the item so unchanged rows can be skipped on a re-run. */
+    @JsonIgnore
+    private String contentHash;
+
+    public UserMigrationRecord(String id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
+}
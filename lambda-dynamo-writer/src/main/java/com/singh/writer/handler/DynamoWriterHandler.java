@@ -0,0 +1,128 @@
+package com.singh.writer.handler;
+
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.SNSRecord;
+import com.singh.codec.PipelineMessages;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import com.singh.writer.batch.ChunkCommitLog;
+import com.singh.writer.batch.DynamoBatchWriter;
+import com.singh.writer.codec.RecordPayloadParser;
+import com.singh.writer.dto.UserMigrationRecord;
+import io.awspring.cloud.dynamodb.DynamoDbTableNameResolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class DynamoWriterHandler implements Function<SNSEvent, String> {
+
+    private final DynamoBatchWriter batchWriter;
+    private final ChunkCommitLog chunkCommitLog;
+    private final RecordPayloadParser payloadParser;
+    private final DynamoDbTableNameResolver tableNameResolver;
+    private final PipelineMetrics metrics;
+    private final JobProgress jobProgress;
+
+    @Override
+    public String apply(SNSEvent event) {
+
+        if (event == null || CollectionUtils.isEmpty(event.getRecords())) {
+            log.warn("Received SNS event with no records. Nothing to persist.");
+            return "No SNS records to process";
+        }
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            String tableName = tableNameResolver.resolve(UserMigrationRecord.class);
+            log.debug("Resolved DynamoDB table name for UserMigrationRecord = {}", tableName);
+
+            int failureCount = 0;
+            int skippedChunks = 0;
+            List<UserMigrationRecord> pending = new ArrayList<>();
+            Map<String, List<UserMigrationRecord>> chunks = new HashMap<>();
+            Map<String, Long> jobRows = new HashMap<>();
+
+            // Chunks published again after ingest resumed an object were already written
+            Set<String> committed = chunkCommitLog.committed(event.getRecords().stream()
+                    .map(snsRecord -> attribute(snsRecord.getSNS(), PipelineMessages.CHUNK_ID_ATTRIBUTE))
+                    .filter(Objects::nonNull)
+                    .toList());
+
+            long parseStart = System.nanoTime();
+            for (SNSRecord snsRecord : event.getRecords()) {
+                String chunkId = attribute(snsRecord.getSNS(), PipelineMessages.CHUNK_ID_ATTRIBUTE);
+                if (chunkId != null && committed.contains(chunkId)) {
+                    skippedChunks++;
+                    continue;
+                }
+                try {
+                    String message = snsRecord.getSNS().getMessage();
+                    metrics.bytesRead(message == null ? 0 : message.length());
+                    List<UserMigrationRecord> records = parseRecords(message);
+                    pending.addAll(records);
+                    if (chunkId != null) {
+                        chunks.computeIfAbsent(chunkId, id -> new ArrayList<>()).addAll(records);
+                    }
+                    String jobId = attribute(snsRecord.getSNS(), JobProgress.JOB_ID_ATTRIBUTE);
+                    if (jobId != null) {
+                        jobRows.merge(jobId, (long) records.size(), Long::sum);
+                    }
+                } catch (IllegalArgumentException e) {
+                    failureCount++;
+                    log.error("Failed to parse SNS record message. Skipping this record. Error: {}", e.getMessage(), e);
+                }
+            }
+            metrics.latency("parse", System.nanoTime() - parseStart);
+            metrics.rowsIn(pending.size());
+
+            DynamoBatchWriter.WriteOutcome outcome = metrics.time("write", () -> batchWriter.writeAll(pending));
+            int successCount = outcome.written();
+            failureCount += outcome.failed();
+            metrics.rowsOut(successCount);
+            chunkCommitLog.markCommitted(chunks.entrySet().stream()
+                    .filter(chunk -> chunk.getValue().stream().noneMatch(r -> outcome.failedIds().contains(r.getId())))
+                    .map(Map.Entry::getKey)
+                    .toList());
+            if (!outcome.failedIds().isEmpty()) {
+                // Fail the invocation so Lambda retries the event; puts are idempotent, so rewrites are harmless
+                throw new IllegalStateException(outcome.failedIds().size()
+                        + " records could not be written to DynamoDB (written=" + successCount + ")");
+            }
+            // Counted only once the event is through, so a retried event does not count its rows twice
+            jobRows.forEach(jobProgress::add);
+
+            log.info("Finished writing records to DynamoDB. Successes={}, Unchanged={}, Failures={}, CommittedChunksSkipped={}",
+                    successCount, outcome.unchanged(), failureCount, skippedChunks);
+            return String.format("Written %d records to DynamoDB (%d unchanged, %d failures)",
+                    successCount, outcome.unchanged(), failureCount);
+        } finally {
+            jobProgress.flush();
+        }
+    }
+
+    private static String attribute(SNSEvent.SNS sns, String name) {
+        if (sns.getMessageAttributes() == null) {
+            return null;
+        }
+        SNSEvent.MessageAttribute attribute = sns.getMessageAttributes().get(name);
+        return attribute == null ? null : attribute.getValue();
+    }
+
+    /**
+     * Decodes the records published by the transform stage: a binary record batch, or the
+     * legacy JSON array while producers are being rolled over.
+     */
+    public List<UserMigrationRecord> parseRecords(String payload) {
+        return payloadParser.parse(payload);
+    }
+}
@@ -0,0 +1,154 @@
+package com.singh.writer.handler;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent.SQSMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.codec.PipelineMessages;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import com.singh.writer.batch.ChunkCommitLog;
+import com.singh.writer.batch.DynamoBatchWriter;
+import com.singh.writer.codec.RecordPayloadParser;
+import com.singh.writer.dto.UserMigrationRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * SQS consumption mode of the writer: the transform topic delivers into a queue, and Lambda polls it
+ * in batching windows, so one invocation persists the records of many SNS messages at once. Messages
+ * whose records could not be parsed or written are reported as batch item failures; SQS redelivers
+ * only those, and moves them to the dead-letter queue once the redrive limit is reached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqsDynamoWriterHandler implements Function<SQSEvent, SQSBatchResponse> {
+
+    private final DynamoBatchWriter batchWriter;
+    private final ChunkCommitLog chunkCommitLog;
+    private final RecordPayloadParser payloadParser;
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics metrics;
+    private final JobProgress jobProgress;
+
+    @Override
+    public SQSBatchResponse apply(SQSEvent event) {
+
+        if (event == null || CollectionUtils.isEmpty(event.getRecords())) {
+            log.warn("Received SQS event with no messages. Nothing to persist.");
+            return new SQSBatchResponse(List.of());
+        }
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            return writeMessages(event.getRecords());
+        } finally {
+            jobProgress.flush();
+        }
+    }
+
+    private SQSBatchResponse writeMessages(List<SQSMessage> messages) {
+        metrics.batchSize("receive", messages.size());
+
+        // Message ids in delivery order, so failures are reported in the order SQS handed them out
+        Set<String> failedMessageIds = new LinkedHashSet<>();
+        List<MessageRecords> parsed = new ArrayList<>(messages.size());
+        List<UserMigrationRecord> pending = new ArrayList<>();
+
+        // Chunks published again after ingest resumed an object were already written
+        Set<String> committed = chunkCommitLog.committed(messages.stream()
+                .map(message -> attribute(message, PipelineMessages.CHUNK_ID_ATTRIBUTE))
+                .filter(Objects::nonNull)
+                .toList());
+        int skippedChunks = 0;
+
+        long parseStart = System.nanoTime();
+        for (SQSMessage message : messages) {
+            String chunkId = attribute(message, PipelineMessages.CHUNK_ID_ATTRIBUTE);
+            if (chunkId != null && committed.contains(chunkId)) {
+                skippedChunks++;
+                continue;
+            }
+            try {
+                metrics.bytesRead(message.getBody() == null ? 0 : message.getBody().length());
+                List<UserMigrationRecord> records = payloadParser.parse(unwrap(message.getBody()));
+                parsed.add(new MessageRecords(message.getMessageId(), chunkId,
+                        attribute(message, JobProgress.JOB_ID_ATTRIBUTE), records));
+                pending.addAll(records);
+            } catch (IllegalArgumentException e) {
+                failedMessageIds.add(message.getMessageId());
+                log.error("Failed to parse SQS message {}. Leaving it for redelivery. Error: {}",
+                        message.getMessageId(), e.getMessage(), e);
+            }
+        }
+
+        metrics.latency("parse", System.nanoTime() - parseStart);
+        metrics.rowsIn(pending.size());
+
+        DynamoBatchWriter.WriteOutcome outcome = metrics.time("write", () -> batchWriter.writeAll(pending));
+        metrics.rowsOut(outcome.written());
+        List<String> committedChunks = new ArrayList<>();
+        for (MessageRecords message : parsed) {
+            if (message.records().stream().anyMatch(r -> outcome.failedIds().contains(r.getId()))) {
+                failedMessageIds.add(message.messageId());
+                continue;
+            }
+            if (message.chunkId() != null) {
+                committedChunks.add(message.chunkId());
+            }
+            // Redelivered messages are the failed ones, so the rows of a message are counted once
+            jobProgress.add(message.jobId(), message.records().size());
+        }
+        chunkCommitLog.markCommitted(committedChunks);
+
+        log.info("Finished writing SQS batch to DynamoDB. messages={}, records={}, written={}, unchanged={}, failed={}, failedMessages={}, committedChunksSkipped={}",
+                messages.size(), pending.size(), outcome.written(), outcome.unchanged(), outcome.failed(),
+                failedMessageIds.size(), skippedChunks);
+        return new SQSBatchResponse(failedMessageIds.stream()
+                .map(SQSBatchResponse.BatchItemFailure::new)
+                .toList());
+    }
+
+    /**
+     * With raw message delivery, SNS message attributes arrive as SQS message attributes.
+     */
+    private static String attribute(SQSMessage message, String name) {
+        if (message.getMessageAttributes() == null) {
+            return null;
+        }
+        SQSEvent.MessageAttribute attribute = message.getMessageAttributes().get(name);
+        return attribute == null ? null : attribute.getStringValue();
+    }
+
+    /**
+     * The subscription uses raw message delivery; a body that is still an SNS notification envelope
+     * (raw delivery switched off) is unwrapped to its {@code Message}.
+     */
+    private String unwrap(String body) {
+        if (body == null || !body.startsWith("{")) {
+            return body;
+        }
+        try {
+            JsonNode envelope = objectMapper.readTree(body);
+            JsonNode message = envelope.get("Message");
+            return "Notification".equals(envelope.path("Type").asText()) && message != null
+                    ? message.asText()
+                    : body;
+        } catch (JsonProcessingException e) {
+            return body;
+        }
+    }
+
+    private record MessageRecords(String messageId, String chunkId, String jobId, List<UserMigrationRecord> records) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.singh.writer.schema;
+
+import com.singh.writer.dto.UserMigrationRecord;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+
+/**
+ * Hand-written DynamoDB mapping of {@link UserMigrationRecord}. Unlike a bean schema it needs no
+ * introspection or {@code LambdaMetafactory} bootstrapping, and the built schema is immutable, so a
+ * single instance is shared by every write.
+ */
+public final class UserMigrationRecordTableSchema {
+
+    public static final StaticTableSchema<UserMigrationRecord> INSTANCE =
+            StaticTableSchema.builder(UserMigrationRecord.class)
+                    .newItemSupplier(UserMigrationRecord::new)
+                    .addAttribute(String.class, a -> a.name("id")
+                            .getter(UserMigrationRecord::getId)
+                            .setter(UserMigrationRecord::setId)
+                            .tags(primaryPartitionKey()))
+                    .addAttribute(String.class, a -> a.name("name")
+                            .getter(UserMigrationRecord::getName)
+                            .setter(UserMigrationRecord::setName))
+                    .addAttribute(String.class, a -> a.name("email")
+                            .getter(UserMigrationRecord::getEmail)
+                            .setter(UserMigrationRecord::setEmail))
+                    .addAttribute(String.class, a -> a.name("contentHash")
+                            .getter(UserMigrationRecord::getContentHash)
+                            .setter(UserMigrationRecord::setContentHash))
+                    .build();
+
+    private UserMigrationRecordTableSchema() {
+    }
+}
@@ -0,0 +1,102 @@
+package com.singh.writer.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveWriteLimiterTests {
+
+    private long now;
+    private AdaptiveWriteLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveWriteLimiter();
+        ReflectionTestUtils.setField(limiter, "maxConcurrency", 4);
+        ReflectionTestUtils.setField(limiter, "initialRate", 100d);
+        ReflectionTestUtils.setField(limiter, "minRate", 10d);
+        ReflectionTestUtils.setField(limiter, "maxRate", 1000d);
+        ReflectionTestUtils.setField(limiter, "rateIncrease", 10d);
+        ReflectionTestUtils.setField(limiter, "rateDecrease", 0.5d);
+        limiter.clock = () -> now;
+        limiter.init();
+    }
+
+    @Test
+    void throttleHalvesRateAndConcurrencyOncePerCooldown() throws InterruptedException {
+        write(25, true);
+        assertEquals(50, limiter.rate(), 0.001);
+        assertEquals(2, limiter.concurrencyLimit());
+
+        // A concurrent throttle within the cooldown is the same congestion event
+        now += AdaptiveWriteLimiter.DECREASE_COOLDOWN.toNanos() / 2;
+        write(25, true);
+        assertEquals(50, limiter.rate(), 0.001);
+
+        now += AdaptiveWriteLimiter.DECREASE_COOLDOWN.toNanos() / 2;
+        write(25, true);
+        assertEquals(25, limiter.rate(), 0.001);
+        assertEquals(1, limiter.concurrencyLimit());
+    }
+
+    @Test
+    void rateGrowsOnlyWhileTheBucketIsDrained() throws InterruptedException {
+        // Slow start: more than half of the bucket spent, so the units come back as rate
+        write(60, false);
+        assertEquals(160, limiter.rate(), 0.001);
+
+        // A second later the bucket is full again; an idle table does not inflate the rate
+        now += TimeUnit.SECONDS.toNanos(1);
+        write(25, false);
+        assertEquals(160, limiter.rate(), 0.001);
+    }
+
+    @Test
+    void additiveIncreaseAfterTheFirstThrottle() throws InterruptedException {
+        write(25, true);
+        assertEquals(50, limiter.rate(), 0.001);
+
+        // 25 units at 50 WCU/s is half a second of budget: half of the 10 WCU/s per second increase
+        now += TimeUnit.MILLISECONDS.toNanos(500);
+        write(25, false);
+
+        assertEquals(55, limiter.rate(), 0.001);
+    }
+
+    @Test
+    void callsBeyondTheConcurrencyLimitWait() throws InterruptedException {
+        write(1, true);
+        now += AdaptiveWriteLimiter.DECREASE_COOLDOWN.toNanos();
+        write(1, true);
+        assertEquals(1, limiter.concurrencyLimit());
+
+        now += TimeUnit.SECONDS.toNanos(1);
+        limiter.acquire(1);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread second = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire(1);
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(1, 1, false);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        second.join();
+    }
+
+    private void write(int units, boolean throttled) throws InterruptedException {
+        limiter.acquire(units);
+        limiter.release(units, units, throttled);
+    }
+}
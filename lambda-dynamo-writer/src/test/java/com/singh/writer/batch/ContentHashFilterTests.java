@@ -0,0 +1,76 @@
+package com.singh.writer.batch;
+
+import com.singh.writer.dto.UserMigrationRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ContentHashFilterTests {
+
+    private final DynamoDbEnhancedClient enhancedClient = mock(DynamoDbEnhancedClient.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<UserMigrationRecord> table = mock(DynamoDbTable.class);
+    private ContentHashFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ContentHashFilter(enhancedClient);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "cacheSize", 10);
+        ReflectionTestUtils.setField(filter, "concurrency", 1);
+        filter.initCache();
+    }
+
+    @Test
+    void hashDependsOnEveryField() {
+        String hash = ContentHashFilter.hash(new UserMigrationRecord("1", "Ann", "ann@example.com"));
+
+        assertEquals(hash, ContentHashFilter.hash(new UserMigrationRecord("1", "Ann", "ann@example.com")));
+        assertNotEquals(hash, ContentHashFilter.hash(new UserMigrationRecord("1", "Ann", "ann@example.org")));
+        assertNotEquals(hash, ContentHashFilter.hash(new UserMigrationRecord("2", "Ann", "ann@example.com")));
+        // Field boundaries are part of the hash
+        assertNotEquals(ContentHashFilter.hash(new UserMigrationRecord("1", "Ann", "")),
+                ContentHashFilter.hash(new UserMigrationRecord("1", "", "Ann")));
+        assertNotEquals(ContentHashFilter.hash(new UserMigrationRecord("1", null, "a")),
+                ContentHashFilter.hash(new UserMigrationRecord("1", "", "a")));
+    }
+
+    @Test
+    void skipsRecordsRememberedInThisContainerWithoutReading() {
+        List<UserMigrationRecord> first = List.of(
+                new UserMigrationRecord("1", "Ann", "ann@example.com"),
+                new UserMigrationRecord("2", "Bob", "bob@example.com"));
+        first.forEach(record -> record.setContentHash(ContentHashFilter.hash(record)));
+        filter.remember(first);
+
+        List<UserMigrationRecord> changed = filter.changed(List.of(
+                new UserMigrationRecord("1", "Ann", "ann@example.com"),
+                new UserMigrationRecord("2", "Bob", "bob@example.com")), table);
+
+        assertTrue(changed.isEmpty());
+        verifyNoInteractions(enhancedClient);
+    }
+
+    @Test
+    void stampsHashesWhenSkippingIsDisabled() {
+        ReflectionTestUtils.setField(filter, "enabled", false);
+        UserMigrationRecord record = new UserMigrationRecord("1", "Ann", "ann@example.com");
+
+        List<UserMigrationRecord> changed = filter.changed(List.of(record), table);
+
+        assertEquals(List.of(record), changed);
+        assertNotNull(record.getContentHash());
+        verifyNoInteractions(enhancedClient);
+    }
+}
@@ -0,0 +1,117 @@
+package com.singh.writer.handler;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.codec.PipelineMessages;
+import com.singh.codec.RecordBatchCodec;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import com.singh.writer.batch.ChunkCommitLog;
+import com.singh.writer.batch.DynamoBatchWriter;
+import com.singh.writer.codec.RecordPayloadParser;
+import com.singh.writer.config.RecordBatchCodecConfig;
+import com.singh.writer.dto.UserMigrationRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqsDynamoWriterHandlerTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecordBatchCodec<UserMigrationRecord> codec =
+            new RecordBatchCodecConfig().userMigrationRecordCodec();
+    private final DynamoBatchWriter batchWriter = mock(DynamoBatchWriter.class);
+    private final ChunkCommitLog chunkCommitLog = mock(ChunkCommitLog.class);
+    private SqsDynamoWriterHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new SqsDynamoWriterHandler(batchWriter, chunkCommitLog, new RecordPayloadParser(objectMapper, codec),
+                objectMapper, new PipelineMetrics(new SimpleMeterRegistry(), PipelineMetrics.DEFAULT_NAMESPACE, "write", null),
+                JobProgress.disabled(JobProgress.WRITE));
+    }
+
+    @Test
+    void reportsOnlyMessagesWithUnparseableOrUnwrittenRecords() {
+        when(batchWriter.writeAll(anyList())).thenReturn(new DynamoBatchWriter.WriteOutcome(2, 0, 1, Set.of("3")));
+
+        SQSBatchResponse response = handler.apply(event(
+                message("m1", codec.encodeToString(List.of(record("1"), record("2")))),
+                message("m2", "not a payload"),
+                message("m3", "[{\"id\":\"3\",\"name\":\"Three\",\"email\":\"three@example.com\"}]")));
+
+        List<String> failed = response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier)
+                .toList();
+        assertEquals(List.of("m2", "m3"), failed);
+    }
+
+    @Test
+    void unwrapsSnsNotificationEnvelope() throws Exception {
+        when(batchWriter.writeAll(anyList())).thenReturn(new DynamoBatchWriter.WriteOutcome(1, 0, 0, Set.of()));
+        String payload = codec.encodeToString(List.of(record("1")));
+        String envelope = objectMapper.writeValueAsString(
+                Map.of("Type", "Notification", "Message", payload));
+
+        SQSBatchResponse response = handler.apply(event(message("m1", envelope)));
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+    }
+
+    @Test
+    void skipsCommittedChunksAndMarksWrittenOnes() {
+        when(chunkCommitLog.committed(anyCollection())).thenReturn(Set.of("s3://b/k#e@0"));
+        when(batchWriter.writeAll(anyList())).thenReturn(new DynamoBatchWriter.WriteOutcome(2, 0, 1, Set.of("3")));
+
+        SQSBatchResponse response = handler.apply(event(
+                message("m1", codec.encodeToString(List.of(record("1"))), "s3://b/k#e@0"),
+                message("m2", codec.encodeToString(List.of(record("2"))), "s3://b/k#e@100"),
+                message("m3", codec.encodeToString(List.of(record("3"))), "s3://b/k#e@200")));
+
+        verify(batchWriter).writeAll(argThat(records -> records.size() == 2));
+        verify(chunkCommitLog).markCommitted(List.of("s3://b/k#e@100"));
+        assertEquals(List.of("m3"), response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier)
+                .toList());
+    }
+
+    private static UserMigrationRecord record(String id) {
+        return new UserMigrationRecord(id, "User " + id, "user" + id + "@example.com");
+    }
+
+    private static SQSEvent.SQSMessage message(String id, String body) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(id);
+        message.setBody(body);
+        return message;
+    }
+
+    private static SQSEvent.SQSMessage message(String id, String body, String chunkId) {
+        SQSEvent.SQSMessage message = message(id, body);
+        SQSEvent.MessageAttribute attribute = new SQSEvent.MessageAttribute();
+        attribute.setDataType("String");
+        attribute.setStringValue(chunkId);
+        message.setMessageAttributes(Map.of(PipelineMessages.CHUNK_ID_ATTRIBUTE, attribute));
+        return message;
+    }
+
+    private static SQSEvent event(SQSEvent.SQSMessage... messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(List.of(messages));
+        return event;
+    }
+}
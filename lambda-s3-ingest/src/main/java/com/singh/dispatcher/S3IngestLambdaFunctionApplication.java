@@ -1,11 +1,14 @@
 package com.singh.dispatcher;
 
+import com.singh.dispatcher.config.S3IngestRuntimeHints;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @Slf4j
 @SpringBootApplication
+@ImportRuntimeHints(S3IngestRuntimeHints.class)
 public class S3IngestLambdaFunctionApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,60 @@
+package com.singh.dispatcher.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.dispatcher.dto.Location;
+import com.singh.dispatcher.ingest.CheckpointStore;
+import com.singh.dispatcher.ingest.IngestContinuation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Checkpointing is on when {@code ingest.checkpoint.table} (or {@code CHECKPOINT_TABLE_NAME}) names
+ * a table; continuations additionally need to run in Lambda, which sets
+ * {@code AWS_LAMBDA_FUNCTION_NAME}. Clients are only built when they are used.
+ */
+@Slf4j
+@Configuration
+public class CheckpointConfig {
+
+    @Value("${AWS_ENDPOINT_URL:}")
+    private String awsEndpointUrl;
+
+    @Value("${aws.region:}")
+    private String awsRegion;
+
+    @Bean
+    public CheckpointStore checkpointStore(@Value("${ingest.checkpoint.table:${CHECKPOINT_TABLE_NAME:}}") String tableName,
+                                           @Value("${ingest.checkpoint.ttl:7d}") Duration ttl) {
+        if (!StringUtils.hasText(tableName)) {
+            log.info("No checkpoint table configured; interrupted objects restart from the beginning");
+            return CheckpointStore.disabled();
+        }
+        DynamoDbClientBuilder builder = DynamoDbClient.builder();
+        if (StringUtils.hasText(awsEndpointUrl)) {
+            builder.region(Location.REGION.getRegion()).endpointOverride(URI.create(awsEndpointUrl));
+        } else if (StringUtils.hasText(awsRegion)) {
+            builder.region(Region.of(awsRegion));
+        }
+        log.info("Checkpointing ingest progress in table {}", tableName);
+        return new CheckpointStore(builder.build(), tableName, ttl);
+    }
+
+    @Bean
+    public IngestContinuation ingestContinuation(CheckpointStore checkpointStore, ObjectMapper objectMapper,
+                                                 @Value("${AWS_LAMBDA_FUNCTION_NAME:}") String functionName) {
+        if (!checkpointStore.isEnabled() || !StringUtils.hasText(functionName)) {
+            return IngestContinuation.disabled();
+        }
+        return new IngestContinuation(LambdaClient.create(), functionName, objectMapper);
+    }
+}
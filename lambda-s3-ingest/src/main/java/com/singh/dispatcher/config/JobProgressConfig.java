@@ -0,0 +1,47 @@
+package com.singh.dispatcher.config;
+
+import com.singh.dispatcher.dto.Location;
+import com.singh.progress.JobProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Job progress is counted when {@code pipeline.jobs.table} (or {@code JOB_TABLE_NAME}) names a table,
+ * for objects the upload stamped with a job id.
+ */
+@Slf4j
+@Configuration
+public class JobProgressConfig {
+
+    @Value("${AWS_ENDPOINT_URL:}")
+    private String awsEndpointUrl;
+
+    @Value("${aws.region:}")
+    private String awsRegion;
+
+    @Bean
+    public JobProgress jobProgress(@Value("${pipeline.jobs.table:${JOB_TABLE_NAME:}}") String tableName,
+                                   @Value("${pipeline.jobs.flush-interval:2s}") Duration flushInterval,
+                                   @Value("${pipeline.jobs.ttl:7d}") Duration ttl) {
+        if (!StringUtils.hasText(tableName)) {
+            return JobProgress.disabled(JobProgress.INGEST);
+        }
+        DynamoDbClientBuilder builder = DynamoDbClient.builder();
+        if (StringUtils.hasText(awsEndpointUrl)) {
+            builder.region(Location.REGION.getRegion()).endpointOverride(URI.create(awsEndpointUrl));
+        } else if (StringUtils.hasText(awsRegion)) {
+            builder.region(Region.of(awsRegion));
+        }
+        log.info("Counting job progress in table {}", tableName);
+        return new JobProgress(builder.build(), tableName, JobProgress.INGEST, flushInterval, ttl);
+    }
+}
@@ -0,0 +1,93 @@
+package com.singh.dispatcher.config;
+
+import com.singh.dispatcher.dto.Location;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Builds the single {@link S3Client} shared by every warm invocation, so the connection pool
+ * and TLS sessions survive between requests instead of being rebuilt (and leaked) each time.
+ */
+@Slf4j
+@Component
+public class S3ClientHelper {
+
+    @Value("${AWS_ENDPOINT_URL:}")
+    private String awsEndpointUrl;
+
+    @Value("${aws.region:}")
+    private String awsRegion;
+
+    /** {@code apache} or {@code crt}. */
+    @Value("${aws.s3.http-client:apache}")
+    private String httpClientType;
+
+    @Value("${aws.s3.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${aws.s3.connection-timeout:2s}")
+    private Duration connectionTimeout;
+
+    @Value("${aws.s3.connection-max-idle:60s}")
+    private Duration connectionMaxIdle;
+
+    @Value("${aws.s3.tcp-keep-alive:true}")
+    private boolean tcpKeepAlive;
+
+    @Bean(destroyMethod = "close")
+    public S3Client getS3Client() {
+
+        var clientBuilder = S3Client.builder().httpClient(buildHttpClient());
+        if (StringUtils.hasText(awsEndpointUrl)) {
+            return clientBuilder
+                    .region(Location.REGION.getRegion())
+                    .endpointOverride(URI.create(awsEndpointUrl))
+                    .forcePathStyle(true)
+                    .build();
+        } else if (StringUtils.hasText(awsRegion)) {
+            return clientBuilder.region(Region.of(awsRegion)).build();
+        } else {
+            return clientBuilder.build();
+        }
+    }
+
+    private SdkHttpClient buildHttpClient() {
+        log.info("Creating S3 {} HTTP client → maxConnections={}, keepAlive={}, maxIdle={}",
+                httpClientType, maxConnections, tcpKeepAlive, connectionMaxIdle);
+
+        return switch (httpClientType.toLowerCase()) {
+            case "crt" -> {
+                var crtBuilder = AwsCrtHttpClient.builder()
+                        .maxConcurrency(maxConnections)
+                        .connectionTimeout(connectionTimeout)
+                        .connectionMaxIdleTime(connectionMaxIdle);
+                if (tcpKeepAlive) {
+                    crtBuilder.tcpKeepAliveConfiguration(keepAlive -> keepAlive
+                            .keepAliveInterval(Duration.ofSeconds(30))
+                            .keepAliveTimeout(Duration.ofSeconds(5)));
+                }
+                yield crtBuilder.build();
+            }
+            case "apache" -> ApacheHttpClient.builder()
+                    .maxConnections(maxConnections)
+                    .connectionTimeout(connectionTimeout)
+                    .connectionMaxIdleTime(connectionMaxIdle)
+                    .useIdleConnectionReaper(true)
+                    .tcpKeepAlive(tcpKeepAlive)
+                    .build();
+            default -> throw new IllegalStateException(
+                    "Unsupported aws.s3.http-client '" + httpClientType + "'. Use 'apache' or 'crt'.");
+        };
+    }
+}
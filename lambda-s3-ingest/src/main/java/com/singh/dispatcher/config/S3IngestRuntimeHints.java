@@ -0,0 +1,36 @@
+package com.singh.dispatcher.config;
+
+import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+import com.singh.dispatcher.dto.IngestSummary;
+import com.singh.dispatcher.dto.ObjectIngestResult;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image ({@code -Pnative}): the S3 event notification model and
+ * the ingest summary it returns are bound by Jackson. The AWS SDK ships its own native-image
+ * metadata; only the interceptor lists it looks up as resources are added here.
+ */
+public class S3IngestRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bind(hints, S3EventNotification.class);
+        bind(hints, IngestSummary.class);
+        bind(hints, ObjectIngestResult.class);
+        hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/services/*/execution.interceptors");
+    }
+
+    /** Registers {@code type} and its nested types, which the event classes use for their parts. */
+    private static void bind(RuntimeHints hints, Class<?> type) {
+        hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            bind(hints, nested);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.singh.dispatcher.dto;
+
+import java.util.List;
+
+/**
+ * Per-object results for one S3 event notification, plus totals.
+ */
+public record IngestSummary(int objects,
+                            int published,
+                            int continued,
+                            int skipped,
+                            int failed,
+                            List<ObjectIngestResult> results) {
+
+    public static IngestSummary of(List<ObjectIngestResult> results) {
+        int published = 0;
+        int continued = 0;
+        int skipped = 0;
+        int failed = 0;
+        for (ObjectIngestResult result : results) {
+            switch (result.status()) {
+                case PUBLISHED -> published++;
+                case CONTINUED -> continued++;
+                case SKIPPED -> skipped++;
+                case FAILED -> failed++;
+            }
+        }
+        return new IngestSummary(results.size(), published, continued, skipped, failed, List.copyOf(results));
+    }
+}
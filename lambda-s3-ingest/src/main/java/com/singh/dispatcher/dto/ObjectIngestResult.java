@@ -0,0 +1,39 @@
+package com.singh.dispatcher.dto;
+
+/**
+ * Outcome of ingesting a single S3 object from an event notification.
+ */
+public record ObjectIngestResult(String bucket,
+                                 String key,
+                                 Status status,
+                                 int chunks,
+                                 long rows,
+                                 long bytes,
+                                 String message) {
+
+    public enum Status {
+        PUBLISHED,
+        /** Checkpointed part of the way and handed to a new invocation. */
+        CONTINUED,
+        SKIPPED,
+        FAILED
+    }
+
+    public static ObjectIngestResult published(String bucket, String key, int chunks, long rows, long bytes) {
+        return new ObjectIngestResult(bucket, key, Status.PUBLISHED, chunks, rows, bytes,
+                "Published " + chunks + " chunks to SNS");
+    }
+
+    public static ObjectIngestResult continued(String bucket, String key, int chunks, long rows, long bytes) {
+        return new ObjectIngestResult(bucket, key, Status.CONTINUED, chunks, rows, bytes,
+                "Published " + chunks + " chunks to SNS; continuing in a new invocation");
+    }
+
+    public static ObjectIngestResult skipped(String bucket, String key, String message) {
+        return new ObjectIngestResult(bucket, key, Status.SKIPPED, 0, 0, 0, message);
+    }
+
+    public static ObjectIngestResult failed(String bucket, String key, String message) {
+        return new ObjectIngestResult(bucket, key, Status.FAILED, 0, 0, 0, message);
+    }
+}
@@ -1,7 +1,19 @@
 package com.singh.dispatcher.handler;
 
 import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
-import com.singh.dispatcher.dto.S3ClientHelper;
+import com.singh.codec.PipelineMessages;
+import com.singh.csv.CsvCompression;
+import com.singh.dispatcher.dto.IngestSummary;
+import com.singh.dispatcher.dto.ObjectIngestResult;
+import com.singh.dispatcher.ingest.CheckpointStore;
+import com.singh.dispatcher.ingest.CsvChunker;
+import com.singh.dispatcher.ingest.CsvHeader;
+import com.singh.dispatcher.ingest.IngestContinuation;
+import com.singh.dispatcher.ingest.LineAlignedRangeInputStream;
+import com.singh.dispatcher.ingest.ParallelCsvSplitter;
+import com.singh.dispatcher.ingest.RangedObjectInputStream;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
 import io.awspring.cloud.sns.core.SnsTemplate;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -15,19 +27,38 @@ import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.function.Function;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class S3IngestHandler implements Function<S3EventNotification, String> {
+public class S3IngestHandler implements Function<S3EventNotification, IngestSummary> {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
 
     private final SnsTemplate snsTemplate;
+    private final S3Client s3;
+    private final PipelineMetrics metrics;
+    private final CheckpointStore checkpointStore;
+    private final IngestContinuation continuation;
+    private final JobProgress jobProgress;
 
     @Value("${SNS_INGEST_TO_TRANSFORM_TOPIC_ARN:}")
     private String topicArnFromEnv;
@@ -35,8 +66,54 @@ public class S3IngestHandler implements Function<S3EventNotification, String> {
     @Value("${aws.sns.destination:}")
     private String topicArnFromProperties;
 
+    @Value("${ingest.chunk-max-bytes:240000}")
+    private int chunkMaxBytes;
+
+    @Value("${ingest.ranged-get.threshold-bytes:67108864}")
+    private long rangedGetThresholdBytes;
+
+    @Value("${ingest.ranged-get.part-size:8388608}")
+    private long rangedGetPartSize;
+
+    @Value("${ingest.ranged-get.prefetch-parts:4}")
+    private int rangedGetPrefetchParts;
+
+    @Value("${ingest.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${ingest.split.enabled:true}")
+    private boolean splitEnabled;
+
+    @Value("${ingest.split.threshold-bytes:268435456}")
+    private long splitThresholdBytes;
+
+    @Value("${ingest.split.size-bytes:67108864}")
+    private long splitSizeBytes;
+
+    /** Byte ranges chunked at once across all objects; 0 means one per available core. */
+    @Value("${ingest.split.parallelism:0}")
+    private int splitParallelism;
+
+    @Value("${ingest.split.prefetch-parts:2}")
+    private int splitPrefetchParts;
+
+    /** Minimum time between checkpoints of a streamed object. */
+    @Value("${ingest.checkpoint.interval:5s}")
+    private Duration checkpointInterval;
+
+    /**
+     * Time after which unfinished objects are checkpointed and continued in a new invocation; kept
+     * under the function timeout. Only applies with checkpointing on, when running in Lambda.
+     */
+    @Value("${ingest.checkpoint.time-budget:45s}")
+    private Duration timeBudget;
+
     private String targetTopicArn;
 
+    private CsvChunker csvChunker;
+
+    private ParallelCsvSplitter splitter;
+
     @PostConstruct
     void validateTargetTopic() {
         targetTopicArn = StringUtils.hasText(topicArnFromEnv) ? topicArnFromEnv : topicArnFromProperties;
@@ -50,38 +127,107 @@ public class S3IngestHandler implements Function<S3EventNotification, String> {
         }
 
         log.info("Configured ingest SNS topic ARN: {}", targetTopicArn);
+
+        // SNS caps a message at 256 KB, so every chunk stays below ingest.chunk-max-bytes
+        csvChunker = new CsvChunker(chunkMaxBytes);
+
+        if (maxConcurrency < 1) {
+            throw new IllegalStateException("ingest.max-concurrency must be at least 1");
+        }
+
+        if (splitEnabled) {
+            if (splitSizeBytes < chunkMaxBytes || splitPrefetchParts < 1) {
+                throw new IllegalStateException("ingest.split.size-bytes must be at least ingest.chunk-max-bytes "
+                        + "and ingest.split.prefetch-parts at least 1");
+            }
+            int parallelism = splitParallelism > 0 ? splitParallelism : Runtime.getRuntime().availableProcessors();
+            splitter = new ParallelCsvSplitter(s3, csvChunker, splitSizeBytes, rangedGetPartSize,
+                    splitPrefetchParts, new Semaphore(parallelism));
+            log.info("Objects from {} bytes are split into {} byte ranges, {} chunked at once",
+                    splitThresholdBytes, splitSizeBytes, parallelism);
+        }
     }
 
     @Override
-    public String apply(S3EventNotification event) {
+    public IngestSummary apply(S3EventNotification event) {
 
         if (event == null || CollectionUtils.isEmpty(event.getRecords())) {
             log.warn("S3 event contained no records. Nothing to process.");
-            return "No S3 records to process";
+            return IngestSummary.of(List.of());
         }
 
-        // Initialize S3 client
-        S3Client s3;
-        try {
-            s3 = S3ClientHelper.getS3Client();
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to create S3 client", e);
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            long deadline = continuation.isEnabled() ? System.nanoTime() + timeBudget.toNanos() : Long.MAX_VALUE;
+            return ingestAll(event.getRecords(), deadline);
+        } finally {
+            jobProgress.flush();
         }
+    }
+
+    private IngestSummary ingestAll(List<S3EventNotification.S3EventNotificationRecord> records, long deadline) {
+        log.info("Incoming S3 event with {} records (max concurrency {})", records.size(), maxConcurrency);
+
+        // Fan every object out on its own virtual thread; the semaphore caps concurrent HEAD/GET/publish work
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<ObjectIngestResult>> futures = new ArrayList<>(records.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (S3EventNotification.S3EventNotificationRecord record : records) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return ingestObject(record, deadline);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        List<ObjectIngestResult> results = new ArrayList<>(futures.size());
+        for (Future<ObjectIngestResult> future : futures) {
+            try {
+                results.add(future.resultNow());
+            } catch (IllegalStateException e) {
+                log.error("Ingest task did not complete normally", e);
+                results.add(ObjectIngestResult.failed(null, null, "Ingest task did not complete"));
+            }
+        }
+
+        IngestSummary summary = IngestSummary.of(results);
+        log.info("Finished S3 event → objects={}, published={}, continued={}, skipped={}, failed={}",
+                summary.objects(), summary.published(), summary.continued(), summary.skipped(), summary.failed());
+        if (summary.failed() > 0) {
+            // Fail the invocation so Lambda retries the event; finished and checkpointed work is not repeated
+            ObjectIngestResult first = results.stream()
+                    .filter(result -> result.status() == ObjectIngestResult.Status.FAILED)
+                    .findFirst()
+                    .orElseThrow();
+            throw new IllegalStateException(summary.failed() + " of " + summary.objects()
+                    + " objects failed to ingest, first: " + first.key() + " (" + first.message() + ")");
+        }
+        return summary;
+    }
+
+    private ObjectIngestResult ingestObject(S3EventNotification.S3EventNotificationRecord eventRecord, long deadline) {
 
         // Extract bucket + key
-        var record = Optional.ofNullable(event.getRecords().get(0))
+        var record = Optional.ofNullable(eventRecord)
                 .map(S3EventNotification.S3EventNotificationRecord::getS3)
-                .orElseThrow(() -> new IllegalArgumentException("Missing S3 details in event."));
+                .orElse(null);
+        if (record == null || record.getBucket() == null || record.getObject() == null) {
+            log.warn("Skipping S3 event record without bucket/object details");
+            return ObjectIngestResult.failed(null, null, "Missing S3 details in event");
+        }
 
         String bucket = record.getBucket().getName();
-        String key = record.getObject().getKey();
+        String key = record.getObject().getUrlDecodedKey();
 
-        log.info("Incoming S3 event → bucket='{}', key='{}'", bucket, key);
+        log.info("Processing S3 object → bucket='{}', key='{}'", bucket, key);
 
         // 🔥 1) Skip folder placeholders (keys ending with "/")
         if (key.endsWith("/")) {
             log.warn("Skipping folder placeholder key: {}", key);
-            return "Skipped folder placeholder";
+            return ObjectIngestResult.skipped(bucket, key, "Skipped folder placeholder");
         }
 
         // 🔥 2) Check object metadata (size, content-type)
@@ -93,44 +239,284 @@ public class S3IngestHandler implements Function<S3EventNotification, String> {
                     .build());
         } catch (Exception e) {
             log.error("Unable to HEAD S3 object {}/{}", bucket, key, e);
-            return "Failed to HEAD object";
+            return ObjectIngestResult.failed(bucket, key, "Failed to HEAD object");
         }
 
         long size = head.contentLength();
-        log.info("S3 object metadata → size={} bytes, content-type={}", size, head.contentType());
+        log.info("S3 object metadata → key={}, size={} bytes, content-type={}", key, size, head.contentType());
+        // Set by the upload service; carried on every chunk so each stage can count the job's rows
+        String jobId = head.metadata().get(JobProgress.JOB_ID_METADATA);
 
         // 🔥 3) Skip zero-byte objects
         if (size == 0) {
             log.warn("Skipping zero-length object: {}/{}", bucket, key);
-            return "Skipped empty object";
+            return ObjectIngestResult.skipped(bucket, key, "Skipped empty object");
         }
 
-        // 🔥 4) Read file content safely
-        try (InputStream inputStream = s3.getObject(
-                GetObjectRequest.builder().bucket(bucket).key(key).build()
-        )) {
+        // 🔥 4) Pick up where an earlier invocation left this object version
+        String objectId = checkpointStore.objectId(bucket, key, head.eTag());
+        CheckpointStore.Checkpoint checkpoint;
+        try {
+            checkpoint = checkpointStore.load(objectId);
+        } catch (Exception e) {
+            log.error("Unable to load checkpoint of {}/{}", bucket, key, e);
+            return ObjectIngestResult.failed(bucket, key, "Failed to load checkpoint");
+        }
+        if (checkpoint.complete()) {
+            log.info("Object {} (ETag {}) was already ingested; skipping", key, head.eTag());
+            return ObjectIngestResult.skipped(bucket, key, "Already ingested");
+        }
 
-            String fileContent = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        // Without a checkpoint to resume from, an object has to finish in this invocation
+        long objectDeadline = objectId == null ? Long.MAX_VALUE : deadline;
 
-            if (!StringUtils.hasText(fileContent)) {
-                log.warn("Object {} has blank content. Skipping publish.", key);
-                return "Blank content skipped";
+        // 🔥 5) Stream the object (or its byte ranges in parallel) line by line and publish
+        //       size-bounded chunks to SNS as they fill up
+        try {
+            long start = System.nanoTime();
+            boolean split = splitter != null && size >= splitThresholdBytes;
+            CsvCompression compression = CsvCompression.fromMetadata(head.contentEncoding(), head.contentType());
+            if (compression == CsvCompression.NONE && (split || checkpoint.offset() > 0)) {
+                // Reading from the middle of the object only works uncompressed, so check before
+                compression = sniffCompression(bucket, key, head);
             }
+            Progress progress = split && compression == CsvCompression.NONE
+                    ? splitObject(bucket, key, head, objectId, jobId, checkpoint, objectDeadline)
+                    : streamObject(bucket, key, head, compression, objectId, jobId, checkpoint, objectDeadline);
+            CsvChunker.ChunkStats stats = progress.stats();
+            metrics.latency("object", System.nanoTime() - start);
+            metrics.bytesRead(stats.bytes());
+            metrics.rowsIn(stats.rows());
+            metrics.rowsOut(stats.rows());
 
-            log.info("S3 file content received ({} chars)", fileContent.length());
+            if (!progress.complete()) {
+                continuation.continueObject(bucket, key, size, head.eTag());
+                log.info("Published {} rows of {} in {} chunks before the time budget ran out; continuing in a new invocation",
+                        stats.rows(), key, stats.chunks());
+                return ObjectIngestResult.continued(bucket, key, stats.chunks(), stats.rows(), stats.bytes());
+            }
+            checkpointStore.complete(objectId);
+            jobProgress.done(jobId);
 
-            // 5) Publish content to SNS
-            snsTemplate.convertAndSend(
-                    Objects.requireNonNull(targetTopicArn),
-                    fileContent
-            );
+            if (stats.rows() == 0 && checkpoint.rows() == 0) {
+                log.warn("Object {} has no data rows. Nothing published.", key);
+                return ObjectIngestResult.skipped(bucket, key, "Blank content skipped");
+            }
 
-            log.info("Published S3 object {} to SNS topic {}", key, targetTopicArn);
-            return "Successfully published S3 file to SNS";
+            log.info("Published S3 object {} ({} rows, {} bytes) to SNS topic {} in {} chunks",
+                    key, stats.rows(), stats.bytes(), targetTopicArn, stats.chunks());
+            return ObjectIngestResult.published(bucket, key, stats.chunks(), stats.rows(), stats.bytes());
 
         } catch (Exception e) {
             log.error("Error while reading or publishing S3 file {}/{}", bucket, key, e);
-            return "Error processing S3 object (consumed)";
+            return ObjectIngestResult.failed(bucket, key, "Error processing S3 object: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the object from its checkpointed offset, saving the offset of the last published
+     * chunk at most every {@code ingest.checkpoint.interval}. Stops after a chunk once the deadline
+     * has passed.
+     * <p>
+     * A compressed object (by its metadata or, from its start, its magic bytes) is inflated as it
+     * streams; resuming one decompresses it again from the start and skips the published part.
+     */
+    private Progress streamObject(String bucket, String key, HeadObjectResponse head, CsvCompression compression,
+                                  String objectId, String jobId, CheckpointStore.Checkpoint checkpoint, long deadline)
+            throws IOException {
+        long size = head.contentLength();
+        long resumeFrom = checkpoint.offset();
+        boolean compressed = compression != CsvCompression.NONE;
+        if (!compressed && resumeFrom >= size) {
+            return new Progress(new CsvChunker.ChunkStats(0, 0, 0), true);
+        }
+        if (resumeFrom > 0) {
+            log.info("Resuming {} at offset {} of {} ({} chunks published before)",
+                    key, resumeFrom, compressed ? compression + " data" : size, checkpoint.chunks());
+        }
+
+        // A resumed stream starts mid-object, so the header and line break style come from its start
+        CsvHeader resumedHeader = null;
+        LineAlignedRangeInputStream resumed = null;
+        BufferedInputStream in;
+        if (resumeFrom > 0 && !compressed) {
+            resumedHeader = CsvHeader.read(s3, bucket, key, head.eTag(), size, chunkMaxBytes);
+            // Read from one byte early so the stream can confirm a line starts at the offset
+            resumed = new LineAlignedRangeInputStream(
+                    openObjectStream(bucket, key, head, resumeFrom - 1), resumeFrom, size, size);
+            in = new BufferedInputStream(resumed, READ_BUFFER_SIZE);
+        } else {
+            in = new BufferedInputStream(openObjectStream(bucket, key, head, 0), READ_BUFFER_SIZE);
+            try {
+                if (!compressed) {
+                    compression = CsvCompression.detect(in);
+                    compressed = compression != CsvCompression.NONE;
+                }
+                if (compressed) {
+                    log.info("Decompressing {} ({} bytes {}) as it streams", key, size, compression);
+                    in = new BufferedInputStream(compression.decompress(in), READ_BUFFER_SIZE);
+                    if (resumeFrom > 0) {
+                        // Checkpoints of a compressed object fall on line starts of its decompressed data
+                        resumedHeader = CsvHeader.read(in, chunkMaxBytes);
+                        in.skipNBytes(resumeFrom);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        // Chunker offsets count from where the stream starts
+        LineAlignedRangeInputStream alignedRange = resumed;
+        long skipped = compressed ? resumeFrom : 0;
+        StreamProgress progress = new StreamProgress(objectId, checkpoint);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            String header = resumedHeader == null ? null : resumedHeader.line();
+            int lineBreakBytes = resumedHeader == null
+                    ? CsvHeader.lineBreakBytes(in, chunkMaxBytes)
+                    : resumedHeader.lineBreakBytes();
+            csvChunker.split(reader, header, lineBreakBytes, (chunk, firstRowOffset, endOffset) -> {
+                long base = alignedRange == null ? skipped : alignedRange.alignedStart();
+                publishChunk(chunk, CheckpointStore.chunkId(objectId, base + firstRowOffset), jobId);
+                progress.published(base + endOffset, CsvChunker.rowCount(chunk));
+                if (System.nanoTime() > deadline) {
+                    throw new TimeBudgetExhausted();
+                }
+            });
+        } catch (TimeBudgetExhausted e) {
+            progress.save();
+            return new Progress(progress.stats(resumeFrom), false);
+        } catch (IOException | RuntimeException e) {
+            // The retried invocation resumes after the last chunk that made it out
+            progress.save();
+            throw e;
+        }
+        return new Progress(progress.stats(resumeFrom), true);
+    }
+
+    /**
+     * Splits the object into byte ranges, skipping those an earlier invocation finished and
+     * checkpointing each one as it finishes.
+     */
+    private Progress splitObject(String bucket, String key, HeadObjectResponse head, String objectId, String jobId,
+                                 CheckpointStore.Checkpoint checkpoint, long deadline) throws IOException {
+        if (!checkpoint.doneRanges().isEmpty()) {
+            log.info("Resuming {} with {} byte ranges done ({} chunks published before)",
+                    key, checkpoint.doneRanges().size(), checkpoint.chunks());
+        }
+        ParallelCsvSplitter.SplitResult result = splitter.split(bucket, key, head, checkpoint.doneRanges(), deadline,
+                (rangeStart, stats) -> checkpointStore.saveRange(objectId, rangeStart, stats.chunks(), stats.rows()),
+                (chunk, firstRowOffset, endOffset) ->
+                        publishChunk(chunk, CheckpointStore.chunkId(objectId, firstRowOffset), jobId));
+        return new Progress(result.stats(), result.complete());
+    }
+
+    private void publishChunk(String chunk, String chunkId, String jobId) {
+        long start = System.nanoTime();
+        Map<String, Object> headers = new HashMap<>(2);
+        if (chunkId != null) {
+            // Carried through transform to the writer, which skips chunks it has already committed
+            headers.put(PipelineMessages.CHUNK_ID_ATTRIBUTE, chunkId);
+        }
+        if (jobId != null) {
+            headers.put(JobProgress.JOB_ID_ATTRIBUTE, jobId);
+        }
+        if (headers.isEmpty()) {
+            snsTemplate.convertAndSend(Objects.requireNonNull(targetTopicArn), chunk);
+        } else {
+            snsTemplate.convertAndSend(Objects.requireNonNull(targetTopicArn), chunk, headers);
+        }
+        metrics.latency("publish", System.nanoTime() - start);
+        int rows = CsvChunker.rowCount(chunk);
+        metrics.batchSize("publish", rows);
+        // Chars rather than encoded bytes, like the transform's bytes read
+        jobProgress.add(jobId, rows, chunk.length());
+    }
+
+    /**
+     * Codec by the first bytes of an object whose metadata declares none.
+     */
+    private CsvCompression sniffCompression(String bucket, String key, HeadObjectResponse head) {
+        byte[] magic = s3.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=0-" + (Math.min(head.contentLength(), CsvCompression.MAGIC_BYTES) - 1))
+                .ifMatch(head.eTag())
+                .build()).asByteArray();
+        return CsvCompression.detect(magic);
+    }
+
+    /**
+     * Large objects are pulled with parallel ranged GETs; smaller ones use a single GET stream.
+     */
+    private InputStream openObjectStream(String bucket, String key, HeadObjectResponse head, long offset) {
+        if (head.contentLength() - offset >= rangedGetThresholdBytes) {
+            log.info("Reading {} with ranged GETs → partSize={} bytes, prefetch={}",
+                    key, rangedGetPartSize, rangedGetPrefetchParts);
+            return new RangedObjectInputStream(s3, bucket, key, head.eTag(),
+                    offset, head.contentLength(), rangedGetPartSize, rangedGetPrefetchParts);
+        }
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+        if (offset > 0) {
+            // Pin the version the checkpoint was taken on
+            request.range("bytes=" + offset + "-").ifMatch(head.eTag());
+        }
+        return s3.getObject(request.build());
+    }
+
+    /** What an object's ingest published in this invocation, and whether the object is done. */
+    private record Progress(CsvChunker.ChunkStats stats, boolean complete) {
+    }
+
+    /** Published progress of a streamed object, checkpointed at most every {@code checkpointInterval}. */
+    private final class StreamProgress {
+
+        private final String objectId;
+        private final long chunksBefore;
+        private final long rowsBefore;
+        private long offset;
+        private int chunks;
+        private long rows;
+        private long savedAt = System.nanoTime();
+        private boolean saved = true;
+
+        private StreamProgress(String objectId, CheckpointStore.Checkpoint checkpoint) {
+            this.objectId = objectId;
+            this.chunksBefore = checkpoint.chunks();
+            this.rowsBefore = checkpoint.rows();
+            this.offset = checkpoint.offset();
+        }
+
+        void published(long endOffset, int chunkRows) {
+            offset = endOffset;
+            chunks++;
+            rows += chunkRows;
+            saved = false;
+            if (System.nanoTime() - savedAt >= checkpointInterval.toNanos()) {
+                save();
+            }
+        }
+
+        void save() {
+            if (!saved) {
+                checkpointStore.saveOffset(objectId, offset, chunksBefore + chunks, rowsBefore + rows);
+                savedAt = System.nanoTime();
+                saved = true;
+            }
+        }
+
+        CsvChunker.ChunkStats stats(long resumedFrom) {
+            return new CsvChunker.ChunkStats(chunks, rows, offset - resumedFrom);
+        }
+    }
+
+    /** Unwinds the chunker once the time budget is spent; the checkpoint marks where to resume. */
+    private static final class TimeBudgetExhausted extends RuntimeException {
+
+        private TimeBudgetExhausted() {
+            super(null, null, false, false);
         }
     }
-}
\ No newline at end of file
+}
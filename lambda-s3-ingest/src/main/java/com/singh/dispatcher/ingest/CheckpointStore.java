@@ -0,0 +1,170 @@
+package com.singh.dispatcher.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ingest progress of one object version, kept as a small item per S3 key and ETag in the
+ * checkpoint table: the byte offset up to which chunks of a streamed object have been published,
+ * or the byte ranges of a split object that are done, and whether the whole object is done. A
+ * retried or continued invocation resumes from there, and a duplicate notification for a finished
+ * object is skipped. A new upload has a new ETag and starts from zero.
+ * <p>
+ * Chunks are identified by the object version and the byte offset of their first row
+ * ({@link #chunkId}), which stays the same when a chunk is published again after a resume, so the
+ * writer can recognise chunks it has already committed. Items expire after the configured TTL.
+ * <p>
+ * Without a table, nothing is stored and every object starts from zero. Failing to save progress
+ * only costs repeated work on a retry, so it is logged rather than failing the object.
+ */
+@Slf4j
+public class CheckpointStore implements AutoCloseable {
+
+    private static final String ID = "id";
+    private static final String OFFSET = "committedOffset";
+    private static final String CHUNKS = "chunks";
+    private static final String ROWS = "rows";
+    private static final String DONE_RANGES = "doneRanges";
+    private static final String COMPLETE = "complete";
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+    private final Duration ttl;
+
+    public CheckpointStore(DynamoDbClient dynamoDb, String tableName, Duration ttl) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+        this.ttl = ttl;
+    }
+
+    public static CheckpointStore disabled() {
+        return new CheckpointStore(null, null, null);
+    }
+
+    public boolean isEnabled() {
+        return dynamoDb != null;
+    }
+
+    /**
+     * Checkpoint key of an object version, or {@code null} when checkpointing is off or the
+     * object has no ETag.
+     */
+    public String objectId(String bucket, String key, String eTag) {
+        if (!isEnabled() || eTag == null) {
+            return null;
+        }
+        return "s3://" + bucket + "/" + key + "#" + eTag.replace("\"", "");
+    }
+
+    public static String chunkId(String objectId, long firstRowOffset) {
+        return objectId == null ? null : objectId + "@" + firstRowOffset;
+    }
+
+    public Checkpoint load(String objectId) {
+        if (objectId == null) {
+            return Checkpoint.NONE;
+        }
+        GetItemResponse response = dynamoDb.getItem(request -> request
+                .tableName(tableName)
+                .key(Map.of(ID, AttributeValue.fromS(objectId)))
+                .consistentRead(true));
+        if (!response.hasItem() || response.item().isEmpty()) {
+            return Checkpoint.NONE;
+        }
+        Map<String, AttributeValue> item = response.item();
+        Set<Long> doneRanges = new LinkedHashSet<>();
+        AttributeValue ranges = item.get(DONE_RANGES);
+        if (ranges != null && ranges.hasNs()) {
+            ranges.ns().forEach(range -> doneRanges.add(Long.parseLong(range)));
+        }
+        return new Checkpoint(number(item, OFFSET), number(item, CHUNKS), number(item, ROWS), Set.copyOf(doneRanges),
+                item.containsKey(COMPLETE) && Boolean.TRUE.equals(item.get(COMPLETE).bool()));
+    }
+
+    /**
+     * Records that every chunk of a streamed object up to {@code offset} has been published;
+     * {@code chunks} and {@code rows} are totals since the object was started.
+     */
+    public void saveOffset(String objectId, long offset, long chunks, long rows) {
+        update(objectId, "SET #offset = :offset, #chunks = :chunks, #rows = :rows, #expiresAt = :expiresAt",
+                Map.of("#offset", OFFSET, "#chunks", CHUNKS, "#rows", ROWS),
+                Map.of(":offset", AttributeValue.fromN(Long.toString(offset)),
+                        ":chunks", AttributeValue.fromN(Long.toString(chunks)),
+                        ":rows", AttributeValue.fromN(Long.toString(rows))));
+    }
+
+    /**
+     * Records that every chunk of the split range starting at {@code rangeStart} has been
+     * published. Ranges finish concurrently, so the counts are added atomically.
+     */
+    public void saveRange(String objectId, long rangeStart, long chunks, long rows) {
+        update(objectId, "ADD #doneRanges :range, #chunks :chunks, #rows :rows SET #expiresAt = :expiresAt",
+                Map.of("#doneRanges", DONE_RANGES, "#chunks", CHUNKS, "#rows", ROWS),
+                Map.of(":range", AttributeValue.fromNs(List.of(Long.toString(rangeStart))),
+                        ":chunks", AttributeValue.fromN(Long.toString(chunks)),
+                        ":rows", AttributeValue.fromN(Long.toString(rows))));
+    }
+
+    public void complete(String objectId) {
+        update(objectId, "SET #complete = :complete, #expiresAt = :expiresAt",
+                Map.of("#complete", COMPLETE),
+                Map.of(":complete", AttributeValue.fromBool(true)));
+    }
+
+    private void update(String objectId, String expression, Map<String, String> names,
+                        Map<String, AttributeValue> values) {
+        if (objectId == null) {
+            return;
+        }
+        Map<String, String> attributeNames = new HashMap<>(names);
+        attributeNames.put("#expiresAt", EXPIRES_AT);
+        Map<String, AttributeValue> attributeValues = new HashMap<>(values);
+        attributeValues.put(":expiresAt",
+                AttributeValue.fromN(Long.toString(Instant.now().plus(ttl).getEpochSecond())));
+        try {
+            dynamoDb.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of(ID, AttributeValue.fromS(objectId)))
+                    .updateExpression(expression)
+                    .expressionAttributeNames(attributeNames)
+                    .expressionAttributeValues(attributeValues)
+                    .build());
+        } catch (SdkException e) {
+            log.warn("Failed to save checkpoint of {}; a retry will repeat the work since the last one", objectId, e);
+        }
+    }
+
+    private static long number(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null || value.n() == null ? 0 : Long.parseLong(value.n());
+    }
+
+    @Override
+    public void close() {
+        if (dynamoDb != null) {
+            dynamoDb.close();
+        }
+    }
+
+    /**
+     * {@code offset} applies to streamed objects, {@code doneRanges} (range start offsets) to
+     * split ones; {@code chunks} and {@code rows} count what was published before this invocation.
+     */
+    public record Checkpoint(long offset, long chunks, long rows, Set<Long> doneRanges, boolean complete) {
+
+        public static final Checkpoint NONE = new Checkpoint(0, 0, 0, Set.of(), false);
+    }
+}
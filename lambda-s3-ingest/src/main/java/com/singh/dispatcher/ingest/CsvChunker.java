@@ -0,0 +1,228 @@
+package com.singh.dispatcher.ingest;
+
+import com.singh.codec.PipelineMessages;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Splits a CSV stream into size-bounded chunks. Every chunk starts with the header row and
+ * ends on a row boundary, so each one can be parsed on its own downstream. Only the chunk
+ * currently being filled is held in memory.
+ * <p>
+ * Rows are RFC 4180 records, as the transform's CSV reader parses them: a line break inside a
+ * quoted field continues the row, so such a row is never cut and its blank lines are kept. The
+ * input must start at a record boundary for that to hold; {@link LineAlignedRangeInputStream}
+ * aligns the byte ranges of a split object on one.
+ */
+@Slf4j
+public class CsvChunker {
+
+    private final int maxChunkBytes;
+
+    public CsvChunker(int maxChunkBytes) {
+        if (maxChunkBytes <= 0) {
+            throw new IllegalArgumentException("maxChunkBytes must be positive");
+        }
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    public int maxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    /**
+     * Reads {@code reader} line by line and hands every completed chunk to {@code chunkSink}.
+     */
+    public ChunkStats split(BufferedReader reader, Consumer<String> chunkSink) throws IOException {
+        return split(reader, null, chunkSink);
+    }
+
+    /**
+     * Like {@link #split(BufferedReader, Consumer)}, for a reader holding data rows only (a byte
+     * range from the middle of an object); every chunk starts with {@code header}. The reader must
+     * start at a record, not inside a quoted field.
+     */
+    public ChunkStats split(BufferedReader reader, String header, Consumer<String> chunkSink) throws IOException {
+        return split(reader, header, 1, (chunk, firstRowOffset, endOffset) -> chunkSink.accept(chunk));
+    }
+
+    /**
+     * Like {@link #split(BufferedReader, String, Consumer)}, also reporting where every chunk lies in
+     * the input. {@code lineBreakBytes} is 1 for LF and 2 for CRLF line endings: {@code readLine}
+     * drops them, so the offsets depend on it.
+     */
+    public ChunkStats split(BufferedReader reader, String header, int lineBreakBytes, ChunkSink chunkSink)
+            throws IOException {
+        int headerBytes = 0;
+        if (header != null) {
+            headerBytes = PipelineMessages.utf8Length(header) + 1;
+            if (headerBytes >= maxChunkBytes) {
+                throw new IllegalStateException("CSV header exceeds max chunk size of " + maxChunkBytes + " bytes");
+            }
+        }
+
+        StringBuilder chunk = new StringBuilder();
+        int chunkBytes = 0;
+        int chunkRows = 0;
+        long chunkFirstRowOffset = 0;
+        long chunkEndOffset = 0;
+
+        long rows = 0;
+        int chunks = 0;
+
+        RecordReader records = new RecordReader(reader, lineBreakBytes);
+        String line;
+        while ((line = records.next()) != null) {
+            int lineBytes = records.recordBytes;
+            long lineOffset = records.recordOffset;
+            if (header == null) {
+                header = line;
+                headerBytes = lineBytes;
+                if (headerBytes >= maxChunkBytes) {
+                    throw new IllegalStateException("CSV header exceeds max chunk size of " + maxChunkBytes + " bytes");
+                }
+                continue;
+            }
+            if (headerBytes + lineBytes > maxChunkBytes) {
+                throw new IllegalStateException("CSV row at line " + records.recordLineNumber
+                        + " exceeds max chunk size of " + maxChunkBytes + " bytes");
+            }
+
+            if (chunkRows > 0 && chunkBytes + lineBytes > maxChunkBytes) {
+                chunkSink.accept(chunk.toString(), chunkFirstRowOffset, chunkEndOffset);
+                chunks++;
+                chunkRows = 0;
+            }
+            if (chunkRows == 0) {
+                chunk.setLength(0);
+                chunk.append(header).append('\n');
+                chunkBytes = headerBytes;
+                chunkFirstRowOffset = lineOffset;
+            }
+
+            chunk.append(line).append('\n');
+            chunkBytes += lineBytes;
+            chunkEndOffset = records.bytes;
+            chunkRows++;
+            rows++;
+        }
+
+        if (chunkRows > 0) {
+            chunkSink.accept(chunk.toString(), chunkFirstRowOffset, chunkEndOffset);
+            chunks++;
+        }
+
+        log.debug("Split {} rows ({} bytes) into {} chunks", rows, records.bytes, chunks);
+        return new ChunkStats(chunks, rows, records.bytes);
+    }
+
+    /**
+     * Data rows in a chunk built by this class: every row ends with '\n', line breaks inside quoted
+     * fields aside, and the first one is the header.
+     */
+    public static int rowCount(String chunk) {
+        int rows = 0;
+        boolean inQuotes = false;
+        for (int i = 0, n = chunk.length(); i < n; i++) {
+            char c = chunk.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == '\n' && !inQuotes) {
+                rows++;
+            }
+        }
+        return rows - 1;
+    }
+
+    /**
+     * Whether a quoted field is still open at the end of {@code line}, given whether it was at its
+     * start. An escaped quote ({@code ""}) toggles twice, so counting quotes is enough.
+     */
+    static boolean endsInQuotes(CharSequence line, boolean inQuotes) {
+        for (int i = 0, n = line.length(); i < n; i++) {
+            if (line.charAt(i) == '"') {
+                inQuotes = !inQuotes;
+            }
+        }
+        return inQuotes;
+    }
+
+    /**
+     * Receives each completed chunk with the input offsets of its first row and of the end of its
+     * last row, line break included. Resuming the input at {@code endOffset} reproduces the
+     * following chunks exactly.
+     */
+    @FunctionalInterface
+    public interface ChunkSink {
+        void accept(String chunk, long firstRowOffset, long endOffset);
+    }
+
+    public record ChunkStats(int chunks, long rows, long bytes) {
+    }
+
+    /**
+     * Reads records line by line, joining the lines of a record whose quoted field spans line breaks
+     * with '\n' and skipping blank lines between records. A quote left open at the end of the input
+     * ends the record there, for the transform to report as malformed.
+     */
+    private static final class RecordReader {
+
+        private final BufferedReader reader;
+        private final int lineBreakBytes;
+
+        /** Input read so far, line breaks included. */
+        private long bytes;
+        private long lineNumber;
+        /** UTF-8 length of the line last read, without its line break. */
+        private int lineLength;
+
+        /** Of the record last returned: its first line, input offset and size with '\n' line breaks. */
+        private long recordLineNumber;
+        private long recordOffset;
+        private int recordBytes;
+
+        private RecordReader(BufferedReader reader, int lineBreakBytes) {
+            this.reader = reader;
+            this.lineBreakBytes = lineBreakBytes;
+        }
+
+        private String next() throws IOException {
+            String line;
+            do {
+                line = readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            recordLineNumber = lineNumber;
+            recordOffset = bytes - lineLength - lineBreakBytes;
+            // Chunks are rebuilt with '\n' line breaks; the input may use '\r\n'
+            recordBytes = lineLength + 1;
+            if (!endsInQuotes(line, false)) {
+                return line;
+            }
+
+            StringBuilder record = new StringBuilder(line);
+            boolean inQuotes = true;
+            while (inQuotes && (line = readLine()) != null) {
+                record.append('\n').append(line);
+                recordBytes += lineLength + 1;
+                inQuotes = endsInQuotes(line, true);
+            }
+            return record.toString();
+        }
+
+        private String readLine() throws IOException {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+                lineLength = PipelineMessages.utf8Length(line);
+                bytes += lineLength + lineBreakBytes;
+            }
+            return line;
+        }
+    }
+}
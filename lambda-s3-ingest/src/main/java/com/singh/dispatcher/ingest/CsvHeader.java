@@ -0,0 +1,93 @@
+package com.singh.dispatcher.ingest;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The header line of a CSV object and the length of its line breaks (1 for LF, 2 for CRLF),
+ * which chunk offsets depend on. The line break style is assumed not to change within an object.
+ */
+public record CsvHeader(String line, int lineBreakBytes) {
+
+    /**
+     * Reads the first non-blank line of the object with a single ranged GET of at most
+     * {@code maxBytes}, for readers that start in the middle of the object.
+     */
+    public static CsvHeader read(S3Client s3, String bucket, String key, String eTag, long size, int maxBytes)
+            throws IOException {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=0-" + (Math.min(size, maxBytes) - 1));
+        if (eTag != null) {
+            request.ifMatch(eTag);
+        }
+        String head = s3.getObjectAsBytes(request.build()).asString(StandardCharsets.UTF_8);
+        CsvHeader header = firstLine(head);
+        if (header == null) {
+            throw new IOException("No CSV header line within the first " + maxBytes
+                    + " bytes of s3://" + bucket + "/" + key);
+        }
+        return header;
+    }
+
+    /**
+     * Reads the first non-blank line of {@code in}, which is left where it was, for streams that
+     * have to be read from the start of the object (compressed ones) but resume past it.
+     */
+    public static CsvHeader read(BufferedInputStream in, int maxBytes) throws IOException {
+        in.mark(maxBytes);
+        CsvHeader header;
+        try {
+            header = firstLine(new String(in.readNBytes(maxBytes), StandardCharsets.UTF_8));
+        } finally {
+            in.reset();
+        }
+        if (header == null) {
+            throw new IOException("No CSV header line within the first " + maxBytes + " bytes");
+        }
+        return header;
+    }
+
+    private static CsvHeader firstLine(String head) {
+        int lineStart = 0;
+        for (int lineEnd = head.indexOf('\n'); lineEnd >= 0; lineEnd = head.indexOf('\n', lineStart)) {
+            String line = head.substring(lineStart, lineEnd);
+            if (!line.isBlank()) {
+                return line.endsWith("\r")
+                        ? new CsvHeader(line.substring(0, line.length() - 1), 2)
+                        : new CsvHeader(line, 1);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Line break length of the first line of {@code in}, which is left where it was. Falls back to
+     * LF when no line break shows up within {@code maxBytes}.
+     */
+    public static int lineBreakBytes(BufferedInputStream in, int maxBytes) throws IOException {
+        in.mark(maxBytes);
+        try {
+            int previous = -1;
+            for (int i = 0; i < maxBytes; i++) {
+                int b = in.read();
+                if (b == -1) {
+                    break;
+                }
+                if (b == '\n') {
+                    return previous == '\r' ? 2 : 1;
+                }
+                previous = b;
+            }
+            return 1;
+        } finally {
+            in.reset();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.singh.dispatcher.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
+import software.amazon.awssdk.services.lambda.model.InvokeResponse;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands an object that did not finish within an invocation's time budget to a new asynchronous
+ * invocation of this function, with an S3 notification for just that object. The new invocation
+ * resumes from the object's checkpoint, so an object can take as many invocations as it needs.
+ * Only available when running in Lambda.
+ */
+@Slf4j
+public class IngestContinuation implements AutoCloseable {
+
+    /** {@code configurationId} of the notifications sent by this class, to tell them apart in logs. */
+    public static final String CONFIGURATION_ID = "ingest-continuation";
+
+    private final LambdaClient lambda;
+    private final String functionName;
+    private final ObjectMapper objectMapper;
+
+    public IngestContinuation(LambdaClient lambda, String functionName, ObjectMapper objectMapper) {
+        this.lambda = lambda;
+        this.functionName = functionName;
+        this.objectMapper = objectMapper;
+    }
+
+    public static IngestContinuation disabled() {
+        return new IngestContinuation(null, null, null);
+    }
+
+    public boolean isEnabled() {
+        return lambda != null;
+    }
+
+    /**
+     * Queues an invocation for the object.
+     *
+     * @throws IllegalStateException when the invocation could not be queued
+     */
+    public void continueObject(String bucket, String key, long size, String eTag) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(notification(bucket, key, size, eTag));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render continuation event", e);
+        }
+        InvokeResponse response = lambda.invoke(request -> request
+                .functionName(functionName)
+                .invocationType(InvocationType.EVENT)
+                .payload(SdkBytes.fromUtf8String(payload)));
+        if (response.statusCode() != 202) {
+            throw new IllegalStateException("Continuation of s3://" + bucket + "/" + key
+                    + " was not accepted: HTTP " + response.statusCode());
+        }
+        log.info("Queued continuation of s3://{}/{} on {}", bucket, key, functionName);
+    }
+
+    /** The fields of an S3 {@code ObjectCreated} notification that the event mapping reads. */
+    private static Map<String, Object> notification(String bucket, String key, long size, String eTag) {
+        Map<String, Object> object = Map.of(
+                // Notification keys are URL-encoded; the handler decodes them
+                "key", URLEncoder.encode(key, StandardCharsets.UTF_8),
+                "size", size,
+                "eTag", eTag == null ? "" : eTag.replace("\"", ""),
+                "sequencer", "");
+        Map<String, Object> record = Map.of(
+                "eventVersion", "2.1",
+                "eventSource", "aws:s3",
+                "awsRegion", System.getenv().getOrDefault("AWS_REGION", ""),
+                "eventTime", Instant.now().toString(),
+                "eventName", "ObjectCreated:Put",
+                "userIdentity", Map.of("principalId", CONFIGURATION_ID),
+                "requestParameters", Map.of("sourceIPAddress", "127.0.0.1"),
+                "responseElements", Map.of(),
+                "s3", Map.of(
+                        "s3SchemaVersion", "1.0",
+                        "configurationId", CONFIGURATION_ID,
+                        "bucket", Map.of(
+                                "name", bucket,
+                                "ownerIdentity", Map.of("principalId", CONFIGURATION_ID),
+                                "arn", "arn:aws:s3:::" + bucket),
+                        "object", object));
+        return Map.of("Records", List.of(record));
+    }
+
+    @Override
+    public void close() {
+        if (lambda != null) {
+            lambda.close();
+        }
+    }
+}
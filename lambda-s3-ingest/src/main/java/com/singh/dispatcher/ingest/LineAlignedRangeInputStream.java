@@ -0,0 +1,163 @@
+package com.singh.dispatcher.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Narrows an object stream to the CSV records that start inside the byte range {@code [start, end)},
+ * so adjacent ranges can be parsed independently without cutting or repeating a record. A range
+ * that does not begin at offset 0 skips the partial record it opens in; every range reads past
+ * {@code end} to finish its last record.
+ * <p>
+ * A line break inside a quoted field does not end a record, so the stream follows the quotes: it
+ * is told whether a quoted field is open at {@code start} and toggles on every quote from there, an
+ * escaped quote ({@code ""}) toggling twice.
+ * <p>
+ * {@code source} must be positioned at {@code max(0, start - 1)}: reading one byte early tells
+ * whether a record begins exactly at {@code start}. Line breaks and quotes are never part of a
+ * multi-byte UTF-8 sequence, so the ranges decode cleanly.
+ */
+public class LineAlignedRangeInputStream extends InputStream {
+
+    private final InputStream source;
+    private final long start;
+    private final long end;
+    private final long objectSize;
+    private final byte[] single = new byte[1];
+
+    /** Object offset of the next byte read from {@code source}. */
+    private long position;
+    /** Whether a quoted field is open before the next byte read from {@code source}. */
+    private boolean inQuotes;
+    private long alignedStart;
+    private boolean aligned;
+    private boolean done;
+
+    public LineAlignedRangeInputStream(InputStream source, long start, long end, long objectSize) {
+        this(source, start, end, objectSize, false);
+    }
+
+    /**
+     * @param startsInQuotes whether a quoted field is open at {@code start}, that is whether the
+     *                       object holds an odd number of quotes before it
+     */
+    public LineAlignedRangeInputStream(InputStream source, long start, long end, long objectSize,
+                                       boolean startsInQuotes) {
+        if (start < 0 || end <= start || end > objectSize) {
+            throw new IllegalArgumentException("Invalid range [" + start + ", " + end + ") of " + objectSize + " bytes");
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+        this.objectSize = objectSize;
+        this.position = Math.max(0, start - 1);
+        this.inQuotes = startsInQuotes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!aligned) {
+            align();
+        }
+        if (done) {
+            return -1;
+        }
+
+        if (position < end) {
+            int count = source.read(buffer, offset, (int) Math.min(length, end - position));
+            if (count < 0) {
+                return endOfSource();
+            }
+            position += count;
+            for (int i = offset; i < offset + count; i++) {
+                if (buffer[i] == '"') {
+                    inQuotes = !inQuotes;
+                }
+            }
+            // A record break as the last byte of the range means the next record belongs to the next range
+            if (position == end && buffer[offset + count - 1] == '\n' && !inQuotes) {
+                done = true;
+            }
+            return count;
+        }
+
+        // Past the range: finish the record that crosses its end
+        int count = source.read(buffer, offset, length);
+        if (count < 0) {
+            return endOfSource();
+        }
+        for (int i = 0; i < count; i++) {
+            byte b = buffer[offset + i];
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                position += i + 1;
+                done = true;
+                return i + 1;
+            }
+        }
+        position += count;
+        return count;
+    }
+
+    /**
+     * Object offset of the first byte this stream returns; known once it has been read from.
+     */
+    public long alignedStart() {
+        if (!aligned) {
+            throw new IllegalStateException("Range has not been read yet");
+        }
+        return alignedStart;
+    }
+
+    private void align() throws IOException {
+        aligned = true;
+        if (start == 0) {
+            return;
+        }
+        // The quote state is that at start, so the byte before it must not toggle it again
+        int b = source.read();
+        if (b != -1) {
+            position++;
+            if (b == '\n' && !inQuotes) {
+                alignedStart = position;
+                return;
+            }
+            while ((b = source.read()) != -1) {
+                position++;
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    alignedStart = position;
+                    // The first record starting at or after start may already belong to the next range
+                    done = position >= end;
+                    return;
+                }
+            }
+        }
+        alignedStart = position;
+        endOfSource();
+    }
+
+    private int endOfSource() throws IOException {
+        done = true;
+        if (position < objectSize) {
+            throw new IOException("No record break between offset " + start + " and " + position
+                    + "; a CSV row is longer than the read-ahead limit");
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
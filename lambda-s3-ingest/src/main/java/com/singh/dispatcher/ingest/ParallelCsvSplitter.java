@@ -0,0 +1,222 @@
+package com.singh.dispatcher.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Chunks a large object as independent byte ranges. The header is read once; then every range is
+ * fetched with its own ranged GETs, re-aligned to line boundaries by
+ * {@link LineAlignedRangeInputStream} and chunked in parallel, so reading uses several connections
+ * and decoding/chunking uses every core instead of one stream and one thread.
+ * <p>
+ * A quoted field may hold line breaks, so a range can only find its first record knowing whether
+ * a quote is open at its start. That is the parity of the quotes before it, which a first parallel
+ * pass counts range by range; it reads the object once more but only compares bytes.
+ * <p>
+ * The permits are shared by all objects of an invocation, which keeps the number of ranges being
+ * chunked at once at the core count. Chunks of different ranges are published concurrently and so
+ * in no particular order, as SNS delivers them anyway.
+ */
+@Slf4j
+public class ParallelCsvSplitter {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final S3Client s3;
+    private final CsvChunker chunker;
+    private final long splitSize;
+    private final long partSize;
+    private final int prefetchParts;
+    private final Semaphore permits;
+
+    public ParallelCsvSplitter(S3Client s3, CsvChunker chunker, long splitSize, long partSize,
+                               int prefetchParts, Semaphore permits) {
+        if (splitSize < chunker.maxChunkBytes()) {
+            throw new IllegalArgumentException("splitSize must be at least the max chunk size of "
+                    + chunker.maxChunkBytes() + " bytes");
+        }
+        this.s3 = s3;
+        this.chunker = chunker;
+        this.splitSize = splitSize;
+        this.partSize = partSize;
+        this.prefetchParts = prefetchParts;
+        this.permits = permits;
+    }
+
+    /**
+     * Chunks every row of the object described by {@code head} into {@code chunkSink}, which must
+     * be thread-safe.
+     */
+    public CsvChunker.ChunkStats split(String bucket, String key, HeadObjectResponse head,
+                                       Consumer<String> chunkSink) throws IOException {
+        return split(bucket, key, head, Set.of(), Long.MAX_VALUE, (rangeStart, stats) -> {
+        }, (chunk, firstRowOffset, endOffset) -> chunkSink.accept(chunk)).stats();
+    }
+
+    /**
+     * Like {@link #split(String, String, HeadObjectResponse, Consumer)} for a resumable run: ranges
+     * starting at an offset in {@code doneRanges} are skipped, ranges that have not started when
+     * {@link System#nanoTime()} passes {@code deadline} are left for a later run, and
+     * {@code rangeListener} hears about every range whose chunks have all been handed over. Chunk
+     * offsets are object offsets.
+     */
+    public SplitResult split(String bucket, String key, HeadObjectResponse head, Set<Long> doneRanges,
+                             long deadline, RangeListener rangeListener,
+                             CsvChunker.ChunkSink chunkSink) throws IOException {
+        long size = head.contentLength();
+        CsvHeader header = CsvHeader.read(s3, bucket, key, head.eTag(), size, chunker.maxChunkBytes());
+        boolean[] startsInQuotes = quotedRangeStarts(bucket, key, head.eTag(), size);
+
+        List<Future<CsvChunker.ChunkStats>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long start = 0; start < size; start += splitSize) {
+                if (doneRanges.contains(start)) {
+                    continue;
+                }
+                long rangeStart = start;
+                long rangeEnd = Math.min(start + splitSize, size);
+                boolean rangeStartsInQuotes = startsInQuotes[(int) (start / splitSize)];
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        if (System.nanoTime() > deadline) {
+                            return null;
+                        }
+                        CsvChunker.ChunkStats stats = splitRange(bucket, key, head.eTag(), size,
+                                rangeStart, rangeEnd, rangeStartsInQuotes, header, chunkSink);
+                        rangeListener.rangeDone(rangeStart, stats);
+                        return stats;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        log.info("Split {} ({} bytes) into {} byte ranges ({} already done)",
+                key, size, futures.size(), doneRanges.size());
+
+        int chunks = 0;
+        long rows = 0;
+        long bytes = 0;
+        boolean complete = true;
+        for (Future<CsvChunker.ChunkStats> future : futures) {
+            CsvChunker.ChunkStats stats;
+            try {
+                stats = future.resultNow();
+            } catch (IllegalStateException e) {
+                Throwable cause = future.state() == Future.State.FAILED ? future.exceptionNow() : e;
+                throw new IOException("Failed to chunk a byte range of s3://" + bucket + "/" + key, cause);
+            }
+            if (stats == null) {
+                complete = false;
+                continue;
+            }
+            chunks += stats.chunks();
+            rows += stats.rows();
+            bytes += stats.bytes();
+        }
+        return new SplitResult(new CsvChunker.ChunkStats(chunks, rows, bytes), complete);
+    }
+
+    /**
+     * Whether a quoted field is open at the start of every range, from the quotes of the ranges
+     * before it. The last range is not counted as no range follows it.
+     */
+    private boolean[] quotedRangeStarts(String bucket, String key, String eTag, long size) throws IOException {
+        int ranges = (int) ((size + splitSize - 1) / splitSize);
+        List<Future<Boolean>> oddQuotes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long start = 0; start + splitSize < size; start += splitSize) {
+                long rangeStart = start;
+                long rangeEnd = start + splitSize;
+                oddQuotes.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return hasOddQuotes(bucket, key, eTag, rangeStart, rangeEnd);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        boolean[] startsInQuotes = new boolean[ranges];
+        boolean inQuotes = false;
+        for (int i = 0; i < ranges; i++) {
+            startsInQuotes[i] = inQuotes;
+            if (i < oddQuotes.size()) {
+                Future<Boolean> future = oddQuotes.get(i);
+                if (future.state() != Future.State.SUCCESS) {
+                    throw new IOException("Failed to count the quotes of a byte range of s3://" + bucket + "/" + key,
+                            future.state() == Future.State.FAILED ? future.exceptionNow() : null);
+                }
+                inQuotes ^= future.resultNow();
+            }
+        }
+        return startsInQuotes;
+    }
+
+    private boolean hasOddQuotes(String bucket, String key, String eTag, long start, long end) throws IOException {
+        boolean odd = false;
+        try (InputStream in = new RangedObjectInputStream(s3, bucket, key, eTag, start, end, partSize, prefetchParts)) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                for (int i = 0; i < count; i++) {
+                    if (buffer[i] == '"') {
+                        odd = !odd;
+                    }
+                }
+            }
+        }
+        return odd;
+    }
+
+    private CsvChunker.ChunkStats splitRange(String bucket, String key, String eTag, long size,
+                                             long start, long end, boolean startsInQuotes, CsvHeader header,
+                                             CsvChunker.ChunkSink chunkSink) throws IOException {
+        // A row never exceeds a chunk, so the last record of the range ends within one chunk past its end
+        long readFrom = Math.max(0, start - 1);
+        long readTo = Math.min(size, end + chunker.maxChunkBytes());
+        InputStream ranged = new RangedObjectInputStream(s3, bucket, key, eTag, readFrom, readTo, partSize, prefetchParts);
+        try (LineAlignedRangeInputStream in = new LineAlignedRangeInputStream(ranged, start, end, size,
+                startsInQuotes);
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            // Chunks are only handed over after the range has been read from, so it is aligned by then
+            CsvChunker.ChunkSink objectOffsets = (chunk, firstRowOffset, endOffset) -> chunkSink.accept(
+                    chunk, in.alignedStart() + firstRowOffset, in.alignedStart() + endOffset);
+            // The first range still holds the header line, later ones are data rows only
+            return chunker.split(reader, start == 0 ? null : header.line(), header.lineBreakBytes(), objectOffsets);
+        }
+    }
+
+    /**
+     * Notified from the range's thread once all of its chunks have been handed over.
+     */
+    @FunctionalInterface
+    public interface RangeListener {
+        void rangeDone(long rangeStart, CsvChunker.ChunkStats stats);
+    }
+
+    /**
+     * {@code complete} is {@code false} when ranges were left for a later run.
+     */
+    public record SplitResult(CsvChunker.ChunkStats stats, boolean complete) {
+    }
+}
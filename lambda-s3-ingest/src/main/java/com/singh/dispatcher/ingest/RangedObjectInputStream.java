@@ -0,0 +1,132 @@
+package com.singh.dispatcher.ingest;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a large S3 object as a sequence of ranged GETs. Up to {@code prefetchParts} ranges
+ * are downloaded ahead of the reader on virtual threads, so several connections pull data
+ * while the caller consumes it, and memory stays bounded at {@code prefetchParts * partSize}.
+ */
+public class RangedObjectInputStream extends InputStream {
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String key;
+    private final String eTag;
+    private final long objectSize;
+    private final long partSize;
+    private final int prefetchParts;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+    private long nextOffset;
+    private byte[] current;
+    private int position;
+    private boolean closed;
+
+    public RangedObjectInputStream(S3Client s3, String bucket, String key, String eTag,
+                                   long startOffset, long objectSize, long partSize, int prefetchParts) {
+        if (partSize <= 0 || prefetchParts <= 0) {
+            throw new IllegalArgumentException("partSize and prefetchParts must be positive");
+        }
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.key = key;
+        this.eTag = eTag;
+        this.objectSize = objectSize;
+        this.partSize = partSize;
+        this.prefetchParts = prefetchParts;
+        this.nextOffset = startOffset;
+        schedule();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+        executor.shutdownNow();
+        current = null;
+    }
+
+    private boolean ensureData() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || position >= current.length) {
+            Future<byte[]> next = inFlight.poll();
+            if (next == null) {
+                return false;
+            }
+            schedule();
+            try {
+                current = next.get();
+                position = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for S3 range of " + key);
+            } catch (ExecutionException e) {
+                throw new IOException("Ranged GET failed for s3://" + bucket + "/" + key, e.getCause());
+            }
+        }
+        return true;
+    }
+
+    private void schedule() {
+        while (inFlight.size() < prefetchParts && nextOffset < objectSize) {
+            long start = nextOffset;
+            long end = Math.min(start + partSize, objectSize) - 1;
+            inFlight.add(executor.submit(() -> fetch(start, end)));
+            nextOffset = end + 1;
+        }
+    }
+
+    private byte[] fetch(long start, long end) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=" + start + "-" + end);
+        if (eTag != null) {
+            // Fail fast if the object is replaced while it is being read
+            request.ifMatch(eTag);
+        }
+        return s3.getObjectAsBytes(request.build()).asByteArrayUnsafe();
+    }
+}
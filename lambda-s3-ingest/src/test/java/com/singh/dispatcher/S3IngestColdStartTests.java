@@ -0,0 +1,41 @@
+package com.singh.dispatcher;
+
+import com.singh.dispatcher.config.S3IngestPriming;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the JVM-side cold start of the S3 ingest function: application context startup followed by
+ * the SnapStart priming pass. Runs offline; compare the logged numbers with and without
+ * {@code -Dspring.aot.enabled=true} (after building with {@code -Paot}).
+ */
+@Slf4j
+class S3IngestColdStartTests {
+
+    @Test
+    void contextStartsAndPrimesWithoutNetwork() {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(S3IngestLambdaFunctionApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.cloud.aws.region.static=us-east-1",
+                        "aws.region=us-east-1",
+                        "spring.cloud.aws.credentials.access-key=test",
+                        "spring.cloud.aws.credentials.secret-key=test",
+                        "aws.sns.destination=arn:aws:sns:us-east-1:000000000000:cold-start")
+                .run()) {
+            long started = System.nanoTime();
+            context.getBean(S3IngestPriming.class).prime();
+            long primed = System.nanoTime();
+
+            log.info("S3 ingest cold start: context={} ms, priming={} ms",
+                    (started - start) / 1_000_000, (primed - started) / 1_000_000);
+            assertTrue(context.isActive());
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.singh.dispatcher.handler;
+
+import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+import com.singh.codec.PipelineMessages;
+import com.singh.dispatcher.dto.IngestSummary;
+import com.singh.dispatcher.dto.ObjectIngestResult;
+import com.singh.dispatcher.ingest.CheckpointStore;
+import com.singh.dispatcher.ingest.IngestContinuation;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import io.awspring.cloud.sns.core.SnsTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class S3IngestHandlerTests {
+
+    private static final String OBJECT_ID = "s3://bucket/users.csv#etag";
+
+    @Test
+    void failedPublishFailsTheInvocationAndTheRetryResumesAtTheSavedOffset() {
+        StringBuilder csv = new StringBuilder("id,name,email\n");
+        for (int i = 0; i < 10; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\n");
+        }
+        byte[] object = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        AtomicReference<CheckpointStore.Checkpoint> saved = new AtomicReference<>(CheckpointStore.Checkpoint.NONE);
+        CheckpointStore checkpointStore = mock(CheckpointStore.class);
+        when(checkpointStore.objectId(anyString(), anyString(), anyString())).thenReturn(OBJECT_ID);
+        when(checkpointStore.load(OBJECT_ID)).thenAnswer(invocation -> saved.get());
+        doAnswer(invocation -> {
+            saved.set(new CheckpointStore.Checkpoint(invocation.getArgument(1), invocation.getArgument(2),
+                    invocation.getArgument(3), Set.of(), false));
+            return null;
+        }).when(checkpointStore).saveOffset(anyString(), anyLong(), anyLong(), anyLong());
+
+        // The third chunk fails to publish once
+        List<String> chunkIds = new ArrayList<>();
+        AtomicInteger publishes = new AtomicInteger();
+        SnsTemplate snsTemplate = mock(SnsTemplate.class);
+        doAnswer(invocation -> {
+            if (publishes.incrementAndGet() == 3) {
+                throw new IllegalStateException("SNS unavailable");
+            }
+            Map<String, Object> headers = invocation.getArgument(2);
+            chunkIds.add((String) headers.get(PipelineMessages.CHUNK_ID_ATTRIBUTE));
+            return null;
+        }).when(snsTemplate).convertAndSend(anyString(), any(Object.class), anyMap());
+
+        S3IngestHandler handler = handler(s3(object), snsTemplate, checkpointStore);
+
+        assertThrows(IllegalStateException.class, () -> handler.apply(event()));
+        long savedOffset = saved.get().offset();
+        assertEquals(csv.indexOf("4,"), savedOffset);
+        assertEquals(List.of(OBJECT_ID + "@" + csv.indexOf("0,"), OBJECT_ID + "@" + csv.indexOf("2,")), chunkIds);
+
+        chunkIds.clear();
+        IngestSummary summary = handler.apply(event());
+
+        assertEquals(1, summary.published());
+        assertEquals(OBJECT_ID + "@" + savedOffset, chunkIds.get(0));
+        assertEquals(3, chunkIds.size());
+        assertEquals(6, summary.results().get(0).rows());
+    }
+
+    @Test
+    void ingestsTheObjectsOfAnEventConcurrentlyUpToTheConcurrencyCap() {
+        Map<String, byte[]> objects = new LinkedHashMap<>();
+        for (String key : List.of("a.csv", "b.csv", "c.csv", "d.csv", "e.csv")) {
+            objects.put(key, csv(4));
+        }
+        Map<String, CheckpointStore.Checkpoint> saved = new ConcurrentHashMap<>();
+        CheckpointStore checkpointStore = checkpointStore(saved);
+        // Every object loads its checkpoint under a permit: hold the first two there until both arrived
+        AtomicInteger loading = new AtomicInteger();
+        AtomicInteger mostLoading = new AtomicInteger();
+        CountDownLatch twoLoading = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            mostLoading.accumulateAndGet(loading.incrementAndGet(), Math::max);
+            try {
+                twoLoading.countDown();
+                twoLoading.await(5, TimeUnit.SECONDS);
+                Thread.sleep(20);
+            } finally {
+                loading.decrementAndGet();
+            }
+            return saved.getOrDefault(invocation.<String>getArgument(0), CheckpointStore.Checkpoint.NONE);
+        }).when(checkpointStore).load(anyString());
+        List<String> chunkIds = new CopyOnWriteArrayList<>();
+        SnsTemplate snsTemplate = snsTemplate(chunkIds, chunkId -> false);
+
+        IngestSummary summary = handler(s3(objects), snsTemplate, checkpointStore, 2)
+                .apply(event(objects.keySet().toArray(String[]::new)));
+
+        assertEquals(2, mostLoading.get());
+        assertEquals(5, summary.objects());
+        assertEquals(5, summary.published());
+        assertEquals(List.copyOf(objects.keySet()), summary.results().stream().map(ObjectIngestResult::key).toList());
+        for (ObjectIngestResult result : summary.results()) {
+            assertEquals(ObjectIngestResult.Status.PUBLISHED, result.status());
+            assertEquals(4, result.rows());
+            assertEquals(2, result.chunks());
+        }
+        assertEquals(10, chunkIds.size());
+    }
+
+    @Test
+    void oneFailingObjectFailsTheInvocationWhileTheOthersPublish() {
+        Map<String, byte[]> objects = new LinkedHashMap<>();
+        objects.put("a.csv", csv(4));
+        objects.put("broken.csv", csv(4));
+        objects.put("c.csv", csv(4));
+        Map<String, CheckpointStore.Checkpoint> saved = new ConcurrentHashMap<>();
+        CheckpointStore checkpointStore = checkpointStore(saved);
+        List<String> chunkIds = new CopyOnWriteArrayList<>();
+        AtomicBoolean snsDown = new AtomicBoolean(true);
+        SnsTemplate snsTemplate = snsTemplate(chunkIds, chunkId -> snsDown.get() && chunkId.contains("/broken.csv#"));
+        S3IngestHandler handler = handler(s3(objects), snsTemplate, checkpointStore, 3);
+        S3EventNotification event = event("a.csv", "broken.csv", "exports/", "c.csv");
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> handler.apply(event));
+
+        assertTrue(failure.getMessage().startsWith("1 of 4 objects failed to ingest, first: broken.csv"),
+                failure.getMessage());
+        assertEquals(4, chunkIds.size());
+        assertTrue(chunkIds.stream().noneMatch(chunkId -> chunkId.contains("/broken.csv#")));
+        assertTrue(saved.get(objectId("a.csv")).complete());
+        assertTrue(saved.get(objectId("c.csv")).complete());
+
+        // Lambda retries the whole event: only the failed object is read again
+        snsDown.set(false);
+        chunkIds.clear();
+        IngestSummary summary = handler.apply(event);
+
+        assertEquals(List.of(ObjectIngestResult.Status.SKIPPED, ObjectIngestResult.Status.PUBLISHED,
+                        ObjectIngestResult.Status.SKIPPED, ObjectIngestResult.Status.SKIPPED),
+                summary.results().stream().map(ObjectIngestResult::status).toList());
+        assertEquals(List.of("Already ingested", "Published 2 chunks to SNS", "Skipped folder placeholder",
+                "Already ingested"), summary.results().stream().map(ObjectIngestResult::message).toList());
+        assertEquals(1, summary.published());
+        assertEquals(3, summary.skipped());
+        assertEquals(0, summary.failed());
+        assertEquals(4, summary.results().get(1).rows());
+        assertEquals(2, chunkIds.size());
+        assertTrue(chunkIds.stream().allMatch(chunkId -> chunkId.startsWith(objectId("broken.csv") + "@")));
+    }
+
+    private static S3IngestHandler handler(S3Client s3, SnsTemplate snsTemplate, CheckpointStore checkpointStore) {
+        return handler(s3, snsTemplate, checkpointStore, 1);
+    }
+
+    private static S3IngestHandler handler(S3Client s3, SnsTemplate snsTemplate, CheckpointStore checkpointStore,
+                                           int maxConcurrency) {
+        S3IngestHandler handler = new S3IngestHandler(snsTemplate, s3,
+                new PipelineMetrics(new SimpleMeterRegistry(), PipelineMetrics.DEFAULT_NAMESPACE, "ingest", null),
+                checkpointStore, IngestContinuation.disabled(), JobProgress.disabled(JobProgress.INGEST));
+        ReflectionTestUtils.setField(handler, "topicArnFromProperties", "arn:aws:sns:us-east-1:000000000000:ingest");
+        // Two rows per chunk
+        ReflectionTestUtils.setField(handler, "chunkMaxBytes", 70);
+        ReflectionTestUtils.setField(handler, "rangedGetThresholdBytes", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(handler, "maxConcurrency", maxConcurrency);
+        ReflectionTestUtils.setField(handler, "splitEnabled", false);
+        // Only the failure saves progress within the test
+        ReflectionTestUtils.setField(handler, "checkpointInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(handler, "timeBudget", Duration.ofMinutes(1));
+        handler.validateTargetTopic();
+        return handler;
+    }
+
+    /** Keeps checkpoints in {@code saved}, keyed by the object id of {@link #objectId}. */
+    private static CheckpointStore checkpointStore(Map<String, CheckpointStore.Checkpoint> saved) {
+        CheckpointStore checkpointStore = mock(CheckpointStore.class);
+        when(checkpointStore.objectId(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> objectId(invocation.getArgument(1)));
+        when(checkpointStore.load(anyString())).thenAnswer(invocation ->
+                saved.getOrDefault(invocation.<String>getArgument(0), CheckpointStore.Checkpoint.NONE));
+        doAnswer(invocation -> saved.put(invocation.getArgument(0),
+                new CheckpointStore.Checkpoint(0, 0, 0, Set.of(), true)))
+                .when(checkpointStore).complete(anyString());
+        return checkpointStore;
+    }
+
+    /** Collects the chunk id of every message it accepts; rejects those {@code failing} matches. */
+    private static SnsTemplate snsTemplate(List<String> chunkIds, Predicate<String> failing) {
+        SnsTemplate snsTemplate = mock(SnsTemplate.class);
+        doAnswer(invocation -> {
+            Map<String, Object> headers = invocation.getArgument(2);
+            String chunkId = (String) headers.get(PipelineMessages.CHUNK_ID_ATTRIBUTE);
+            if (failing.test(chunkId)) {
+                throw new IllegalStateException("SNS unavailable");
+            }
+            chunkIds.add(chunkId);
+            return null;
+        }).when(snsTemplate).convertAndSend(anyString(), any(Object.class), anyMap());
+        return snsTemplate;
+    }
+
+    private static String objectId(String key) {
+        return "s3://bucket/" + key + "#etag";
+    }
+
+    private static byte[] csv(int rows) {
+        StringBuilder csv = new StringBuilder("id,name,email\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Serves {@code object} with its ETag, honouring byte ranges. */
+    private static S3Client s3(byte[] object) {
+        return s3(Map.of("users.csv", object));
+    }
+
+    /** Serves each of {@code objects} under its key with the same ETag, honouring byte ranges. */
+    private static S3Client s3(Map<String, byte[]> objects) {
+        S3Client s3 = mock(S3Client.class);
+        when(s3.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> HeadObjectResponse.builder()
+                .contentLength((long) objects.get(invocation.<HeadObjectRequest>getArgument(0).key()).length)
+                .contentType("text/csv")
+                .eTag("\"etag\"")
+                .build());
+        when(s3.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(),
+                    range(objects.get(request.key()), request.range()));
+        });
+        when(s3.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(
+                    new ByteArrayInputStream(range(objects.get(request.key()), request.range()))));
+        });
+        return s3;
+    }
+
+    private static byte[] range(byte[] object, String range) {
+        if (range == null) {
+            return object;
+        }
+        String[] bounds = range.substring("bytes=".length()).split("-", -1);
+        int from = Integer.parseInt(bounds[0]);
+        int to = bounds[1].isEmpty() ? object.length - 1 : Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+        return Arrays.copyOfRange(object, from, to + 1);
+    }
+
+    private static S3EventNotification event() {
+        return event("users.csv");
+    }
+
+    private static S3EventNotification event(String... keys) {
+        List<S3EventNotification.S3EventNotificationRecord> records = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            S3EventNotification.S3Entity s3 = new S3EventNotification.S3Entity("test",
+                    new S3EventNotification.S3BucketEntity("bucket", null, "arn:aws:s3:::bucket"),
+                    new S3EventNotification.S3ObjectEntity(key, null, null, null, null),
+                    "1.0");
+            records.add(new S3EventNotification.S3EventNotificationRecord(
+                    "us-east-1", "ObjectCreated:Put", "aws:s3", null, "2.1", null, null, s3, null));
+        }
+        return new S3EventNotification(records);
+    }
+}
@@ -0,0 +1,167 @@
+package com.singh.dispatcher.ingest;
+
+import com.singh.codec.PipelineMessages;
+import com.singh.csv.CsvCompression;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvChunkerTests {
+
+    private static final String HEADER = "id,name,email";
+
+    @Test
+    void splitsOnRowBoundariesAndRepeatsHeader() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 100; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\n");
+        }
+
+        List<String> chunks = new ArrayList<>();
+        CsvChunker.ChunkStats stats = new CsvChunker(256)
+                .split(new BufferedReader(new StringReader(csv.toString())), chunks::add);
+
+        assertEquals(100, stats.rows());
+        assertEquals(chunks.size(), stats.chunks());
+        assertTrue(chunks.size() > 1);
+
+        long dataRows = 0;
+        for (String chunk : chunks) {
+            assertTrue(chunk.startsWith(HEADER + "\n"));
+            assertTrue(chunk.endsWith("\n"));
+            assertTrue(PipelineMessages.utf8Length(chunk) <= 256);
+            dataRows += chunk.lines().count() - 1;
+        }
+        assertEquals(100, dataRows);
+    }
+
+    @Test
+    void reportsOffsetsThatResumeToTheSameChunks() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append("\r\n");
+        for (int i = 0; i < 50; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\r\n");
+        }
+        String input = csv.toString();
+
+        List<String> chunks = new ArrayList<>();
+        List<long[]> offsets = new ArrayList<>();
+        new CsvChunker(256).split(new BufferedReader(new StringReader(input)), null, 2, (chunk, first, end) -> {
+            chunks.add(chunk);
+            offsets.add(new long[]{first, end});
+        });
+        assertTrue(chunks.size() > 2);
+        for (int i = 0; i < chunks.size(); i++) {
+            String firstRow = chunks.get(i).split("\n")[1];
+            assertTrue(input.startsWith(firstRow + "\r\n", (int) offsets.get(i)[0]));
+        }
+        assertEquals(input.length(), offsets.get(chunks.size() - 1)[1]);
+
+        long resumeAt = offsets.get(0)[1];
+        List<String> resumed = new ArrayList<>();
+        List<Long> resumedFirstOffsets = new ArrayList<>();
+        new CsvChunker(256).split(new BufferedReader(new StringReader(input.substring((int) resumeAt))), HEADER, 2,
+                (chunk, first, end) -> {
+                    resumed.add(chunk);
+                    resumedFirstOffsets.add(resumeAt + first);
+                });
+        assertEquals(chunks.subList(1, chunks.size()), resumed);
+        assertEquals(offsets.subList(1, offsets.size()).stream().map(o -> o[0]).toList(), resumedFirstOffsets);
+    }
+
+    @Test
+    void keepsQuotedLineBreaksOfARowOnAChunkBoundaryTogether() throws IOException {
+        String row1 = "1,Jane,jane@example.com";
+        String row2 = "2,John,john@example.com";
+        // Would not fit behind the first two rows, so it starts the next chunk, blank line and all
+        String row3 = "3,\"Line one\n\n\"\"line\"\" three\",jim@example.com";
+        String input = HEADER + "\n" + row1 + "\n\n" + row2 + "\n" + row3 + "\n";
+
+        List<String> chunks = new ArrayList<>();
+        List<long[]> offsets = new ArrayList<>();
+        CsvChunker.ChunkStats stats = new CsvChunker(80).split(new BufferedReader(new StringReader(input)), null, 1,
+                (chunk, first, end) -> {
+                    chunks.add(chunk);
+                    offsets.add(new long[]{first, end});
+                });
+
+        assertEquals(3, stats.rows());
+        assertEquals(List.of(HEADER + "\n" + row1 + "\n" + row2 + "\n", HEADER + "\n" + row3 + "\n"), chunks);
+        assertEquals(1, CsvChunker.rowCount(chunks.get(1)));
+        assertEquals(input.indexOf(row3), offsets.get(1)[0]);
+        assertEquals(input.length(), offsets.get(1)[1]);
+        assertEquals(input.length(), stats.bytes());
+    }
+
+    @Test
+    void headerOnlyProducesNoChunks() throws IOException {
+        List<String> chunks = new ArrayList<>();
+        CsvChunker.ChunkStats stats = new CsvChunker(256)
+                .split(new BufferedReader(new StringReader(HEADER + "\n\n")), chunks::add);
+
+        assertEquals(0, stats.rows());
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    void rejectsRowLargerThanChunk() {
+        String csv = HEADER + "\n1,Name,e@example.com\n2," + "x".repeat(300) + ",e@example.com\n";
+
+        assertThrows(IllegalStateException.class, () -> new CsvChunker(64)
+                .split(new BufferedReader(new StringReader(csv)), chunk -> { }));
+    }
+
+    @Test
+    void resumesDecompressedStreamAtChunkOffset() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 200; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\n");
+        }
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream out = CsvCompression.GZIP.compress(gzipped)) {
+            out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<String> chunks = new ArrayList<>();
+        List<Long> ends = new ArrayList<>();
+        try (BufferedReader reader = reader(new BufferedInputStream(CsvCompression.detect(gzipped.toByteArray())
+                .decompress(new ByteArrayInputStream(gzipped.toByteArray()))))) {
+            new CsvChunker(512).split(reader, null, 1, (chunk, first, end) -> {
+                chunks.add(chunk);
+                ends.add(end);
+            });
+        }
+        assertTrue(chunks.size() > 3);
+
+        // As a resumed invocation does: decompress from the start, take the header, skip what was published
+        BufferedInputStream in = new BufferedInputStream(
+                CsvCompression.GZIP.decompress(new ByteArrayInputStream(gzipped.toByteArray())));
+        CsvHeader header = CsvHeader.read(in, 512);
+        in.skipNBytes(ends.get(1));
+        List<String> resumed = new ArrayList<>();
+        try (BufferedReader reader = reader(in)) {
+            new CsvChunker(512).split(reader, header.line(), header.lineBreakBytes(),
+                    (chunk, first, end) -> resumed.add(chunk));
+        }
+
+        assertEquals(HEADER, header.line());
+        assertEquals(chunks.subList(2, chunks.size()), resumed);
+    }
+
+    private static BufferedReader reader(BufferedInputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+}
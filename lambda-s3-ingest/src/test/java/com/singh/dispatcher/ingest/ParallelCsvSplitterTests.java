@@ -0,0 +1,188 @@
+package com.singh.dispatcher.ingest;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ParallelCsvSplitterTests {
+
+    private static final String HEADER = "id,name,email";
+
+    @Test
+    void everyRowLandsInExactlyOneChunk() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Varying row lengths move the range boundaries across row starts, middles and line breaks
+            String row = i + ",User " + "x".repeat(i % 7) + "," + "ü".repeat(i % 3) + "user" + i + "@example.com";
+            rows.add(row);
+            csv.append(row).append('\n');
+        }
+        byte[] object = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (long splitSize = 256; splitSize < 320; splitSize++) {
+            List<String> chunked = chunkedRows(object, splitSize);
+
+            assertEquals(rows.size(), chunked.size(), "splitSize=" + splitSize);
+            assertEquals(rows.stream().sorted().toList(), chunked.stream().sorted().toList(), "splitSize=" + splitSize);
+        }
+    }
+
+    @Test
+    void keepsQuotedLineBreaksOnRangeBoundariesInOneRow() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Quoted line breaks and escaped quotes land on every side of the range boundaries
+            String row = i + ",\"Line one\n" + "\"\"".repeat(i % 3) + "line two\",user" + i + "@example.com";
+            rows.add(row);
+            csv.append(row).append('\n');
+        }
+        byte[] object = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (long splitSize = 300; splitSize < 320; splitSize++) {
+            List<String> chunked = chunkedRows(object, splitSize);
+
+            assertEquals(rows.size(), chunked.size(), "splitSize=" + splitSize);
+            assertEquals(rows.stream().sorted().toList(), chunked.stream().sorted().toList(), "splitSize=" + splitSize);
+        }
+    }
+
+    @Test
+    void readsTheSameRowsAsTheStreamedChunker() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append("\r\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append(i).append(",\"User\r\n\r\n").append("x".repeat(i % 11)).append("\",user").append(i)
+                    .append("@example.com\r\n");
+            if (i % 10 == 0) {
+                csv.append("\r\n");
+            }
+        }
+        byte[] object = csv.toString().getBytes(StandardCharsets.UTF_8);
+        List<String> streamed = new ArrayList<>();
+        new CsvChunker(256).split(new BufferedReader(new StringReader(csv.toString())), chunk -> {
+            List<String> records = records(chunk);
+            streamed.addAll(records.subList(1, records.size()));
+        });
+
+        for (long splitSize = 256; splitSize < 288; splitSize++) {
+            List<String> chunked = chunkedRows(object, splitSize);
+
+            assertEquals(streamed.stream().sorted().toList(), chunked.stream().sorted().toList(),
+                    "splitSize=" + splitSize);
+        }
+    }
+
+    @Test
+    void handlesMissingTrailingLineBreak() throws IOException {
+        byte[] object = (HEADER + "\n1,A,a@example.com\n2,B,b@example.com").getBytes(StandardCharsets.UTF_8);
+
+        List<String> chunked = chunkedRows(object, 256);
+
+        assertEquals(List.of("1,A,a@example.com", "2,B,b@example.com"), chunked.stream().sorted().toList());
+    }
+
+    @Test
+    void resumesWithoutDoneRangesAndReportsObjectOffsets() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append("\r\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\r\n");
+        }
+        String object = csv.toString();
+        ParallelCsvSplitter splitter = splitter(object.getBytes(StandardCharsets.UTF_8), 512);
+        HeadObjectResponse head = HeadObjectResponse.builder().contentLength((long) object.length()).build();
+
+        Map<Long, String> chunks = new ConcurrentHashMap<>();
+        Set<Long> ranges = ConcurrentHashMap.newKeySet();
+        ParallelCsvSplitter.SplitResult result = splitter.split("bucket", "users.csv", head,
+                Set.of(0L), Long.MAX_VALUE, (rangeStart, stats) -> ranges.add(rangeStart),
+                (chunk, firstRowOffset, endOffset) -> assertNull(chunks.put(firstRowOffset, chunk)));
+
+        assertTrue(result.complete());
+        assertFalse(ranges.contains(0L));
+        assertEquals(object.length() / 512, ranges.size());
+        long rows = 0;
+        for (Map.Entry<Long, String> chunk : chunks.entrySet()) {
+            String firstRow = chunk.getValue().split("\n")[1];
+            assertTrue(object.startsWith(firstRow + "\r\n", chunk.getKey().intValue()));
+            assertTrue(chunk.getKey() >= 512);
+            rows += chunk.getValue().lines().count() - 1;
+        }
+        assertEquals(result.stats().rows(), rows);
+
+        ParallelCsvSplitter.SplitResult expired = splitter.split("bucket", "users.csv", head,
+                Set.of(), System.nanoTime() - 1, (rangeStart, stats) -> { }, (chunk, firstRowOffset, endOffset) -> { });
+        assertFalse(expired.complete());
+        assertEquals(0, expired.stats().chunks());
+    }
+
+    private static ParallelCsvSplitter splitter(byte[] object, long splitSize) {
+        S3Client s3 = mock(S3Client.class);
+        when(s3.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            String[] range = invocation.<GetObjectRequest>getArgument(0).range().substring("bytes=".length()).split("-");
+            int from = Integer.parseInt(range[0]);
+            int to = Math.min(Integer.parseInt(range[1]), object.length - 1);
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), Arrays.copyOfRange(object, from, to + 1));
+        });
+        return new ParallelCsvSplitter(s3, new CsvChunker(256), splitSize, 64, 2, new Semaphore(4));
+    }
+
+    private static List<String> chunkedRows(byte[] object, long splitSize) throws IOException {
+        ParallelCsvSplitter splitter = splitter(object, splitSize);
+        HeadObjectResponse head = HeadObjectResponse.builder().contentLength((long) object.length).build();
+
+        Queue<String> chunks = new ConcurrentLinkedQueue<>();
+        CsvChunker.ChunkStats stats = splitter.split("bucket", "users.csv", head, chunks::add);
+
+        List<String> rows = new ArrayList<>();
+        for (String chunk : chunks) {
+            assertTrue(chunk.startsWith(HEADER + "\n"));
+            List<String> records = records(chunk);
+            rows.addAll(records.subList(1, records.size()));
+        }
+        assertEquals(stats.rows(), rows.size());
+        return rows;
+    }
+
+    /** Splits a chunk at the line breaks outside quoted fields. */
+    private static List<String> records(String chunk) {
+        List<String> records = new ArrayList<>();
+        boolean inQuotes = false;
+        int recordStart = 0;
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == '\n' && !inQuotes) {
+                records.add(chunk.substring(recordStart, i));
+                recordStart = i + 1;
+            }
+        }
+        return records;
+    }
+}
@@ -1,11 +1,14 @@
 package com.singh.dispatcher;
 
+import com.singh.dispatcher.config.SnsDispatcherRuntimeHints;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @Slf4j
 @SpringBootApplication
+@ImportRuntimeHints(SnsDispatcherRuntimeHints.class)
 public class SnsDispatcherLambdaFunctionApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,28 @@
+package com.singh.dispatcher.config;
+
+import com.singh.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PipelineMetricsConfig {
+
+    /**
+     * The function has no actuator, so meters live in memory; CloudWatch receives them from the EMF
+     * line written when each invocation closes.
+     */
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public PipelineMetrics pipelineMetrics(MeterRegistry meterRegistry,
+                                           @Value("${pipeline.metrics.namespace:UserMigrationPipeline}") String namespace,
+                                           @Value("${pipeline.metrics.emf-enabled:true}") boolean emfEnabled) {
+        return new PipelineMetrics(meterRegistry, namespace, "dispatch", emfEnabled ? PipelineMetrics.stdoutSink() : null);
+    }
+}
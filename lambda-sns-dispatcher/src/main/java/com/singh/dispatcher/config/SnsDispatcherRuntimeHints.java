@@ -0,0 +1,52 @@
+package com.singh.dispatcher.config;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbTimeWindowEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.TimeWindowEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.Identity;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.Record;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.singh.dispatcher.dto.UserMigrationEvent;
+import com.singh.dispatcher.dto.UserMigrationRecord;
+import com.singh.dispatcher.dto.WindowSummary;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image ({@code -Pnative}): the DynamoDB stream event models,
+ * their responses and the published events are bound by Jackson. The AWS SDK ships its own native-
+ * image metadata; only the interceptor lists it looks up as resources are added here.
+ */
+public class SnsDispatcherRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bind(hints, DynamodbEvent.class);
+        bind(hints, DynamodbTimeWindowEvent.class);
+        bind(hints, StreamsEventResponse.class);
+        bind(hints, TimeWindowEventResponse.class);
+        bind(hints, AttributeValue.class);
+        bind(hints, StreamRecord.class);
+        bind(hints, Identity.class);
+        bind(hints, Record.class);
+        bind(hints, UserMigrationEvent.class);
+        bind(hints, UserMigrationRecord.class);
+        bind(hints, WindowSummary.class);
+        hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/services/*/execution.interceptors");
+    }
+
+    /** Registers {@code type} and its nested types, which the event classes use for their parts. */
+    private static void bind(RuntimeHints hints, Class<?> type) {
+        hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            bind(hints, nested);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.singh.dispatcher.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact change event published to the fan-out topic for every inserted or modified user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserMigrationEvent {
+    private String eventName;
+    private String id;
+    private String name;
+    private String email;
+}
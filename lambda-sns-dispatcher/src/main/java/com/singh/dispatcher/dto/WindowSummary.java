@@ -0,0 +1,36 @@
+package com.singh.dispatcher.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes of one shard within one tumbling window: counts per event type, the smallest and largest
+ * user id and a sample of ids. Carried between the invocations of a window as its state, and
+ * published to the fan-out topic once the window closes.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WindowSummary {
+    private String shardId;
+    private String windowStart;
+    private String windowEnd;
+    private long inserts;
+    private long modifies;
+    private long removes;
+    private String minId;
+    private String maxId;
+    private List<String> sampleIds = new ArrayList<>();
+    private String firstSequenceNumber;
+    private String lastSequenceNumber;
+    /** Lambda closed the window before its end, e.g. because the state grew too large. */
+    private boolean terminatedEarly;
+
+    public long changes() {
+        return inserts + modifies + removes;
+    }
+}
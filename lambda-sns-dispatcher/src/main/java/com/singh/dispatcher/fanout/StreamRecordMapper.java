@@ -0,0 +1,41 @@
+package com.singh.dispatcher.fanout;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.singh.dispatcher.dto.UserMigrationEvent;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Turns the {@code NEW_IMAGE} of a DynamoDB stream record into a {@link UserMigrationEvent}.
+ */
+public final class StreamRecordMapper {
+
+    private StreamRecordMapper() {
+    }
+
+    /**
+     * @return the compact event, or empty when the record carries no new image (e.g. {@code REMOVE})
+     */
+    public static Optional<UserMigrationEvent> toEvent(DynamodbStreamRecord record) {
+        if (record == null || record.getDynamodb() == null) {
+            return Optional.empty();
+        }
+        Map<String, AttributeValue> image = record.getDynamodb().getNewImage();
+        if (image == null || image.isEmpty()) {
+            return Optional.empty();
+        }
+        String id = string(image, "id");
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new UserMigrationEvent(record.getEventName(), id,
+                string(image, "name"), string(image, "email")));
+    }
+
+    private static String string(Map<String, AttributeValue> image, String attribute) {
+        AttributeValue value = image.get(attribute);
+        return value != null ? value.getS() : null;
+    }
+}
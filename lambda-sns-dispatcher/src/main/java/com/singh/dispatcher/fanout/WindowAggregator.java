@@ -0,0 +1,136 @@
+package com.singh.dispatcher.fanout;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.singh.dispatcher.dto.UserMigrationEvent;
+import com.singh.dispatcher.dto.WindowSummary;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Folds stream records into a {@link WindowSummary}. The result depends only on the summary and the
+ * records, not on how Lambda split the window into invocations, so a retried invocation produces
+ * the same summary: the sample is the {@code sampleSize} ids with the smallest hash (a bottom-k
+ * sample) rather than a random pick.
+ */
+public final class WindowAggregator {
+
+    /** Numeric ids in numeric order, then anything else in string order. */
+    static final Comparator<String> ID_ORDER = (a, b) -> {
+        boolean aNumeric = isNumeric(a);
+        boolean bNumeric = isNumeric(b);
+        if (aNumeric && bNumeric) {
+            return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+        }
+        return aNumeric != bNumeric ? (aNumeric ? -1 : 1) : a.compareTo(b);
+    };
+
+    private static final Comparator<String> SAMPLE_ORDER =
+            Comparator.comparingInt(WindowAggregator::sampleHash).thenComparing(Comparator.naturalOrder());
+
+    private final int sampleSize;
+
+    public WindowAggregator(int sampleSize) {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("sampleSize must not be negative");
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Adds the records to {@code summary}.
+     *
+     * @return the number of records that were counted; records without a user id are ignored
+     */
+    public int addAll(WindowSummary summary, List<DynamodbStreamRecord> records) {
+        int counted = 0;
+        for (DynamodbStreamRecord record : records) {
+            if (add(summary, record)) {
+                counted++;
+            }
+        }
+        return counted;
+    }
+
+    private boolean add(WindowSummary summary, DynamodbStreamRecord record) {
+        if (record == null || record.getDynamodb() == null) {
+            return false;
+        }
+        String eventName = String.valueOf(record.getEventName());
+        String id = "REMOVE".equals(eventName)
+                ? keyId(record.getDynamodb().getKeys())
+                : StreamRecordMapper.toEvent(record).map(UserMigrationEvent::getId).orElse(null);
+        if (id == null) {
+            return false;
+        }
+        switch (eventName) {
+            case "INSERT" -> summary.setInserts(summary.getInserts() + 1);
+            case "MODIFY" -> summary.setModifies(summary.getModifies() + 1);
+            case "REMOVE" -> summary.setRemoves(summary.getRemoves() + 1);
+            default -> {
+                return false;
+            }
+        }
+
+        if (summary.getMinId() == null || ID_ORDER.compare(id, summary.getMinId()) < 0) {
+            summary.setMinId(id);
+        }
+        if (summary.getMaxId() == null || ID_ORDER.compare(id, summary.getMaxId()) > 0) {
+            summary.setMaxId(id);
+        }
+        sample(summary.getSampleIds(), id);
+
+        String sequenceNumber = record.getDynamodb().getSequenceNumber();
+        if (summary.getFirstSequenceNumber() == null) {
+            summary.setFirstSequenceNumber(sequenceNumber);
+        }
+        summary.setLastSequenceNumber(sequenceNumber);
+        return true;
+    }
+
+    /** Keeps {@code sample} sorted by {@link #SAMPLE_ORDER} and at most {@code sampleSize} long. */
+    private void sample(List<String> sample, String id) {
+        int position = -Collections.binarySearch(sample, id, SAMPLE_ORDER) - 1;
+        if (position < 0 || position >= sampleSize) {
+            return;
+        }
+        sample.add(position, id);
+        if (sample.size() > sampleSize) {
+            sample.remove(sample.size() - 1);
+        }
+    }
+
+    private static String keyId(Map<String, AttributeValue> keys) {
+        return Optional.ofNullable(keys)
+                .map(k -> k.get("id"))
+                .map(AttributeValue::getS)
+                .orElse(null);
+    }
+
+    private static boolean isNumeric(String s) {
+        if (s.isEmpty() || (s.length() > 1 && s.charAt(0) == '0')) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@link String#hashCode()} with the murmur3 finalizer, so similar ids spread evenly. */
+    private static int sampleHash(String id) {
+        int h = id.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -1,29 +1,206 @@
 package com.singh.dispatcher.handler;
 
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.dispatcher.dto.UserMigrationEvent;
+import com.singh.dispatcher.fanout.StreamRecordMapper;
+import com.singh.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.function.Function;
 
 @Slf4j
 @Component
-public class SnsDispatcherHandler implements Function<DynamodbEvent, String> {
+@RequiredArgsConstructor
+public class SnsDispatcherHandler implements Function<DynamodbEvent, StreamsEventResponse> {
+
+    /** SNS PublishBatch limits: 10 entries and 256 KB of payload per call. */
+    private static final int MAX_BATCH_ENTRIES = 10;
+    private static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    private final SnsClient snsClient;
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics metrics;
+
+    @Value("${SNS_USER_MIGRATION_FANOUT_TOPIC_ARN:}")
+    private String topicArnFromEnv;
+
+    @Value("${aws.sns.fanout-destination:}")
+    private String topicArnFromProperties;
 
-    private static final String FANOUT_TOPIC_ARN = System.getenv("SNS_USER_MIGRATION_FANOUT_TOPIC_ARN");
+    @Value("${dispatcher.publish-concurrency:4}")
+    private int publishConcurrency;
+
+    private String fanoutTopicArn;
+
+    @PostConstruct
+    void resolveTopicArn() {
+        fanoutTopicArn = StringUtils.hasText(topicArnFromEnv) ? topicArnFromEnv : topicArnFromProperties;
+
+        if (!StringUtils.hasText(fanoutTopicArn)) {
+            throw new IllegalStateException("Fan-out SNS topic ARN not configured. " +
+                    "Set SNS_USER_MIGRATION_FANOUT_TOPIC_ARN environment variable or aws.sns.fanout-destination property.");
+        }
+        if (publishConcurrency < 1) {
+            throw new IllegalStateException("dispatcher.publish-concurrency must be at least 1");
+        }
+        log.info("Configured fan-out SNS topic ARN: {}", fanoutTopicArn);
+    }
 
     @Override
-    public String apply(DynamodbEvent event) {
+    public StreamsEventResponse apply(DynamodbEvent event) {
 
-        log.info("FANOUT_TOPIC_ARN :{}",FANOUT_TOPIC_ARN);
-        log.info("Received {} DynamoDB stream records", event.getRecords().size());
+        if (event == null || CollectionUtils.isEmpty(event.getRecords())) {
+            log.warn("Received DynamoDB stream event with no records. Nothing to dispatch.");
+            return new StreamsEventResponse(List.of());
+        }
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            return dispatch(event.getRecords());
+        }
+    }
 
-        event.getRecords().forEach(record -> {
-            log.info("Event Name: {}", record.getEventName());
-            log.info("Keys: {}", record.getDynamodb().getKeys());
-        });
+    private StreamsEventResponse dispatch(List<DynamodbStreamRecord> records) {
+        log.info("Received {} DynamoDB stream records", records.size());
+        metrics.rowsIn(records.size());
 
+        // Entry id -> stream sequence number, so failed entries can be reported back to Lambda
+        Map<String, String> sequenceNumbers = new HashMap<>();
+        List<List<PublishBatchRequestEntry>> batches = new ArrayList<>();
+        List<PublishBatchRequestEntry> batch = new ArrayList<>(MAX_BATCH_ENTRIES);
+        int batchBytes = 0;
+        int skipped = 0;
+
+        long serializeStart = System.nanoTime();
+        for (int i = 0; i < records.size(); i++) {
+            DynamodbStreamRecord record = records.get(i);
+            Optional<PublishBatchRequestEntry> entry = toEntry("r" + i, record);
+            if (entry.isEmpty()) {
+                skipped++;
+                continue;
+            }
+            int entryBytes = entry.get().message().getBytes(StandardCharsets.UTF_8).length;
+            if (batch.size() == MAX_BATCH_ENTRIES || (!batch.isEmpty() && batchBytes + entryBytes > MAX_BATCH_BYTES)) {
+                batches.add(batch);
+                batch = new ArrayList<>(MAX_BATCH_ENTRIES);
+                batchBytes = 0;
+            }
+            batch.add(entry.get());
+            batchBytes += entryBytes;
+            sequenceNumbers.put(entry.get().id(), record.getDynamodb().getSequenceNumber());
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        metrics.latency("serialize", System.nanoTime() - serializeStart);
+
+        List<String> failedIds = publishAll(batches);
+
+        List<StreamsEventResponse.BatchItemFailure> failures = failedIds.stream()
+                .map(sequenceNumbers::get)
+                .map(StreamsEventResponse.BatchItemFailure::new)
+                .toList();
+
+        metrics.rowsOut(sequenceNumbers.size() - failures.size());
+        log.info("Dispatched DynamoDB stream batch → published={}, skipped={}, failed={}, publishBatchCalls={}",
+                sequenceNumbers.size() - failures.size(), skipped, failures.size(), batches.size());
+        return new StreamsEventResponse(failures);
+    }
+
+    private Optional<PublishBatchRequestEntry> toEntry(String entryId, DynamodbStreamRecord record) {
+        Optional<UserMigrationEvent> event = StreamRecordMapper.toEvent(record);
+        if (event.isEmpty()) {
+            log.debug("Skipping {} stream record without a usable NEW_IMAGE", record.getEventName());
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(PublishBatchRequestEntry.builder()
+                    .id(entryId)
+                    .message(objectMapper.writeValueAsString(event.get()))
+                    .messageAttributes(Map.of("eventName", MessageAttributeValue.builder()
+                            .dataType("String")
+                            .stringValue(String.valueOf(record.getEventName()))
+                            .build()))
+                    .build());
+        } catch (JsonProcessingException e) {
+            // Retrying cannot fix a record that does not serialize, so it must not block the shard
+            log.error("Failed to serialize stream record {}. Skipping.", event.get().getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Publishes the batches, several at a time, and returns the ids of the entries that failed.
+     */
+    private List<String> publishAll(List<List<PublishBatchRequestEntry>> batches) {
+        Semaphore permits = new Semaphore(publishConcurrency);
+        List<Future<List<String>>> futures = new ArrayList<>(batches.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<PublishBatchRequestEntry> entries : batches) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return publishBatch(entries);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        List<String> failedIds = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                failedIds.addAll(futures.get(i).resultNow());
+            } catch (IllegalStateException e) {
+                log.error("PublishBatch task did not complete normally", e);
+                batches.get(i).forEach(entry -> failedIds.add(entry.id()));
+            }
+        }
+        return failedIds;
+    }
 
-        return "Processed " + event.getRecords().size() + " DynamoDB stream events";
+    private List<String> publishBatch(List<PublishBatchRequestEntry> entries) {
+        metrics.batchSize("publish", entries.size());
+        try {
+            PublishBatchResponse response = metrics.time("publish", () -> snsClient.publishBatch(PublishBatchRequest.builder()
+                    .topicArn(fanoutTopicArn)
+                    .publishBatchRequestEntries(entries)
+                    .build()));
+            if (!response.hasFailed() || response.failed().isEmpty()) {
+                return List.of();
+            }
+            for (BatchResultErrorEntry failed : response.failed()) {
+                log.warn("PublishBatch entry {} failed: {} {}", failed.id(), failed.code(), failed.message());
+            }
+            return response.failed().stream().map(BatchResultErrorEntry::id).toList();
+        } catch (Exception e) {
+            log.error("PublishBatch call failed for {} entries", entries.size(), e);
+            return entries.stream().map(PublishBatchRequestEntry::id).toList();
+        }
     }
-}
\ No newline at end of file
+}
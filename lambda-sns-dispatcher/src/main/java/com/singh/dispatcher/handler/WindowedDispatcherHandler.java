@@ -0,0 +1,159 @@
+package com.singh.dispatcher.handler;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.DynamodbTimeWindowEvent;
+import com.amazonaws.services.lambda.runtime.events.TimeWindowEventResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.dispatcher.dto.WindowSummary;
+import com.singh.dispatcher.fanout.WindowAggregator;
+import com.singh.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Aggregation mode of the dispatcher, for stream event sources with a tumbling window: instead of
+ * one fan-out message per changed row, every invocation folds its records into the window's
+ * {@link WindowSummary}, which Lambda hands to the next invocation as state, and one summary per
+ * shard is published when the window closes. During a bulk migration this turns millions of
+ * messages into a few per minute.
+ * <p>
+ * A failed publish fails the final invocation; Lambda retries it with the same state and records,
+ * which give the same summary.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WindowedDispatcherHandler implements Function<DynamodbTimeWindowEvent, TimeWindowEventResponse> {
+
+    /** {@code eventName} message attribute of summaries, next to the INSERT/MODIFY of row events. */
+    public static final String SUMMARY_EVENT_NAME = "WINDOW_SUMMARY";
+
+    private static final String STATE_KEY = "summary";
+
+    private final SnsClient snsClient;
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics metrics;
+
+    @Value("${SNS_USER_MIGRATION_FANOUT_TOPIC_ARN:}")
+    private String topicArnFromEnv;
+
+    @Value("${aws.sns.fanout-destination:}")
+    private String topicArnFromProperties;
+
+    /** Ids sampled per summary; the state Lambda carries between invocations is capped at 1 MB. */
+    @Value("${dispatcher.window.sample-size:20}")
+    private int sampleSize;
+
+    private String fanoutTopicArn;
+
+    private WindowAggregator aggregator;
+
+    @PostConstruct
+    void init() {
+        fanoutTopicArn = StringUtils.hasText(topicArnFromEnv) ? topicArnFromEnv : topicArnFromProperties;
+        if (!StringUtils.hasText(fanoutTopicArn)) {
+            throw new IllegalStateException("Fan-out SNS topic ARN not configured. " +
+                    "Set SNS_USER_MIGRATION_FANOUT_TOPIC_ARN environment variable or aws.sns.fanout-destination property.");
+        }
+        if (sampleSize < 0 || sampleSize > 1000) {
+            throw new IllegalStateException("dispatcher.window.sample-size must be between 0 and 1000");
+        }
+        aggregator = new WindowAggregator(sampleSize);
+    }
+
+    @Override
+    public TimeWindowEventResponse apply(DynamodbTimeWindowEvent event) {
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            return aggregate(event);
+        }
+    }
+
+    private TimeWindowEventResponse aggregate(DynamodbTimeWindowEvent event) {
+        List<DynamodbStreamRecord> records = event.getRecords() == null ? List.of() : event.getRecords();
+        metrics.rowsIn(records.size());
+
+        WindowSummary summary = metrics.time("aggregate", () -> {
+            WindowSummary state = readState(event.getState());
+            state.setShardId(event.getShardId());
+            if (event.getWindow() != null) {
+                state.setWindowStart(Objects.toString(event.getWindow().getStart(), null));
+                state.setWindowEnd(Objects.toString(event.getWindow().getEnd(), null));
+            }
+            int counted = aggregator.addAll(state, records);
+            log.debug("Folded {} of {} stream records into window {} of shard {}",
+                    counted, records.size(), state.getWindowStart(), state.getShardId());
+            return state;
+        });
+
+        if (!Boolean.TRUE.equals(event.getIsFinalInvokeForWindow())) {
+            return response(Map.of(STATE_KEY, writeJson(summary)));
+        }
+
+        summary.setTerminatedEarly(Boolean.TRUE.equals(event.getIsWindowTerminatedEarly()));
+        if (summary.changes() == 0) {
+            log.info("Window {} of shard {} closed without changes", summary.getWindowStart(), summary.getShardId());
+            return response(Map.of());
+        }
+        publish(summary);
+        metrics.rowsOut(1);
+        log.info("Published window summary → shard={}, window={}..{}, inserts={}, modifies={}, removes={}, ids={}..{}{}",
+                summary.getShardId(), summary.getWindowStart(), summary.getWindowEnd(), summary.getInserts(),
+                summary.getModifies(), summary.getRemoves(), summary.getMinId(), summary.getMaxId(),
+                summary.isTerminatedEarly() ? " (terminated early)" : "");
+        return response(Map.of());
+    }
+
+    private void publish(WindowSummary summary) {
+        String message = writeJson(summary);
+        metrics.batchSize("publish", 1);
+        metrics.time("publish", () -> snsClient.publish(PublishRequest.builder()
+                .topicArn(fanoutTopicArn)
+                .message(message)
+                .messageAttributes(Map.of("eventName", MessageAttributeValue.builder()
+                        .dataType("String")
+                        .stringValue(SUMMARY_EVENT_NAME)
+                        .build()))
+                .build()));
+    }
+
+    private WindowSummary readState(Map<String, String> state) {
+        String json = state == null ? null : state.get(STATE_KEY);
+        if (json == null) {
+            return new WindowSummary();
+        }
+        try {
+            return objectMapper.readValue(json, WindowSummary.class);
+        } catch (JsonProcessingException e) {
+            // Only this handler writes the state, so this is a bug; dropping it would lose the window's counts
+            throw new IllegalStateException("Unreadable window state", e);
+        }
+    }
+
+    private String writeJson(WindowSummary summary) {
+        try {
+            return objectMapper.writeValueAsString(summary);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize window summary", e);
+        }
+    }
+
+    private static TimeWindowEventResponse response(Map<String, String> state) {
+        TimeWindowEventResponse response = new TimeWindowEventResponse();
+        response.setState(state);
+        response.setBatchItemFailures(List.of());
+        return response;
+    }
+}
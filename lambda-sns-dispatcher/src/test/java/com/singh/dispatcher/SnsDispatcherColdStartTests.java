@@ -0,0 +1,42 @@
+package com.singh.dispatcher;
+
+import com.singh.dispatcher.config.SnsDispatcherPriming;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the JVM-side cold start of the SNS dispatcher function: application context startup followed by
+ * the SnapStart priming pass. Runs offline; compare the logged numbers with and without
+ * {@code -Dspring.aot.enabled=true} (after building with {@code -Paot}).
+ */
+@Slf4j
+class SnsDispatcherColdStartTests {
+
+    @Test
+    void contextStartsAndPrimesWithoutNetwork() {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SnsDispatcherLambdaFunctionApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.cloud.aws.region.static=us-east-1",
+                        "aws.region=us-east-1",
+                        "spring.cloud.aws.credentials.access-key=test",
+                        "spring.cloud.aws.credentials.secret-key=test",
+                        "aws.sns.destination=arn:aws:sns:us-east-1:000000000000:cold-start",
+                        "aws.sns.fanout-destination=arn:aws:sns:us-east-1:000000000000:cold-start-fanout")
+                .run()) {
+            long started = System.nanoTime();
+            context.getBean(SnsDispatcherPriming.class).prime();
+            long primed = System.nanoTime();
+
+            log.info("SNS dispatcher cold start: context={} ms, priming={} ms",
+                    (started - start) / 1_000_000, (primed - started) / 1_000_000);
+            assertTrue(context.isActive());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.singh.dispatcher.fanout;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.dispatcher.dto.WindowSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WindowAggregatorTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WindowAggregator aggregator = new WindowAggregator(5);
+
+    @Test
+    void countsChangesAndTracksIdRange() {
+        WindowSummary summary = new WindowSummary();
+        int counted = aggregator.addAll(summary, List.of(
+                record("INSERT", "9", 1), record("INSERT", "10", 2), record("MODIFY", "2", 3),
+                record("REMOVE", "7", 4), record("INSERT", null, 5)));
+
+        assertEquals(4, counted);
+        assertEquals(2, summary.getInserts());
+        assertEquals(1, summary.getModifies());
+        assertEquals(1, summary.getRemoves());
+        // Numeric ids compare as numbers
+        assertEquals("2", summary.getMinId());
+        assertEquals("10", summary.getMaxId());
+        assertEquals("1", summary.getFirstSequenceNumber());
+        assertEquals("4", summary.getLastSequenceNumber());
+    }
+
+    @Test
+    void summaryDoesNotDependOnHowTheWindowIsSplit() throws Exception {
+        List<DynamodbStreamRecord> records = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            records.add(record(i % 3 == 0 ? "MODIFY" : "INSERT", Integer.toString(i), i));
+        }
+
+        WindowSummary single = new WindowSummary();
+        aggregator.addAll(single, records);
+
+        // Carried between invocations as JSON state, like Lambda does
+        WindowSummary split = new WindowSummary();
+        for (int from = 0; from < records.size(); from += 37) {
+            aggregator.addAll(split, records.subList(from, Math.min(from + 37, records.size())));
+            split = objectMapper.readValue(objectMapper.writeValueAsString(split), WindowSummary.class);
+        }
+
+        assertEquals(single, split);
+        assertEquals(records.size(), single.changes());
+        assertEquals(5, single.getSampleIds().stream().distinct().count());
+    }
+
+    private static DynamodbStreamRecord record(String eventName, String id, long sequenceNumber) {
+        StreamRecord streamRecord = new StreamRecord().withSequenceNumber(Long.toString(sequenceNumber));
+        if (id != null) {
+            Map<String, AttributeValue> key = Map.of("id", new AttributeValue().withS(id));
+            streamRecord.setKeys(key);
+            if (!"REMOVE".equals(eventName)) {
+                streamRecord.setNewImage(Map.of(
+                        "id", new AttributeValue().withS(id),
+                        "name", new AttributeValue().withS("User " + id),
+                        "email", new AttributeValue().withS("user" + id + "@example.com")));
+            }
+        }
+        DynamodbStreamRecord record = new DynamodbStreamRecord();
+        record.setEventName(eventName);
+        record.setDynamodb(streamRecord);
+        return record;
+    }
+}
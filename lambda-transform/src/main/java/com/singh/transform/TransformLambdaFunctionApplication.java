@@ -1,11 +1,14 @@
 package com.singh.transform;
 
+import com.singh.transform.config.TransformRuntimeHints;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @Slf4j
 @SpringBootApplication
+@ImportRuntimeHints(TransformRuntimeHints.class)
 
 public class TransformLambdaFunctionApplication {
 
@@ -0,0 +1,44 @@
+package com.singh.transform.config;
+
+import com.singh.progress.JobProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Job progress is counted when {@code pipeline.jobs.table} (or {@code JOB_TABLE_NAME}) names a table,
+ * for messages ingest tagged with a job id. The transform has no DynamoDB client of its own, so one is
+ * built here against the same endpoint and region as its SNS clients.
+ */
+@Slf4j
+@Configuration
+public class JobProgressConfig {
+
+    @Bean
+    public JobProgress jobProgress(@Value("${pipeline.jobs.table:${JOB_TABLE_NAME:}}") String tableName,
+                                   @Value("${pipeline.jobs.flush-interval:2s}") Duration flushInterval,
+                                   @Value("${pipeline.jobs.ttl:7d}") Duration ttl,
+                                   @Value("${spring.cloud.aws.dynamodb.endpoint:${AWS_ENDPOINT_URL:}}") String endpoint,
+                                   @Value("${spring.cloud.aws.region.static:${aws.region:}}") String region) {
+        if (!StringUtils.hasText(tableName)) {
+            return JobProgress.disabled(JobProgress.TRANSFORM);
+        }
+        DynamoDbClientBuilder builder = DynamoDbClient.builder();
+        if (StringUtils.hasText(region)) {
+            builder.region(Region.of(region));
+        }
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        log.info("Counting job progress in table {}", tableName);
+        return new JobProgress(builder.build(), tableName, JobProgress.TRANSFORM, flushInterval, ttl);
+    }
+}
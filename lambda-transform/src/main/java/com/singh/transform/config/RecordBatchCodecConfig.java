@@ -0,0 +1,20 @@
+package com.singh.transform.config;
+
+import com.singh.codec.RecordBatchCodec;
+import com.singh.codec.UserMigrationRecordSchema;
+import com.singh.csv.UserMigrationRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RecordBatchCodecConfig {
+
+    @Bean
+    public RecordBatchCodec<UserMigrationRecord> userMigrationRecordCodec(
+            @Value("${pipeline.codec.compression-threshold-bytes:1024}") int compressionThresholdBytes) {
+        return new RecordBatchCodec<>(new UserMigrationRecordSchema<>(UserMigrationRecord::getId,
+                UserMigrationRecord::getName, UserMigrationRecord::getEmail, UserMigrationRecord::new),
+                compressionThresholdBytes);
+    }
+}
@@ -0,0 +1,40 @@
+package com.singh.transform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+
+import java.net.URI;
+
+/**
+ * Asynchronous SNS client of the transform's output stage, pointed at the same endpoint and region
+ * as the {@code SnsClient} Spring Cloud AWS builds. One client serves every warm invocation, so its
+ * connections stay open between requests.
+ */
+@Slf4j
+@Configuration
+public class SnsAsyncClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public SnsAsyncClient snsAsyncClient(
+            @Value("${spring.cloud.aws.sns.endpoint:${AWS_ENDPOINT_URL:}}") String endpoint,
+            @Value("${spring.cloud.aws.region.static:${aws.region:}}") String region,
+            @Value("${transform.publish.max-connections:50}") int maxConnections) {
+        log.info("Creating async SNS client → endpoint={}, maxConnections={}",
+                StringUtils.hasText(endpoint) ? endpoint : "default", maxConnections);
+        var builder = SnsAsyncClient.builder()
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(maxConnections));
+        if (StringUtils.hasText(region)) {
+            builder.region(Region.of(region));
+        }
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.singh.transform.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.codec.RecordBatchCodec;
+import com.singh.csv.CsvParseResult;
+import com.singh.csv.UserMigrationCsvReader;
+import com.singh.csv.UserMigrationRecord;
+import com.singh.csv.rules.RuleOutcome;
+import com.singh.csv.rules.RulePipeline;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+
+/**
+ * Warms CSV parsing, the transform rules and record batch encoding before a SnapStart checkpoint.
+ * Nothing is published; only the request object is built.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransformPriming implements Resource {
+
+    private static final String SAMPLE_CSV = """
+            id,name,email
+            1,Priming User,Priming@Example.com
+            2,"Priming, User",priming.two@example.com
+            3,,not-an-email
+            """;
+
+    private final ObjectMapper objectMapper;
+    private final RecordBatchCodec<UserMigrationRecord> recordBatchCodec;
+    private final RulePipeline rulePipeline;
+
+    @PostConstruct
+    void register() {
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        prime();
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        log.info("Restored transform function from snapshot");
+    }
+
+    public void prime() {
+        long start = System.nanoTime();
+        CsvParseResult parsed = UserMigrationCsvReader.read(SAMPLE_CSV);
+        // The third row is rejected, which warms the rejected-row serialization too
+        RuleOutcome outcome = rulePipeline.apply(parsed.records());
+        try {
+            objectMapper.writeValueAsString(outcome.accepted());
+            objectMapper.writeValueAsString(outcome.rejected().get(0));
+            String message = recordBatchCodec.encodeToString(outcome.accepted());
+            PublishRequest.builder().topicArn("arn:aws:sns:us-east-1:000000000000:priming").message(message).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Transform priming failed", e);
+        }
+        log.info("Primed transform code paths in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,29 @@
+package com.singh.transform.config;
+
+import com.singh.csv.rules.RulePipeline;
+import com.singh.csv.rules.TransformRules;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TransformRulesConfig {
+
+    /**
+     * Resolves {@code transform.rules} once at startup, so a misspelled rule fails the deployment
+     * instead of the first invocation.
+     */
+    @Bean
+    public RulePipeline rulePipeline(@Value("${transform.rules:" + TransformRules.DEFAULT_RULES + "}") String rules,
+                                     @Value("${transform.chunk-size:2048}") int chunkSize,
+                                     @Value("${transform.parallelism:0}") int parallelism) {
+        try {
+            return new RulePipeline(
+                    TransformRules.byNames(rules),
+                    chunkSize,
+                    parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid transform rule configuration: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.singh.transform.config;
+
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.singh.csv.UserMigrationRecord;
+import com.singh.csv.rules.RejectedRow;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image ({@code -Pnative}): the SNS event model, the records and
+ * the rejected rows are bound by Jackson. The AWS SDK ships its own native-image metadata; only
+ * the interceptor lists it looks up as resources are added here.
+ */
+public class TransformRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bind(hints, SNSEvent.class);
+        bind(hints, UserMigrationRecord.class);
+        bind(hints, RejectedRow.class);
+        hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/services/*/execution.interceptors");
+    }
+
+    /** Registers {@code type} and its nested types, which the event classes use for their parts. */
+    private static void bind(RuntimeHints hints, Class<?> type) {
+        hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            bind(hints, nested);
+        }
+    }
+}
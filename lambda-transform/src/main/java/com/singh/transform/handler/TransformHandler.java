@@ -3,17 +3,34 @@ package com.singh.transform.handler;
 import com.amazonaws.services.lambda.runtime.events.SNSEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.singh.transform.dto.UserMigrationRecord;
+import com.singh.codec.PipelineMessages;
+import com.singh.codec.RecordBatchCodec;
+import com.singh.csv.CsvParseResult;
+import com.singh.csv.MalformedRow;
+import com.singh.csv.UserMigrationCsvReader;
+import com.singh.csv.UserMigrationRecord;
+import com.singh.csv.rules.RejectedRow;
+import com.singh.csv.rules.RuleOutcome;
+import com.singh.csv.rules.RulePipeline;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import com.singh.transform.publish.PublishReport;
+import com.singh.transform.publish.SnsRecordPublisher;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.SnsClient;
 import software.amazon.awssdk.services.sns.model.PublishRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 @Slf4j
@@ -21,8 +38,16 @@ import java.util.function.Function;
 @Component
 public class TransformHandler implements Function<SNSEvent, String> {
 
+    /** Headroom under the 256 KiB SNS message limit. */
+    private static final int MAX_REJECTED_MESSAGE_BYTES = 240_000;
+
     private final SnsClient snsClient;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SnsAsyncClient snsAsyncClient;
+    private final ObjectMapper objectMapper;
+    private final RecordBatchCodec<UserMigrationRecord> recordBatchCodec;
+    private final PipelineMetrics metrics;
+    private final RulePipeline rulePipeline;
+    private final JobProgress jobProgress;
 
     @Value("${SNS_TRANSFORM_TO_DYNAMO_TOPIC_ARN:}")
     private String topicArnFromEnv;
@@ -30,7 +55,34 @@ public class TransformHandler implements Function<SNSEvent, String> {
     @Value("${aws.sns.destination:}")
     private String topicArnFromProperties;
 
+    /** {@code binary} (compact record batch) or {@code json} (legacy array, for consumers not yet upgraded). */
+    @Value("${pipeline.codec.format:binary}")
+    private String payloadFormat;
+
+    @Value("${SNS_TRANSFORM_REJECTED_TOPIC_ARN:}")
+    private String rejectedTopicArnFromEnv;
+
+    @Value("${aws.sns.rejected-destination:}")
+    private String rejectedTopicArnFromProperties;
+
+    /** Largest published message; SNS caps a message at 256 KiB. */
+    @Value("${transform.publish.max-message-bytes:240000}")
+    private int maxMessageBytes;
+
+    /** Messages per PublishBatch call (1 to 10; 1 publishes them one by one). */
+    @Value("${transform.publish.batch-entries:10}")
+    private int batchEntries;
+
+    /** Publish calls outstanding at once while the next message is encoded. */
+    @Value("${transform.publish.max-in-flight:8}")
+    private int maxInFlight;
+
     private String targetTopicArn;
+    private String rejectedTopicArn;
+
+    private SnsRecordPublisher publisher;
+
+    private JobProgress rejectedProgress;
 
     @PostConstruct
     void resolveTopicArn() {
@@ -44,37 +96,168 @@ public class TransformHandler implements Function<SNSEvent, String> {
             throw new IllegalStateException("SNS topic ARN not configured. " +
                     "Set SNS_TRANSFORM_TO_DYNAMO_TOPIC_ARN environment variable or aws.sns.destination property.");
         }
+        if (StringUtils.hasText(rejectedTopicArnFromEnv)) {
+            rejectedTopicArn = rejectedTopicArnFromEnv;
+        } else if (StringUtils.hasText(rejectedTopicArnFromProperties)) {
+            rejectedTopicArn = rejectedTopicArnFromProperties;
+        }
+        if (!"binary".equals(payloadFormat) && !"json".equals(payloadFormat)) {
+            throw new IllegalStateException("pipeline.codec.format must be 'binary' or 'json', was " + payloadFormat);
+        }
+        try {
+            publisher = new SnsRecordPublisher(snsAsyncClient, targetTopicArn, this::encode, metrics,
+                    maxMessageBytes, batchEntries, maxInFlight);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid transform.publish configuration: " + e.getMessage(), e);
+        }
+        rejectedProgress = jobProgress.forStage(JobProgress.REJECTED);
     }
 
     @Override
     public String apply(SNSEvent event) {
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            List<RejectedRow> rejected = new ArrayList<>();
+            SnsRecordPublisher.Session publishing = publisher.open();
+            // Accepted and rejected rows per migration job, counted once the whole event has gone through
+            Map<String, long[]> jobRows = new HashMap<>();
+            int failed = 0;
+            for (SNSEvent.SNSRecord record : event.getRecords()) {
+                SNSEvent.SNS sns = record.getSNS();
+                try {
+                    transform(sns.getMessage(), attribute(sns, PipelineMessages.CHUNK_ID_ATTRIBUTE),
+                            attribute(sns, JobProgress.JOB_ID_ATTRIBUTE), publishing, rejected, jobRows);
+                } catch (RuntimeException e) {
+                    // Keep going so one bad message does not hold back the rest of the event
+                    failed++;
+                    log.error("Failed to transform SNS message {}", record.getSNS().getMessageId(), e);
+                }
+            }
+            PublishReport report = publishing.finish();
+            metrics.rowsOut(report.records());
 
-        String csv = event.getRecords().get(0).getSNS().getMessage();
-        log.info("CSV Payload:\n{}", csv);
+            if (failed > 0) {
+                throw new IllegalStateException(failed + " of " + event.getRecords().size()
+                        + " SNS messages failed to transform");
+            }
+            if (!report.failures().isEmpty()) {
+                // The retried event publishes every message again; the writer skips the parts it committed
+                throw new IllegalStateException(report.failures().size() + " of " + report.messages()
+                        + " messages were not published, first: " + report.failures().get(0));
+            }
+            // Only once the event went through, as a retried event would report its rejected rows again
+            publishRejected(rejected);
+            jobRows.forEach((jobId, rows) -> {
+                jobProgress.add(jobId, rows[0]);
+                rejectedProgress.add(jobId, rows[1]);
+            });
+            log.info("Published {} transformed records in {} messages ({} rejected) from {} SNS messages to {}",
+                    report.records(), report.messages(), rejected.size(), event.getRecords().size(), targetTopicArn);
+            return "Published " + report.records() + " transformed records (" + rejected.size()
+                    + " rejected) to SNS topic " + targetTopicArn;
+        } finally {
+            jobProgress.flush();
+            rejectedProgress.flush();
+        }
+    }
 
-        List<UserMigrationRecord> records = parseCsv(csv);
+    /**
+     * Parses one CSV message, runs it through the rule pipeline and hands the accepted records to
+     * {@code publishing}, tagged with the chunk id of the ingested chunk and the job id when it has
+     * them. Malformed and rejected rows are added to {@code rejected}, and both counts to the job's
+     * entry in {@code jobRows}.
+     */
+    private void transform(String csv, String chunkId, String jobId, SnsRecordPublisher.Session publishing,
+                           List<RejectedRow> rejected, Map<String, long[]> jobRows) {
+        log.debug("Received CSV payload of {} chars", csv.length());
+        // Chars rather than encoded bytes; the same for the ASCII CSVs this stage receives
+        metrics.bytesRead(csv.length());
 
-        // transformation
-        records.forEach(r -> r.setEmail(r.getEmail().toLowerCase()));
+        CsvParseResult parsed = metrics.time("parse", () -> parseCsv(csv));
+        metrics.rowsIn(parsed.records().size() + parsed.malformedRows().size());
+        for (MalformedRow malformed : parsed.malformedRows()) {
+            rejected.add(new RejectedRow("csv", "line " + malformed.lineNumber() + ": " + malformed.reason(), null));
+        }
 
-        // Convert to JSON for SNS publish
-        try {
-            String json = objectMapper.writeValueAsString(records);
+        RuleOutcome outcome = metrics.time("rules", () -> rulePipeline.apply(parsed.records()));
+        rejected.addAll(outcome.rejected());
+        // Encoded and sent while earlier messages are still in flight
+        publishing.publish(outcome.accepted(), chunkId, jobId);
+        if (jobId != null) {
+            long[] rows = jobRows.computeIfAbsent(jobId, id -> new long[2]);
+            rows[0] += outcome.accepted().size();
+            rows[1] += outcome.rejected().size() + parsed.malformedRows().size();
+        }
+    }
 
-            snsClient.publish(PublishRequest.builder().topicArn(targetTopicArn).message(json).build());
+    /**
+     * Publishes rejected rows as JSON arrays to the rejected-rows topic, split to stay under the
+     * SNS message size limit. Without that topic they are only logged. Called once every record of
+     * the event has been published, so Lambda retries of a failed event do not repeat them.
+     */
+    private void publishRejected(List<RejectedRow> rejected) {
+        if (rejected.isEmpty()) {
+            return;
+        }
+        metrics.batchSize("rejected", rejected.size());
+        if (rejectedTopicArn == null) {
+            log.warn("Rejected {} rows; first: {}", rejected.size(), rejected.get(0));
+            return;
+        }
 
-            log.info("Published transformed records to SNS topic {}", targetTopicArn);
-            return "Published transformed records to SNS topic " + targetTopicArn;
+        StringBuilder message = new StringBuilder();
+        int messageBytes = 0;
+        for (RejectedRow row : rejected) {
+            String json = toJson(row);
+            int jsonBytes = json.getBytes(StandardCharsets.UTF_8).length;
+            if (messageBytes > 0 && messageBytes + jsonBytes + 2 > MAX_REJECTED_MESSAGE_BYTES) {
+                publishRejectedMessage(message);
+                message.setLength(0);
+                messageBytes = 0;
+            }
+            message.append(message.length() == 0 ? '[' : ',').append(json);
+            messageBytes += jsonBytes + 1;
+        }
+        publishRejectedMessage(message);
+    }
 
+    private void publishRejectedMessage(StringBuilder message) {
+        String body = message.append(']').toString();
+        metrics.time("publish-rejected", () ->
+                snsClient.publish(PublishRequest.builder().topicArn(rejectedTopicArn).message(body).build()));
+    }
+
+    private String toJson(RejectedRow row) {
+        try {
+            return objectMapper.writeValueAsString(row);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize rejected row", e);
+        }
+    }
+
+    /**
+     * String message attribute set by ingest: the chunk id, which the writer uses to skip chunks it has
+     * already committed, or the migration job id.
+     */
+    private static String attribute(SNSEvent.SNS sns, String name) {
+        if (sns.getMessageAttributes() == null) {
+            return null;
+        }
+        SNSEvent.MessageAttribute attribute = sns.getMessageAttributes().get(name);
+        return attribute == null ? null : attribute.getValue();
+    }
+
+    private String encode(List<UserMigrationRecord> records) {
+        if ("binary".equals(payloadFormat)) {
+            return recordBatchCodec.encodeToString(records);
+        }
+        try {
+            return objectMapper.writeValueAsString(records);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize records", e);
         }
     }
 
-    private List<UserMigrationRecord> parseCsv(String csv) {
-        return csv.lines().skip(1).map(line -> {
-            String[] parts = line.split(",");
-            return new UserMigrationRecord(parts[0], parts[1], parts[2]);
-        }).toList();
+    private CsvParseResult parseCsv(String csv) {
+        return UserMigrationCsvReader.read(csv);
     }
-}
\ No newline at end of file
+}
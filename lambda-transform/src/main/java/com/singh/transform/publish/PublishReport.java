@@ -0,0 +1,17 @@
+package com.singh.transform.publish;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link SnsRecordPublisher.Session}: records and messages SNS accepted, and every
+ * message it did not.
+ */
+public record PublishReport(long records, int messages, List<FailedMessage> failures) {
+
+    /**
+     * A message SNS did not accept. {@code chunkId} is the id it carried, {@code null} for
+     * messages of an input without one.
+     */
+    public record FailedMessage(String chunkId, int records, String reason) {
+    }
+}
@@ -0,0 +1,285 @@
+package com.singh.transform.publish;
+
+import com.singh.codec.PipelineMessages;
+import com.singh.csv.UserMigrationRecord;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Output stage of the transform: publishes accepted records to the writer topic through the
+ * asynchronous SNS client. Records are cut into messages of at most {@code maxMessageBytes}, small
+ * messages share a {@code PublishBatch} call, and up to {@code maxInFlight} calls are outstanding
+ * while the caller encodes the next message, so serialization overlaps the network round trips.
+ * <p>
+ * An input cut into several messages tags them {@code <chunkId>#0}, {@code <chunkId>#1}, ... in
+ * record order. The cut only depends on the records, so a retried input gets the same ids and the
+ * writer still recognises the parts it has committed. Every part keeps the job id of its input.
+ */
+@Slf4j
+public class SnsRecordPublisher {
+
+    /** SNS limits for one PublishBatch call; the byte limit covers all entries together. */
+    private static final int MAX_BATCH_ENTRIES = 10;
+    private static final int MAX_BATCH_BYTES = 240_000;
+    /** Attempts for batch entries SNS failed on its side; whole calls are retried by the SDK. */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final SnsAsyncClient sns;
+    private final String topicArn;
+    private final Function<List<UserMigrationRecord>, String> encoder;
+    private final PipelineMetrics metrics;
+    private final int maxMessageBytes;
+    private final int batchEntries;
+    private final int maxInFlight;
+
+    /**
+     * @param batchEntries messages per PublishBatch call, 1 to publish them one by one
+     */
+    public SnsRecordPublisher(SnsAsyncClient sns, String topicArn, Function<List<UserMigrationRecord>, String> encoder,
+                              PipelineMetrics metrics, int maxMessageBytes, int batchEntries, int maxInFlight) {
+        if (maxMessageBytes < 1 || maxMessageBytes > MAX_BATCH_BYTES) {
+            throw new IllegalArgumentException("maxMessageBytes must be between 1 and " + MAX_BATCH_BYTES);
+        }
+        if (batchEntries < 1 || batchEntries > MAX_BATCH_ENTRIES) {
+            throw new IllegalArgumentException("batchEntries must be between 1 and " + MAX_BATCH_ENTRIES);
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.sns = sns;
+        this.topicArn = topicArn;
+        this.encoder = encoder;
+        this.metrics = metrics;
+        this.maxMessageBytes = maxMessageBytes;
+        this.batchEntries = batchEntries;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** Starts publishing for one invocation. */
+    public Session open() {
+        return new Session();
+    }
+
+    /**
+     * Publishes from the thread that calls {@link #publish}; completions arrive on the SDK's threads.
+     * Not thread-safe.
+     */
+    public final class Session {
+
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private final List<CompletableFuture<Void>> calls = new ArrayList<>();
+        private final List<Message> pending = new ArrayList<>();
+        private final LongAdder publishedRecords = new LongAdder();
+        private final Queue<PublishReport.FailedMessage> failures = new ConcurrentLinkedQueue<>();
+        private int pendingBytes;
+        private int messages;
+
+        private Session() {
+        }
+
+        /**
+         * Encodes {@code records} into messages and hands them to the client. Returns once the last
+         * one is sent or waiting for a batch; blocks while {@code maxInFlight} calls are outstanding.
+         */
+        public void publish(List<UserMigrationRecord> records, String chunkId) {
+            publish(records, chunkId, null);
+        }
+
+        /**
+         * Like {@link #publish(List, String)} for records of the migration job {@code jobId}.
+         */
+        public void publish(List<UserMigrationRecord> records, String chunkId, String jobId) {
+            if (records.isEmpty()) {
+                return;
+            }
+            String body = metrics.time("serialize", () -> encoder.apply(records));
+            int bytes = PipelineMessages.utf8Length(body);
+            if (bytes <= maxMessageBytes || records.size() == 1) {
+                send(new Message(chunkId, jobId, body, bytes, records.size()));
+                return;
+            }
+            int[] part = {0};
+            publishParts(records, (bytes + maxMessageBytes - 1) / maxMessageBytes, chunkId, jobId, part);
+        }
+
+        /**
+         * Waits for every call and reports what SNS accepted.
+         */
+        public PublishReport finish() {
+            flush();
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+            return new PublishReport(publishedRecords.sum(), messages, List.copyOf(failures));
+        }
+
+        /** Cuts records into about {@code slices} messages, halving any that still come out too large. */
+        private void publishParts(List<UserMigrationRecord> records, int slices, String chunkId, String jobId,
+                                  int[] part) {
+            int sliceSize = (records.size() + slices - 1) / slices;
+            for (int from = 0; from < records.size(); from += sliceSize) {
+                List<UserMigrationRecord> slice = records.subList(from, Math.min(from + sliceSize, records.size()));
+                String body = metrics.time("serialize", () -> encoder.apply(slice));
+                int bytes = PipelineMessages.utf8Length(body);
+                if (bytes > maxMessageBytes && slice.size() > 1) {
+                    publishParts(slice, 2, chunkId, jobId, part);
+                } else {
+                    String partId = chunkId == null ? null : chunkId + "#" + part[0];
+                    part[0]++;
+                    send(new Message(partId, jobId, body, bytes, slice.size()));
+                }
+            }
+        }
+
+        private void send(Message message) {
+            messages++;
+            metrics.batchSize("publish", message.records());
+            if (batchEntries == 1 || message.bytes() > MAX_BATCH_BYTES / 2) {
+                // Nothing else would fit next to it
+                flush();
+                call(List.of(message));
+                return;
+            }
+            if (pending.size() == batchEntries || pendingBytes + message.bytes() > MAX_BATCH_BYTES) {
+                flush();
+            }
+            pending.add(message);
+            pendingBytes += message.bytes();
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Message> batch = List.copyOf(pending);
+            pending.clear();
+            pendingBytes = 0;
+            call(batch);
+        }
+
+        private void call(List<Message> batch) {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to publish", e);
+            }
+            long start = System.nanoTime();
+            CompletableFuture<Void> call = batch.size() == 1 ? publishOne(batch.get(0)) : publishBatch(batch, 1);
+            calls.add(call.whenComplete((ignored, error) -> {
+                inFlight.release();
+                metrics.latency("publish", System.nanoTime() - start);
+            }));
+        }
+
+        private CompletableFuture<Void> publishOne(Message message) {
+            PublishRequest request = PublishRequest.builder()
+                    .topicArn(topicArn)
+                    .message(message.body())
+                    .messageAttributes(attributes(message))
+                    .build();
+            return invoke(() -> sns.publish(request)).handle((response, error) -> {
+                if (error == null) {
+                    publishedRecords.add(message.records());
+                } else {
+                    failed(message, reason(error));
+                }
+                return null;
+            });
+        }
+
+        private CompletableFuture<Void> publishBatch(List<Message> batch, int attempt) {
+            List<PublishBatchRequestEntry> entries = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(PublishBatchRequestEntry.builder()
+                        .id(Integer.toString(i))
+                        .message(batch.get(i).body())
+                        .messageAttributes(attributes(batch.get(i)))
+                        .build());
+            }
+            PublishBatchRequest request = PublishBatchRequest.builder()
+                    .topicArn(topicArn)
+                    .publishBatchRequestEntries(entries)
+                    .build();
+            return invoke(() -> sns.publishBatch(request)).handle((response, error) -> {
+                if (error != null) {
+                    batch.forEach(message -> failed(message, reason(error)));
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                for (PublishBatchResultEntry entry : response.successful()) {
+                    publishedRecords.add(batch.get(Integer.parseInt(entry.id())).records());
+                }
+                List<Message> retry = new ArrayList<>();
+                for (BatchResultErrorEntry entry : response.failed()) {
+                    Message message = batch.get(Integer.parseInt(entry.id()));
+                    if (!Boolean.TRUE.equals(entry.senderFault()) && attempt < MAX_ATTEMPTS) {
+                        retry.add(message);
+                    } else {
+                        failed(message, entry.code() + ": " + entry.message());
+                    }
+                }
+                if (retry.isEmpty()) {
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                metrics.retries("publish", retry.size());
+                return publishBatch(retry, attempt + 1);
+            }).thenCompose(Function.identity());
+        }
+
+        private void failed(Message message, String reason) {
+            log.warn("Failed to publish {} records (chunk {}): {}", message.records(), message.chunkId(), reason);
+            failures.add(new PublishReport.FailedMessage(message.chunkId(), message.records(), reason));
+        }
+    }
+
+    private static Map<String, MessageAttributeValue> attributes(Message message) {
+        Map<String, MessageAttributeValue> attributes = new HashMap<>(2);
+        if (message.chunkId() != null) {
+            attributes.put(PipelineMessages.CHUNK_ID_ATTRIBUTE, stringAttribute(message.chunkId()));
+        }
+        if (message.jobId() != null) {
+            attributes.put(JobProgress.JOB_ID_ATTRIBUTE, stringAttribute(message.jobId()));
+        }
+        return attributes;
+    }
+
+    private static MessageAttributeValue stringAttribute(String value) {
+        return MessageAttributeValue.builder().dataType("String").stringValue(value).build();
+    }
+
+    /** Turns an exception the client throws before sending into a failed call. */
+    private static <T> CompletableFuture<T> invoke(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static String reason(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private record Message(String chunkId, String jobId, String body, int bytes, int records) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.singh.transform.handler;
+
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.codec.PipelineMessages;
+import com.singh.csv.rules.RulePipeline;
+import com.singh.csv.rules.TransformRules;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import com.singh.transform.config.RecordBatchCodecConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransformHandlerTests {
+
+    private static final String REJECTED_TOPIC_ARN = "arn:aws:sns:us-east-1:000000000000:transform-rejected";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void retriedEventPublishesItsRejectedRowsOnce() throws Exception {
+        SnsClient snsClient = mock(SnsClient.class);
+        SnsAsyncClient snsAsyncClient = mock(SnsAsyncClient.class);
+        // The first record message of the first attempt is not accepted, so Lambda retries the event
+        when(snsAsyncClient.publish(any(PublishRequest.class))).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("SNS unavailable")),
+                CompletableFuture.completedFuture(PublishResponse.builder().messageId("m").build()));
+        TransformHandler handler = handler(snsClient, snsAsyncClient);
+        SNSEvent event = event(
+                "id,name,email\n1,Ann,ann@example.com\n2,Bob,not-an-email\n",
+                "id,name,email\n3,Cid,cid@example.com\n4,Dee,not-an-email\n");
+
+        assertThrows(IllegalStateException.class, () -> handler.apply(event));
+        verify(snsClient, never()).publish(any(PublishRequest.class));
+
+        handler.apply(event);
+
+        ArgumentCaptor<PublishRequest> rejected = ArgumentCaptor.forClass(PublishRequest.class);
+        verify(snsClient, times(1)).publish(rejected.capture());
+        assertEquals(REJECTED_TOPIC_ARN, rejected.getValue().topicArn());
+        List<String> emails = new ArrayList<>();
+        for (JsonNode row : objectMapper.readTree(rejected.getValue().message())) {
+            emails.add(row.get("record").get("email").asText());
+        }
+        assertEquals(List.of("not-an-email", "not-an-email"), emails);
+    }
+
+    private TransformHandler handler(SnsClient snsClient, SnsAsyncClient snsAsyncClient) {
+        RulePipeline rulePipeline = new RulePipeline(
+                TransformRules.byNames(TransformRules.DEFAULT_RULES), 16, 1);
+        TransformHandler handler = new TransformHandler(snsClient, snsAsyncClient, objectMapper,
+                new RecordBatchCodecConfig().userMigrationRecordCodec(-1),
+                new PipelineMetrics(new SimpleMeterRegistry(), PipelineMetrics.DEFAULT_NAMESPACE, "transform", null),
+                rulePipeline, JobProgress.disabled(JobProgress.TRANSFORM));
+        ReflectionTestUtils.setField(handler, "topicArnFromProperties",
+                "arn:aws:sns:us-east-1:000000000000:transform-to-dynamo");
+        ReflectionTestUtils.setField(handler, "rejectedTopicArnFromProperties", REJECTED_TOPIC_ARN);
+        ReflectionTestUtils.setField(handler, "payloadFormat", "json");
+        ReflectionTestUtils.setField(handler, "maxMessageBytes", 240_000);
+        // One message per call, so the first record message fails on its own
+        ReflectionTestUtils.setField(handler, "batchEntries", 1);
+        ReflectionTestUtils.setField(handler, "maxInFlight", 1);
+        handler.resolveTopicArn();
+        return handler;
+    }
+
+    private static SNSEvent event(String... chunks) {
+        List<SNSEvent.SNSRecord> records = new ArrayList<>();
+        for (int i = 0; i < chunks.length; i++) {
+            SNSEvent.MessageAttribute chunkId = new SNSEvent.MessageAttribute();
+            chunkId.setType("String");
+            chunkId.setValue("s3://bucket/users.csv#etag@" + i);
+            SNSEvent.SNS sns = new SNSEvent.SNS();
+            sns.setMessageId("m" + i);
+            sns.setMessage(chunks[i]);
+            sns.setMessageAttributes(Map.of(PipelineMessages.CHUNK_ID_ATTRIBUTE, chunkId));
+            SNSEvent.SNSRecord record = new SNSEvent.SNSRecord();
+            record.setSns(sns);
+            records.add(record);
+        }
+        SNSEvent event = new SNSEvent();
+        event.setRecords(records);
+        return event;
+    }
+}
@@ -0,0 +1,160 @@
+package com.singh.transform.publish;
+
+import com.singh.codec.PipelineMessages;
+import com.singh.csv.UserMigrationRecord;
+import com.singh.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnsRecordPublisherTests {
+
+    private static final String TOPIC_ARN = "arn:aws:sns:us-east-1:000000000000:transform-to-dynamo";
+
+    @Test
+    void cutsLargeInputIntoNumberedMessagesUnderTheLimit() {
+        RecordingSnsClient sns = new RecordingSnsClient(Set.of(), Set.of());
+        List<UserMigrationRecord> records = records(100);
+
+        SnsRecordPublisher.Session session = publisher(sns, 1000).open();
+        session.publish(records, "chunk-1");
+        session.publish(records(3), null);
+        PublishReport report = session.finish();
+
+        assertEquals(103, report.records());
+        assertEquals(List.of(), report.failures());
+        List<String> ids = sns.published.stream().map(Published::chunkId).filter(Objects::nonNull).toList();
+        assertTrue(ids.size() > 3);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("chunk-1#" + i, ids.get(i));
+        }
+        assertTrue(sns.published.stream().allMatch(message -> message.body().length() <= 1000));
+        // Every record is published exactly once, in order
+        assertEquals(encode(records) + encode(records(3)),
+                sns.published.stream().map(Published::body).collect(Collectors.joining()));
+        // Small messages share PublishBatch calls
+        assertTrue(sns.calls < report.messages());
+    }
+
+    @Test
+    void retriesEntriesSnsFailedAndReportsRejectedOnes() {
+        // The first part fails once on the SNS side, the second is rejected as the sender's fault
+        RecordingSnsClient sns = new RecordingSnsClient(Set.of("chunk-1#0"), Set.of("chunk-1#1"));
+
+        SnsRecordPublisher.Session session = publisher(sns, 1000).open();
+        session.publish(records(100), "chunk-1");
+        PublishReport report = session.finish();
+
+        assertEquals(1, report.failures().size());
+        assertEquals("chunk-1#1", report.failures().get(0).chunkId());
+        assertEquals(100 - report.failures().get(0).records(), report.records());
+        assertTrue(sns.published.stream().anyMatch(message -> "chunk-1#0".equals(message.chunkId())));
+    }
+
+    private static SnsRecordPublisher publisher(SnsAsyncClient sns, int maxMessageBytes) {
+        return new SnsRecordPublisher(sns, TOPIC_ARN, SnsRecordPublisherTests::encode,
+                new PipelineMetrics(new SimpleMeterRegistry(), PipelineMetrics.DEFAULT_NAMESPACE, "transform", null),
+                maxMessageBytes, 10, 2);
+    }
+
+    private static String encode(List<UserMigrationRecord> records) {
+        StringBuilder body = new StringBuilder();
+        for (UserMigrationRecord record : records) {
+            body.append(record.getId()).append(',').append(record.getName()).append(',')
+                    .append(record.getEmail()).append('\n');
+        }
+        return body.toString();
+    }
+
+    private static List<UserMigrationRecord> records(int count) {
+        List<UserMigrationRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new UserMigrationRecord(Integer.toString(i), "User " + i, "user" + i + "@example.com"));
+        }
+        return records;
+    }
+
+    private record Published(String chunkId, String body) {
+    }
+
+    private static final class RecordingSnsClient implements SnsAsyncClient {
+
+        private final Set<String> failOnce = ConcurrentHashMap.newKeySet();
+        private final Set<String> reject;
+        private final List<Published> published = new ArrayList<>();
+        private int calls;
+
+        private RecordingSnsClient(Set<String> failOnce, Set<String> reject) {
+            this.failOnce.addAll(failOnce);
+            this.reject = reject;
+        }
+
+        @Override
+        public synchronized CompletableFuture<PublishResponse> publish(PublishRequest request) {
+            calls++;
+            published.add(new Published(chunkId(request.messageAttributes()), request.message()));
+            return CompletableFuture.completedFuture(PublishResponse.builder().messageId("m").build());
+        }
+
+        @Override
+        public synchronized CompletableFuture<PublishBatchResponse> publishBatch(PublishBatchRequest request) {
+            calls++;
+            List<PublishBatchResultEntry> successful = new ArrayList<>();
+            List<BatchResultErrorEntry> failed = new ArrayList<>();
+            for (PublishBatchRequestEntry entry : request.publishBatchRequestEntries()) {
+                String chunkId = chunkId(entry.messageAttributes());
+                // Messages published without a chunk id are never failed; the sets do not take null
+                if (chunkId != null && failOnce.remove(chunkId)) {
+                    failed.add(error(entry, "InternalError", false));
+                } else if (chunkId != null && reject.contains(chunkId)) {
+                    failed.add(error(entry, "InvalidParameter", true));
+                } else {
+                    published.add(new Published(chunkId, entry.message()));
+                    successful.add(PublishBatchResultEntry.builder().id(entry.id()).messageId("m").build());
+                }
+            }
+            return CompletableFuture.completedFuture(PublishBatchResponse.builder()
+                    .successful(successful)
+                    .failed(failed)
+                    .build());
+        }
+
+        private static String chunkId(Map<String, MessageAttributeValue> attributes) {
+            MessageAttributeValue attribute = attributes.get(PipelineMessages.CHUNK_ID_ATTRIBUTE);
+            return attribute == null ? null : attribute.stringValue();
+        }
+
+        private static BatchResultErrorEntry error(PublishBatchRequestEntry entry, String code, boolean senderFault) {
+            return BatchResultErrorEntry.builder().id(entry.id()).code(code).senderFault(senderFault).build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
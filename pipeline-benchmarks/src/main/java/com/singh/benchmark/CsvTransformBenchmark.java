@@ -0,0 +1,57 @@
+package com.singh.benchmark;
+
+import com.singh.csv.CsvParseResult;
+import com.singh.csv.UserMigrationCsvReader;
+import com.singh.csv.rules.RuleOutcome;
+import com.singh.csv.rules.RulePipeline;
+import com.singh.csv.rules.TransformRules;
+import com.singh.e2e.load.SyntheticCsv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV parsing plus the default rule pipeline, as done by {@code TransformHandler}. Compare
+ * {@code parallelism=1} with the core count to see what parallel chunks buy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvTransformBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"1", "8"})
+    public int parallelism;
+
+    private String csv;
+    private RulePipeline rulePipeline;
+
+    @Setup
+    public void setUp() {
+        csv = SyntheticCsv.generate(rows);
+        rulePipeline = new RulePipeline(
+                TransformRules.byNames(Arrays.asList(TransformRules.DEFAULT_RULES.split(","))), 2048, parallelism);
+    }
+
+    @Benchmark
+    public RuleOutcome parseAndTransform() {
+        CsvParseResult parsed = UserMigrationCsvReader.read(csv);
+        return rulePipeline.apply(parsed.records());
+    }
+}
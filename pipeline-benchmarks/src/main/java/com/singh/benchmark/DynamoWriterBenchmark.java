@@ -0,0 +1,89 @@
+package com.singh.benchmark;
+
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.benchmark.support.WriterContext;
+import com.singh.csv.UserMigrationCsvReader;
+import com.singh.e2e.load.SyntheticCsv;
+import com.singh.transform.config.RecordBatchCodecConfig;
+import com.singh.writer.dto.UserMigrationRecord;
+import com.singh.writer.handler.DynamoWriterHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writer-side hot paths: {@link DynamoWriterHandler#parseRecords} on its own, and the full
+ * handler (parse + batch writes) against an in-memory DynamoDB stand-in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DynamoWriterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    /** Payload published by the transform stage: legacy JSON array or binary record batch. */
+    @Param({"json", "binary"})
+    public String format;
+
+    private WriterContext writerContext;
+    private DynamoWriterHandler handler;
+    private String payload;
+    private SNSEvent event;
+
+    @Setup
+    public void setUp() throws Exception {
+        writerContext = new WriterContext();
+        handler = writerContext.handler();
+        List<com.singh.csv.UserMigrationRecord> records =
+                UserMigrationCsvReader.read(SyntheticCsv.generate(rows)).records();
+        payload = "binary".equals(format)
+                ? new RecordBatchCodecConfig().userMigrationRecordCodec(1024).encodeToString(records)
+                : new ObjectMapper().writeValueAsString(records);
+
+        SNSEvent.SNS sns = new SNSEvent.SNS();
+        sns.setMessage(payload);
+        SNSEvent.SNSRecord record = new SNSEvent.SNSRecord();
+        record.setSns(sns);
+        event = new SNSEvent();
+        event.setRecords(List.of(record));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        writerContext.dynamoDbClient().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        writerContext.close();
+    }
+
+    @Benchmark
+    public List<UserMigrationRecord> parseRecords() {
+        return handler.parseRecords(payload);
+    }
+
+    @Benchmark
+    public String writeRecords() {
+        return handler.apply(event);
+    }
+}
@@ -0,0 +1,59 @@
+package com.singh.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.codec.RecordBatchCodec;
+import com.singh.csv.UserMigrationCsvReader;
+import com.singh.csv.UserMigrationRecord;
+import com.singh.e2e.load.SyntheticCsv;
+import com.singh.transform.config.RecordBatchCodecConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the transformed {@code List<UserMigrationRecord>} published by the transform stage:
+ * the legacy Jackson JSON array against the base64 binary record batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JsonSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecordBatchCodec<UserMigrationRecord> recordBatchCodec =
+            new RecordBatchCodecConfig().userMigrationRecordCodec(1024);
+    private List<UserMigrationRecord> records;
+
+    @Setup
+    public void setUp() {
+        records = UserMigrationCsvReader.read(SyntheticCsv.generate(rows)).records();
+    }
+
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(records);
+    }
+
+    @Benchmark
+    public String serializeRecordBatch() {
+        return recordBatchCodec.encodeToString(records);
+    }
+}
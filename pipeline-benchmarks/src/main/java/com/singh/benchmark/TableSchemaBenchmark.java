@@ -0,0 +1,105 @@
+package com.singh.benchmark;
+
+import com.singh.benchmark.support.BeanUserMigrationRecord;
+import com.singh.writer.dto.UserMigrationRecord;
+import com.singh.writer.schema.UserMigrationRecordTableSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DynamoDB mapping of the writer's record: the reflective bean schema against the static table schema.
+ * The {@code coldStart*} benchmarks run once per fresh JVM and cover schema creation plus the first
+ * round trip, as on the first write of a Lambda cold start; the {@code marshal*} benchmarks measure
+ * the steady-state per-item cost.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableSchemaBenchmark {
+
+    private final UserMigrationRecord record =
+            new UserMigrationRecord("100000", "User 0", "user.0@example.com");
+    private final BeanUserMigrationRecord beanRecord =
+            new BeanUserMigrationRecord("100000", "User 0", "user.0@example.com");
+
+    @State(Scope.Benchmark)
+    public static class Schemas {
+
+        TableSchema<UserMigrationRecord> staticSchema;
+        TableSchema<BeanUserMigrationRecord> beanSchema;
+
+        @Setup
+        public void setUp() {
+            staticSchema = UserMigrationRecordTableSchema.INSTANCE;
+            beanSchema = TableSchema.fromBean(BeanUserMigrationRecord.class);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(25)
+    public UserMigrationRecord coldStartStatic() {
+        TableSchema<UserMigrationRecord> schema = UserMigrationRecordTableSchema.INSTANCE;
+        return schema.mapToItem(schema.itemToMap(record, true));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(25)
+    public BeanUserMigrationRecord coldStartBean() {
+        TableSchema<BeanUserMigrationRecord> schema = TableSchema.fromBean(BeanUserMigrationRecord.class);
+        return schema.mapToItem(schema.itemToMap(beanRecord, true));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public Map<String, AttributeValue> marshalStatic(Schemas schemas) {
+        return schemas.staticSchema.itemToMap(record, true);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public Map<String, AttributeValue> marshalBean(Schemas schemas) {
+        return schemas.beanSchema.itemToMap(beanRecord, true);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public UserMigrationRecord roundTripStatic(Schemas schemas) {
+        return schemas.staticSchema.mapToItem(schemas.staticSchema.itemToMap(record, true));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public BeanUserMigrationRecord roundTripBean(Schemas schemas) {
+        return schemas.beanSchema.mapToItem(schemas.beanSchema.itemToMap(beanRecord, true));
+    }
+}
@@ -0,0 +1,50 @@
+package com.singh.benchmark.support;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+/**
+ * The writer's record as it was mapped before the static table schema: an annotated bean that the
+ * enhanced client introspects at runtime. Kept only as the baseline for {@code TableSchemaBenchmark}.
+ */
+@DynamoDbBean
+public class BeanUserMigrationRecord {
+
+    private String id;
+    private String name;
+    private String email;
+
+    public BeanUserMigrationRecord() {
+    }
+
+    public BeanUserMigrationRecord(String id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
+
+    @DynamoDbPartitionKey
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
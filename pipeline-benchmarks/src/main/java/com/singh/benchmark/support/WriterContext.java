@@ -0,0 +1,74 @@
+package com.singh.benchmark.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.e2e.stub.InMemoryDynamoDbClient;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.writer.batch.AdaptiveWriteLimiter;
+import com.singh.writer.batch.ChunkCommitLog;
+import com.singh.writer.batch.ContentHashFilter;
+import com.singh.writer.batch.DynamoBatchWriter;
+import com.singh.writer.codec.RecordPayloadParser;
+import com.singh.writer.config.RecordBatchCodecConfig;
+import com.singh.writer.handler.DynamoWriterHandler;
+import com.singh.writer.schema.UserMigrationRecordTableSchema;
+import io.awspring.cloud.dynamodb.DefaultDynamoDbTableNameResolver;
+import io.awspring.cloud.dynamodb.DefaultDynamoDbTableSchemaResolver;
+import io.awspring.cloud.dynamodb.DynamoDbTableNameResolver;
+import io.awspring.cloud.dynamodb.DynamoDbTableSchemaResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.env.MapPropertySource;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Spring context holding the real writer beans on top of an {@link InMemoryDynamoDbClient}.
+ */
+public final class WriterContext implements AutoCloseable {
+
+    private static final String UNTHROTTLED_WRITE_RATE = "1000000000";
+
+    private final InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient();
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+    public WriterContext() {
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+
+        // The in-memory table never throttles; start the write limiter at its ceiling instead of ramping up
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("writer-benchmark", Map.of(
+                "dynamo.write.rate.initial", UNTHROTTLED_WRITE_RATE,
+                "dynamo.write.rate.max", UNTHROTTLED_WRITE_RATE)));
+        context.registerBean("conversionService", ConversionService.class, ApplicationConversionService::getSharedInstance);
+        context.registerBean(DynamoDbClient.class, () -> dynamoDbClient);
+        context.registerBean(DynamoDbEnhancedClient.class, () -> enhancedClient);
+        context.registerBean(DynamoDbTableSchemaResolver.class, () -> new DefaultDynamoDbTableSchemaResolver(List.of(UserMigrationRecordTableSchema.INSTANCE)));
+        context.registerBean(DynamoDbTableNameResolver.class, () -> new DefaultDynamoDbTableNameResolver());
+        context.registerBean(ObjectMapper.class, () -> new ObjectMapper());
+        // Meters only; EMF lines would flood the benchmark output
+        context.registerBean(PipelineMetrics.class, () -> new PipelineMetrics(new SimpleMeterRegistry(),
+                PipelineMetrics.DEFAULT_NAMESPACE, "write", null));
+        context.register(RecordBatchCodecConfig.class, RecordPayloadParser.class, ContentHashFilter.class,
+                ChunkCommitLog.class, AdaptiveWriteLimiter.class, DynamoBatchWriter.class, DynamoWriterHandler.class);
+        context.refresh();
+    }
+
+    public DynamoWriterHandler handler() {
+        return context.getBean(DynamoWriterHandler.class);
+    }
+
+    public InMemoryDynamoDbClient dynamoDbClient() {
+        return dynamoDbClient;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
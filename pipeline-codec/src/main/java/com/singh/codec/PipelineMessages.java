@@ -0,0 +1,38 @@
+package com.singh.codec;
+
+/**
+ * Conventions shared by the SNS messages passed between the pipeline stages: the attribute naming
+ * the ingested chunk a message comes from, and how message sizes are counted against the SNS limit.
+ */
+public final class PipelineMessages {
+
+    /**
+     * SNS message attribute carrying the chunk id set by ingest, passed on by the transform to the
+     * writer, which skips chunks it has already committed.
+     */
+    public static final String CHUNK_ID_ATTRIBUTE = "chunkId";
+
+    private PipelineMessages() {
+    }
+
+    /**
+     * UTF-8 encoded length of {@code s} without allocating the encoded bytes.
+     */
+    public static int utf8Length(CharSequence s) {
+        int length = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
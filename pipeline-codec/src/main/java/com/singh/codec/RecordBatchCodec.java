@@ -0,0 +1,305 @@
+package com.singh.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary encoding for a batch of records, used between the transform and writer stages
+ * instead of a JSON array.
+ *
+ * <pre>
+ * batch   := magic "UMB" | version (1 byte) | flags (1 byte) | [uncompressed length varint] | body
+ * body    := field count varint | field name* | row count varint | row*
+ * row     := value * field count
+ * value   := varint (byte length + 1, 0 = null) | UTF-8 bytes
+ * </pre>
+ *
+ * The body is deflated when it reaches {@code compressionThresholdBytes}. SNS messages must be
+ * text, so {@link #encodeToString(List)} wraps the batch in base64; every such message starts
+ * with {@link #BASE64_PREFIX}, which is how consumers tell it apart from legacy JSON payloads.
+ * Instances are immutable and thread-safe.
+ */
+public final class RecordBatchCodec<T> {
+
+    public static final int VERSION = 1;
+    /** Base64 form of the magic bytes; exactly four characters because the magic is three bytes. */
+    public static final String BASE64_PREFIX = "VU1C";
+
+    private static final byte[] MAGIC = {'U', 'M', 'B'};
+    private static final int FLAG_DEFLATE = 1;
+    /** Upper bound for an inflated body, so a corrupt or hostile length cannot exhaust the heap. */
+    private static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+
+    private final RecordSchema<T> schema;
+    private final List<String> fieldNames;
+    private final int compressionThresholdBytes;
+
+    /**
+     * @param compressionThresholdBytes body size from which the batch is deflated; negative disables compression
+     */
+    public RecordBatchCodec(RecordSchema<T> schema, int compressionThresholdBytes) {
+        this.schema = schema;
+        this.fieldNames = List.copyOf(schema.fieldNames());
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+
+    public static boolean isEncoded(String message) {
+        return message != null && message.startsWith(BASE64_PREFIX);
+    }
+
+    public String encodeToString(List<T> records) {
+        return Base64.getEncoder().encodeToString(encode(records));
+    }
+
+    public byte[] encode(List<T> records) {
+        int fields = fieldNames.size();
+        ByteSink body = new ByteSink(64 + records.size() * fields * 16);
+        body.writeVarInt(fields);
+        for (String name : fieldNames) {
+            body.writeString(name);
+        }
+        body.writeVarInt(records.size());
+        for (T record : records) {
+            for (int i = 0; i < fields; i++) {
+                body.writeString(schema.field(record, i));
+            }
+        }
+
+        boolean compress = compressionThresholdBytes >= 0 && body.size() >= compressionThresholdBytes;
+        ByteSink out = new ByteSink(compress ? body.size() / 2 + 16 : body.size() + 8);
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        out.write(compress ? FLAG_DEFLATE : 0);
+        if (compress) {
+            out.writeVarInt(body.size());
+            deflate(body, out);
+        } else {
+            out.write(body.buffer(), 0, body.size());
+        }
+        return out.toByteArray();
+    }
+
+    public List<T> decode(String message) {
+        try {
+            return decode(Base64.getDecoder().decode(message));
+        } catch (IllegalArgumentException e) {
+            if (e instanceof RecordBatchFormatException formatException) {
+                throw formatException;
+            }
+            throw new RecordBatchFormatException("Record batch is not valid base64", e);
+        }
+    }
+
+    public List<T> decode(byte[] batch) {
+        if (batch.length < MAGIC.length + 2
+                || !Arrays.equals(batch, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new RecordBatchFormatException("Payload is not a record batch");
+        }
+        ByteSource header = new ByteSource(batch, MAGIC.length, batch.length);
+        int version = header.read();
+        if (version < 1 || version > VERSION) {
+            throw new RecordBatchFormatException("Unsupported record batch version " + version);
+        }
+        int flags = header.read();
+
+        ByteSource body;
+        if ((flags & FLAG_DEFLATE) != 0) {
+            int length = header.readVarInt();
+            if (length > MAX_BODY_BYTES) {
+                throw new RecordBatchFormatException("Record batch body of " + length + " bytes exceeds limit");
+            }
+            body = new ByteSource(inflate(batch, header.position(), length), 0, length);
+        } else {
+            body = header;
+        }
+        return readBody(body);
+    }
+
+    private List<T> readBody(ByteSource body) {
+        int wireFields = body.readVarInt();
+        int[] target = new int[wireFields];
+        for (int i = 0; i < wireFields; i++) {
+            target[i] = fieldNames.indexOf(body.readString());
+        }
+
+        int rows = body.readVarInt();
+        // every value takes at least one byte, so a larger row count can only come from a corrupt batch
+        if ((long) rows * wireFields > body.remaining()) {
+            throw new RecordBatchFormatException("Record batch declares " + rows + " rows but is truncated");
+        }
+        List<T> records = new ArrayList<>(Math.min(rows, body.remaining() + 1));
+        for (int r = 0; r < rows; r++) {
+            String[] values = new String[fieldNames.size()];
+            for (int i = 0; i < wireFields; i++) {
+                String value = body.readString();
+                if (target[i] >= 0) {
+                    values[target[i]] = value;
+                }
+            }
+            records.add(schema.create(values));
+        }
+        return records;
+    }
+
+    private static void deflate(ByteSink body, ByteSink out) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body.buffer(), 0, body.size());
+            deflater.finish();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] batch, int offset, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(batch, offset, batch.length - offset);
+            byte[] body = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(body, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new RecordBatchFormatException("Record batch body inflated to " + read
+                        + " bytes, expected " + length);
+            }
+            return body;
+        } catch (DataFormatException e) {
+            throw new RecordBatchFormatException("Record batch body is not valid deflate data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** Growable byte buffer; unlike {@code ByteArrayOutputStream} it is unsynchronized and exposes its array. */
+    private static final class ByteSink {
+
+        private byte[] buffer;
+        private int size;
+
+        ByteSink(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void write(int b) {
+            ensure(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class ByteSource {
+
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        ByteSource(byte[] buffer, int position, int limit) {
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        int read() {
+            if (position >= limit) {
+                throw new RecordBatchFormatException("Record batch is truncated");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = read();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        break;
+                    }
+                    return value;
+                }
+            }
+            throw new RecordBatchFormatException("Malformed varint in record batch");
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > limit - position) {
+                throw new RecordBatchFormatException("Record batch is truncated");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        int position() {
+            return position;
+        }
+
+        int remaining() {
+            return limit - position;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.singh.codec;
+
+/**
+ * Thrown when a payload is not a valid record batch for this codec version.
+ */
+public class RecordBatchFormatException extends IllegalArgumentException {
+
+    public RecordBatchFormatException(String message) {
+        super(message);
+    }
+
+    public RecordBatchFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,20 @@
+package com.singh.codec;
+
+import java.util.List;
+
+/**
+ * Maps a record type to the ordered, named string fields written by {@link RecordBatchCodec}.
+ * Field names travel in every batch header, so producers and consumers may add, drop or
+ * reorder fields independently: unknown fields are skipped and missing ones decode as {@code null}.
+ */
+public interface RecordSchema<T> {
+
+    List<String> fieldNames();
+
+    String field(T record, int index);
+
+    /**
+     * @param fields values in {@link #fieldNames()} order; absent fields are {@code null}
+     */
+    T create(String[] fields);
+}
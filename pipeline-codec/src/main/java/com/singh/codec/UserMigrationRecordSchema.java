@@ -0,0 +1,55 @@
+package com.singh.codec;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Field layout of a user migration record in the batches the transform publishes and the dynamo
+ * writer reads. Each stage has its own record class and binds it here with accessors and a
+ * constructor, so both sides share one list of field names.
+ */
+public final class UserMigrationRecordSchema<T> implements RecordSchema<T> {
+
+    public static final List<String> FIELDS = List.of("id", "name", "email");
+
+    private final Function<T, String> id;
+    private final Function<T, String> name;
+    private final Function<T, String> email;
+    private final Factory<T> factory;
+
+    public UserMigrationRecordSchema(Function<T, String> id, Function<T, String> name, Function<T, String> email,
+                                     Factory<T> factory) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.factory = factory;
+    }
+
+    @Override
+    public List<String> fieldNames() {
+        return FIELDS;
+    }
+
+    @Override
+    public String field(T record, int index) {
+        return switch (index) {
+            case 0 -> id.apply(record);
+            case 1 -> name.apply(record);
+            case 2 -> email.apply(record);
+            default -> throw new IndexOutOfBoundsException(index);
+        };
+    }
+
+    @Override
+    public T create(String[] fields) {
+        return factory.create(fields[0], fields[1], fields[2]);
+    }
+
+    /**
+     * Builds a record from its decoded fields, any of which may be {@code null}.
+     */
+    @FunctionalInterface
+    public interface Factory<T> {
+        T create(String id, String name, String email);
+    }
+}
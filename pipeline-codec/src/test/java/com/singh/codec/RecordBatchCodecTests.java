@@ -0,0 +1,106 @@
+package com.singh.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordBatchCodecTests {
+
+    private static final RecordSchema<String[]> USER = schema("id", "name", "email");
+
+    @Test
+    void roundTripsNullsAndUnicode() {
+        RecordBatchCodec<String[]> codec = new RecordBatchCodec<>(USER, -1);
+        List<String[]> records = List.of(
+                new String[]{"1", "Zoë, \"Z\" Smith", "zoe@example.com"},
+                new String[]{"2", null, ""});
+
+        String message = codec.encodeToString(records);
+
+        assertTrue(RecordBatchCodec.isEncoded(message));
+        List<String[]> decoded = codec.decode(message);
+        assertEquals(2, decoded.size());
+        assertArrayEquals(records.get(0), decoded.get(0));
+        assertArrayEquals(records.get(1), decoded.get(1));
+    }
+
+    @Test
+    void compressesLargeBatches() {
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            records.add(new String[]{String.valueOf(i), "User " + i, "user" + i + "@example.com"});
+        }
+
+        byte[] plain = new RecordBatchCodec<>(USER, -1).encode(records);
+        RecordBatchCodec<String[]> compressing = new RecordBatchCodec<>(USER, 1024);
+        byte[] compressed = compressing.encode(records);
+
+        assertTrue(compressed.length < plain.length / 2);
+        List<String[]> decoded = compressing.decode(compressed);
+        assertEquals(1000, decoded.size());
+        assertArrayEquals(records.get(999), decoded.get(999));
+    }
+
+    @Test
+    void mapsFieldsByNameAcrossSchemaVersions() {
+        RecordBatchCodec<String[]> producer = new RecordBatchCodec<>(schema("email", "id", "status"), -1);
+        RecordBatchCodec<String[]> consumer = new RecordBatchCodec<>(USER, -1);
+
+        String[] decoded = consumer.decode(producer.encode(List.<String[]>of(new String[]{"a@example.com", "7", "NEW"}))).get(0);
+
+        assertEquals("7", decoded[0]);
+        assertNull(decoded[1]);
+        assertEquals("a@example.com", decoded[2]);
+    }
+
+    @Test
+    void rejectsJsonAndTruncatedBatches() {
+        RecordBatchCodec<String[]> codec = new RecordBatchCodec<>(USER, 0);
+        byte[] batch = codec.encode(List.<String[]>of(new String[]{"1", "Name", "n@example.com"}));
+
+        assertThrows(RecordBatchFormatException.class, () -> codec.decode("[{\"id\":\"1\"}]"));
+        assertThrows(RecordBatchFormatException.class, () -> codec.decode(Arrays.copyOf(batch, batch.length - 3)));
+    }
+
+    @Test
+    void userMigrationRecordsOfDifferentClassesShareOneLayout() {
+        RecordBatchCodec<User> producer = new RecordBatchCodec<>(
+                new UserMigrationRecordSchema<>(User::id, User::name, User::email, User::new), -1);
+        RecordBatchCodec<String[]> consumer = new RecordBatchCodec<>(schema("email", "id"), -1);
+
+        byte[] batch = producer.encode(List.of(new User("1", null, "ann@example.com")));
+
+        assertEquals(List.of(new User("1", null, "ann@example.com")), producer.decode(batch));
+        assertArrayEquals(new String[]{"ann@example.com", "1"}, consumer.decode(batch).get(0));
+    }
+
+    private record User(String id, String name, String email) {
+    }
+
+    private static RecordSchema<String[]> schema(String... names) {
+        return new RecordSchema<>() {
+            @Override
+            public List<String> fieldNames() {
+                return List.of(names);
+            }
+
+            @Override
+            public String field(String[] record, int index) {
+                return record[index];
+            }
+
+            @Override
+            public String[] create(String[] fields) {
+                return fields;
+            }
+        };
+    }
+}
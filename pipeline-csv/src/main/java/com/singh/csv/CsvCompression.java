@@ -0,0 +1,155 @@
+package com.singh.csv;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codecs a CSV object may be stored with, named after their {@code Content-Encoding} token. The
+ * uploader compresses with them; ingest and reconciliation recognise them by the object's metadata
+ * or else by the magic bytes it starts with, and inflate as they read, never the object as a whole.
+ */
+public enum CsvCompression {
+
+    NONE(null, new byte[0]) {
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) {
+            return in;
+        }
+    },
+    GZIP("gzip", new byte[]{0x1f, (byte) 0x8b}) {
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 64 * 1024);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            // Also reads the concatenated members that parallel gzip tools write
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+    },
+    ZSTD("zstd", new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd}) {
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new ZstdOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new ZstdInputStream(in);
+        }
+    };
+
+    /** Bytes needed to recognise every codec by its magic number. */
+    public static final int MAGIC_BYTES = 4;
+
+    private final String contentEncoding;
+    private final byte[] magic;
+
+    CsvCompression(String contentEncoding, byte[] magic) {
+        this.contentEncoding = contentEncoding;
+        this.magic = magic;
+    }
+
+    /** {@code Content-Encoding} of objects stored with this codec; {@code null} for {@link #NONE}. */
+    public String contentEncoding() {
+        return contentEncoding;
+    }
+
+    /** Wraps {@code out} so that what is written to it comes out compressed. */
+    public abstract OutputStream compress(OutputStream out) throws IOException;
+
+    /** Wraps {@code in}, which holds the stored bytes, to read the CSV text. */
+    public abstract InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Codec named by a {@code Content-Encoding} header or the {@code aws.s3.upload.compression}
+     * property; blank, {@code none} and {@code identity} mean uncompressed.
+     *
+     * @throws IllegalArgumentException for any other codec
+     */
+    public static CsvCompression fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return NONE;
+        }
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "none", "identity" -> NONE;
+            case "gzip", "x-gzip" -> GZIP;
+            case "zstd" -> ZSTD;
+            default -> throw new IllegalArgumentException("Unsupported compression '" + name
+                    + "'; use gzip or zstd");
+        };
+    }
+
+    /**
+     * Codec declared by a stored object's {@code Content-Encoding} (a list, of which unknown codings
+     * are ignored) or compressed {@code Content-Type}; {@link #NONE} when it declares none, which does
+     * not rule out a compressed body.
+     */
+    public static CsvCompression fromMetadata(String contentEncoding, String contentType) {
+        if (contentEncoding != null) {
+            for (String coding : contentEncoding.split(",")) {
+                switch (coding.trim().toLowerCase(Locale.ROOT)) {
+                    case "gzip", "x-gzip" -> {
+                        return GZIP;
+                    }
+                    case "zstd" -> {
+                        return ZSTD;
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("application/gzip") || type.startsWith("application/x-gzip")) {
+            return GZIP;
+        }
+        return type.startsWith("application/zstd") ? ZSTD : NONE;
+    }
+
+    /** Codec whose magic number {@code head} starts with, or {@link #NONE}. */
+    public static CsvCompression detect(byte[] head) {
+        for (CsvCompression compression : values()) {
+            if (compression != NONE && startsWith(head, compression.magic)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /** Like {@link #detect(byte[])} for the start of {@code in}, which is left where it was. */
+    public static CsvCompression detect(BufferedInputStream in) throws IOException {
+        in.mark(MAGIC_BYTES);
+        try {
+            return detect(in.readNBytes(MAGIC_BYTES));
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
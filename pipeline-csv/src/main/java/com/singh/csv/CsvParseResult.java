@@ -0,0 +1,9 @@
+package com.singh.csv;
+
+import java.util.List;
+
+/**
+ * Records mapped from a CSV payload, plus the rows that were skipped as malformed.
+ */
+public record CsvParseResult(List<UserMigrationRecord> records, List<MalformedRow> malformedRows) {
+}
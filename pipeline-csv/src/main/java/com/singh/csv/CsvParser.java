@@ -0,0 +1,169 @@
+package com.singh.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Streaming RFC-4180 parser. Handles quoted fields, escaped quotes ({@code ""}), delimiters and
+ * line breaks inside quotes, and LF, CRLF or CR row endings. The read buffer and field builder
+ * are reused across rows; the only per-row allocations are the field strings themselves.
+ * <p>
+ * Malformed input never throws: the row is still returned and {@link #rowError()} explains what
+ * was wrong with it, so callers can report it and carry on.
+ */
+public final class CsvParser {
+
+    private static final int EOF = -1;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder(64);
+
+    private int position;
+    private int limit;
+    private long lineNumber = 1;
+    private long rowLineNumber;
+    private String rowError;
+
+    public CsvParser(Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvParser(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next row into {@code fields} (cleared first). Blank lines are skipped.
+     *
+     * @return {@code false} once the input is exhausted
+     */
+    public boolean readRow(List<String> fields) throws IOException {
+        fields.clear();
+        rowError = null;
+
+        int c = next();
+        while (c == '\n' || c == '\r') {
+            c = next();
+        }
+        if (c == EOF) {
+            return false;
+        }
+        rowLineNumber = lineNumber;
+
+        while (true) {
+            field.setLength(0);
+            if (c == '"') {
+                c = readQuoted();
+            } else {
+                c = readUnquoted(c);
+            }
+            fields.add(field.toString());
+
+            if (c == delimiter) {
+                c = next();
+                continue;
+            }
+            if (c == '\r' && peek() == '\n') {
+                next();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Problem found in the row returned by the last {@link #readRow} call, or {@code null}.
+     */
+    public String rowError() {
+        return rowError;
+    }
+
+    /**
+     * Line on which the row returned by the last {@link #readRow} call started (1-based).
+     */
+    public long rowLineNumber() {
+        return rowLineNumber;
+    }
+
+    private int readQuoted() throws IOException {
+        int c;
+        while (true) {
+            c = next();
+            if (c == EOF) {
+                markError("Unterminated quoted field");
+                return EOF;
+            }
+            if (c == '"') {
+                c = next();
+                if (c != '"') {
+                    break;
+                }
+            }
+            field.append((char) c);
+        }
+        if (!isFieldEnd(c)) {
+            markError("Unexpected character after closing quote");
+            while (!isFieldEnd(c)) {
+                field.append((char) c);
+                c = next();
+            }
+        }
+        return c;
+    }
+
+    private int readUnquoted(int c) throws IOException {
+        while (!isFieldEnd(c)) {
+            if (c == '"') {
+                markError("Unexpected quote in unquoted field");
+            }
+            field.append((char) c);
+            c = next();
+        }
+        return c;
+    }
+
+    private boolean isFieldEnd(int c) {
+        return c == delimiter || c == '\n' || c == '\r' || c == EOF;
+    }
+
+    private void markError(String message) {
+        if (rowError == null) {
+            rowError = message;
+        }
+    }
+
+    private int next() throws IOException {
+        if (position >= limit && !fill()) {
+            return EOF;
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            lineNumber++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position >= limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,7 @@
+package com.singh.csv;
+
+/**
+ * A CSV row that could not be mapped, with the line it started on and why it was rejected.
+ */
+public record MalformedRow(long lineNumber, String reason) {
+}
@@ -0,0 +1,86 @@
+package com.singh.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Maps CSV rows onto {@link UserMigrationRecord} using the header row to locate the
+ * {@code id}, {@code name} and {@code email} columns, so column order and extra columns
+ * do not matter. Rows that cannot be mapped are collected as {@link MalformedRow}s.
+ */
+public final class UserMigrationCsvReader {
+
+    private static final char BOM = '\uFEFF';
+
+    private UserMigrationCsvReader() {
+    }
+
+    public static CsvParseResult read(CharSequence csv) {
+        try {
+            return read(new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static CsvParseResult read(Reader reader) throws IOException {
+        List<UserMigrationRecord> records = new ArrayList<>();
+        List<MalformedRow> malformedRows = new ArrayList<>();
+        read(reader, records::add, malformedRows::add);
+        return new CsvParseResult(records, malformedRows);
+    }
+
+    /**
+     * Streams the rows to {@code records} and {@code malformedRows} as they are parsed, for input
+     * too large to collect; stops early once {@code records} returns {@code false}.
+     */
+    public static void read(Reader reader, Predicate<UserMigrationRecord> records,
+                            Consumer<MalformedRow> malformedRows) throws IOException {
+        CsvParser parser = new CsvParser(reader);
+        List<String> fields = new ArrayList<>(8);
+
+        if (!parser.readRow(fields)) {
+            return;
+        }
+        int columns = fields.size();
+        int idColumn = -1;
+        int nameColumn = -1;
+        int emailColumn = -1;
+        for (int i = 0; i < columns; i++) {
+            String column = fields.get(i);
+            if (i == 0 && !column.isEmpty() && column.charAt(0) == BOM) {
+                column = column.substring(1);
+            }
+            switch (column.trim().toLowerCase(Locale.ROOT)) {
+                case "id" -> idColumn = i;
+                case "name" -> nameColumn = i;
+                case "email" -> emailColumn = i;
+                default -> {
+                    // extra columns are ignored
+                }
+            }
+        }
+        if (idColumn < 0 || nameColumn < 0 || emailColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain id, name and email columns but was " + fields);
+        }
+
+        while (parser.readRow(fields)) {
+            if (parser.rowError() != null) {
+                malformedRows.accept(new MalformedRow(parser.rowLineNumber(), parser.rowError()));
+            } else if (fields.size() != columns) {
+                malformedRows.accept(new MalformedRow(parser.rowLineNumber(),
+                        "Expected " + columns + " fields but found " + fields.size()));
+            } else if (!records.test(new UserMigrationRecord(
+                    fields.get(idColumn), fields.get(nameColumn), fields.get(emailColumn)))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.singh.csv;
+
+import java.util.Objects;
+
+/**
+ * One user row of the migration CSV, as read from the upload and passed through the transform rules.
+ */
+public class UserMigrationRecord {
+
+    private String id;
+    private String name;
+    private String email;
+
+    public UserMigrationRecord(String id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserMigrationRecord other)) {
+            return false;
+        }
+        return Objects.equals(id, other.id) && Objects.equals(name, other.name) && Objects.equals(email, other.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, email);
+    }
+
+    @Override
+    public String toString() {
+        return "UserMigrationRecord(id=" + id + ", name=" + name + ", email=" + email + ")";
+    }
+}
@@ -0,0 +1,10 @@
+package com.singh.csv.rules;
+
+import com.singh.csv.UserMigrationRecord;
+
+/**
+ * A row that was not passed on to the writer: the rule that rejected it, why, and the record as it
+ * was at that point. Rows that could not be parsed at all carry rule {@code csv} and no record.
+ */
+public record RejectedRow(String rule, String reason, UserMigrationRecord record) {
+}
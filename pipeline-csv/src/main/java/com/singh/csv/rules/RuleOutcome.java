@@ -0,0 +1,11 @@
+package com.singh.csv.rules;
+
+import com.singh.csv.UserMigrationRecord;
+
+import java.util.List;
+
+/**
+ * Records that passed every rule, in input order, and the rows that were rejected.
+ */
+public record RuleOutcome(List<UserMigrationRecord> accepted, List<RejectedRow> rejected) {
+}
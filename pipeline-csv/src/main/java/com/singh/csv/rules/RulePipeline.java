@@ -0,0 +1,97 @@
+package com.singh.csv.rules;
+
+import com.singh.csv.UserMigrationRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Applies an ordered list of {@link TransformRule}s to every record. The first rule that rejects a
+ * record stops it; the record goes to the rejected rows instead of failing the batch. Batches
+ * larger than {@code chunkSize} are cut into chunks that run in parallel, at most
+ * {@code parallelism} at once, and the accepted records keep their input order.
+ */
+public class RulePipeline {
+
+    private final List<TransformRule> rules;
+    private final int chunkSize;
+    private final Semaphore permits;
+
+    public RulePipeline(List<TransformRule> rules, int chunkSize, int parallelism) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("chunkSize and parallelism must be at least 1");
+        }
+        this.rules = List.copyOf(rules);
+        this.chunkSize = chunkSize;
+        this.permits = new Semaphore(parallelism);
+    }
+
+    public List<String> ruleNames() {
+        return rules.stream().map(TransformRule::name).toList();
+    }
+
+    public RuleOutcome apply(List<UserMigrationRecord> records) {
+        if (records.size() <= chunkSize) {
+            return applyChunk(records);
+        }
+
+        List<Future<RuleOutcome>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int from = 0; from < records.size(); from += chunkSize) {
+                List<UserMigrationRecord> chunk = records.subList(from, Math.min(from + chunkSize, records.size()));
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return applyChunk(chunk);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        List<UserMigrationRecord> accepted = new ArrayList<>(records.size());
+        List<RejectedRow> rejected = new ArrayList<>();
+        for (Future<RuleOutcome> future : futures) {
+            RuleOutcome outcome;
+            try {
+                outcome = future.resultNow();
+            } catch (IllegalStateException e) {
+                // A rule that throws is a bug, not bad data: fail the batch so it is retried
+                Throwable cause = future.state() == Future.State.FAILED ? future.exceptionNow() : e;
+                throw new IllegalStateException("Transform rule chunk did not complete", cause);
+            }
+            accepted.addAll(outcome.accepted());
+            rejected.addAll(outcome.rejected());
+        }
+        return new RuleOutcome(accepted, rejected);
+    }
+
+    private RuleOutcome applyChunk(List<UserMigrationRecord> chunk) {
+        List<UserMigrationRecord> accepted = new ArrayList<>(chunk.size());
+        List<RejectedRow> rejected = new ArrayList<>();
+        for (UserMigrationRecord record : chunk) {
+            RejectedRow rejection = applyRules(record);
+            if (rejection == null) {
+                accepted.add(record);
+            } else {
+                rejected.add(rejection);
+            }
+        }
+        return new RuleOutcome(accepted, rejected);
+    }
+
+    private RejectedRow applyRules(UserMigrationRecord record) {
+        for (TransformRule rule : rules) {
+            String reason = rule.apply(record);
+            if (reason != null) {
+                return new RejectedRow(rule.name(), reason, record);
+            }
+        }
+        return null;
+    }
+}
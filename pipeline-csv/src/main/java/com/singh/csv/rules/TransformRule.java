@@ -0,0 +1,44 @@
+package com.singh.csv.rules;
+
+import com.singh.csv.UserMigrationRecord;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One step of the {@link RulePipeline}. A rule may change the record in place and either keeps it
+ * or rejects it with a reason; rules are stateless, so one instance is shared by all threads.
+ */
+public interface TransformRule {
+
+    String name();
+
+    /**
+     * @return why the record is rejected, or {@code null} to pass it on to the next rule
+     */
+    String apply(UserMigrationRecord record);
+
+    /**
+     * A rule that only rewrites fields and never rejects.
+     */
+    static TransformRule transform(String name, Consumer<UserMigrationRecord> transformation) {
+        return of(name, record -> {
+            transformation.accept(record);
+            return null;
+        });
+    }
+
+    static TransformRule of(String name, Function<UserMigrationRecord, String> rule) {
+        return new TransformRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String apply(UserMigrationRecord record) {
+                return rule.apply(record);
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.singh.csv.rules;
+
+import com.singh.csv.UserMigrationRecord;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The built-in rules, looked up by the names listed in {@code transform.rules}. Patterns are
+ * compiled once when this class loads, not per record.
+ */
+public final class TransformRules {
+
+    public static final String DEFAULT_RULES =
+            "trim,normalize-name,lowercase-email,derive-name,validate-id,validate-email,validate-name";
+
+    static final int MAX_ID_LENGTH = 256;
+    static final int MAX_NAME_LENGTH = 256;
+    /** RFC 5321 limit on the length of a forward path. */
+    static final int MAX_EMAIL_LENGTH = 254;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern EMAIL = Pattern.compile("[^\\s@]+@[^\\s@.]+(\\.[^\\s@.]+)+");
+    private static final Pattern LOCAL_PART_SEPARATORS = Pattern.compile("[._+-]+");
+
+    private TransformRules() {
+    }
+
+    /**
+     * Resolves rule names, in order, into rules.
+     *
+     * @throws IllegalArgumentException for an unknown rule name
+     */
+    public static List<TransformRule> byNames(List<String> names) {
+        List<TransformRule> rules = new ArrayList<>(names.size());
+        for (String name : names) {
+            rules.add(byName(name.trim()));
+        }
+        return rules;
+    }
+
+    /**
+     * Resolves a comma-separated list of rule names, as {@code transform.rules} is set; blank entries
+     * are skipped, so an empty list applies no rules.
+     *
+     * @throws IllegalArgumentException for an unknown rule name
+     */
+    public static List<TransformRule> byNames(String names) {
+        List<String> list = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.isBlank()) {
+                list.add(name);
+            }
+        }
+        return byNames(list);
+    }
+
+    public static TransformRule byName(String name) {
+        return switch (name) {
+            case "trim" -> TransformRule.transform(name, record -> {
+                record.setId(trim(record.getId()));
+                record.setName(trim(record.getName()));
+                record.setEmail(trim(record.getEmail()));
+            });
+            case "normalize-name" -> TransformRule.transform(name, record -> {
+                if (record.getName() != null) {
+                    String normalized = Normalizer.normalize(record.getName(), Normalizer.Form.NFC);
+                    record.setName(WHITESPACE.matcher(normalized).replaceAll(" "));
+                }
+            });
+            case "lowercase-email" -> TransformRule.transform(name, record -> {
+                if (record.getEmail() != null) {
+                    record.setEmail(record.getEmail().toLowerCase(Locale.ROOT));
+                }
+            });
+            case "derive-name" -> TransformRule.transform(name, TransformRules::deriveName);
+            case "validate-id" -> TransformRule.of(name, record -> {
+                if (isBlank(record.getId())) {
+                    return "id is blank";
+                }
+                return record.getId().length() > MAX_ID_LENGTH ? "id is longer than " + MAX_ID_LENGTH + " characters" : null;
+            });
+            case "validate-email" -> TransformRule.of(name, record -> {
+                String email = record.getEmail();
+                if (isBlank(email)) {
+                    return "email is blank";
+                }
+                if (email.length() > MAX_EMAIL_LENGTH) {
+                    return "email is longer than " + MAX_EMAIL_LENGTH + " characters";
+                }
+                return EMAIL.matcher(email).matches() ? null : "email is not a valid address";
+            });
+            case "validate-name" -> TransformRule.of(name, record -> {
+                String userName = record.getName();
+                if (isBlank(userName)) {
+                    return "name is blank";
+                }
+                if (userName.length() > MAX_NAME_LENGTH) {
+                    return "name is longer than " + MAX_NAME_LENGTH + " characters";
+                }
+                return userName.chars().anyMatch(Character::isISOControl) ? "name contains control characters" : null;
+            });
+            default -> throw new IllegalArgumentException("Unknown transform rule '" + name + "'");
+        };
+    }
+
+    /**
+     * Fills a blank name from the local part of the email: {@code jane.doe@example.com} becomes
+     * {@code Jane Doe}.
+     */
+    private static void deriveName(UserMigrationRecord record) {
+        String email = record.getEmail();
+        int at = email == null ? -1 : email.indexOf('@');
+        if (!isBlank(record.getName()) || at <= 0) {
+            return;
+        }
+        StringBuilder derived = new StringBuilder(at);
+        for (String word : LOCAL_PART_SEPARATORS.split(email.substring(0, at))) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (!derived.isEmpty()) {
+                derived.append(' ');
+            }
+            derived.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        record.setName(derived.toString());
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.strip();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,71 @@
+package com.singh.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvCompressionTests {
+
+    private static final String HEADER = "id,name,email";
+
+    @Test
+    void detectsCodecFromMetadataOrMagicBytes() throws IOException {
+        assertEquals(CsvCompression.GZIP, CsvCompression.fromMetadata("gzip", "text/csv"));
+        assertEquals(CsvCompression.ZSTD, CsvCompression.fromMetadata("aws-chunked, zstd", null));
+        assertEquals(CsvCompression.ZSTD, CsvCompression.fromMetadata(null, "application/zstd"));
+        assertEquals(CsvCompression.NONE, CsvCompression.fromMetadata(null, "text/csv"));
+
+        BufferedInputStream zstd = new BufferedInputStream(
+                new ByteArrayInputStream(compress(CsvCompression.ZSTD, csv(10))));
+        assertEquals(CsvCompression.ZSTD, CsvCompression.detect(zstd));
+        assertEquals(0x28, zstd.read(), "detection must not consume the stream");
+        assertEquals(CsvCompression.NONE, CsvCompression.detect(
+                new BufferedInputStream(new ByteArrayInputStream(csv(10)))));
+    }
+
+    @Test
+    void namesAreStrictAboutUnknownCodecs() {
+        assertEquals(CsvCompression.NONE, CsvCompression.fromName(" identity "));
+        assertEquals(CsvCompression.GZIP, CsvCompression.fromName("x-gzip"));
+        assertEquals("zstd", CsvCompression.fromName("ZSTD").contentEncoding());
+        assertThrows(IllegalArgumentException.class, () -> CsvCompression.fromName("br"));
+    }
+
+    @Test
+    void decompressesWhatItCompressed() throws IOException {
+        byte[] csv = csv(200);
+        for (CsvCompression compression : CsvCompression.values()) {
+            byte[] stored = compress(compression, csv);
+            assertEquals(compression, CsvCompression.detect(stored));
+            try (InputStream in = compression.decompress(new ByteArrayInputStream(stored))) {
+                assertArrayEquals(csv, in.readAllBytes(), compression.name());
+            }
+        }
+    }
+
+    private static byte[] csv(int rows) {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(",User ").append(i).append(",user").append(i).append("@example.com\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] compress(CsvCompression compression, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = compression.compress(out)) {
+            compressed.write(data);
+        }
+        return out.toByteArray();
+    }
+}
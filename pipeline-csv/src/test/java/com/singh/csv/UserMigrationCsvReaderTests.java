@@ -0,0 +1,85 @@
+package com.singh.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserMigrationCsvReaderTests {
+
+    @Test
+    void mapsColumnsByHeaderName() {
+        CsvParseResult result = UserMigrationCsvReader.read("email,id,name\r\nA@Example.com,1,Alice\r\n");
+
+        assertTrue(result.malformedRows().isEmpty());
+        assertEquals(1, result.records().size());
+        UserMigrationRecord record = result.records().get(0);
+        assertEquals("1", record.getId());
+        assertEquals("Alice", record.getName());
+        assertEquals("A@Example.com", record.getEmail());
+    }
+
+    @Test
+    void handlesQuotedFieldsWithDelimitersQuotesAndLineBreaks() {
+        String csv = "id,name,email\n"
+                + "1,\"Doe, Jane\",jane@example.com\n"
+                + "2,\"Say \"\"hi\"\"\",hi@example.com\n"
+                + "3,\"Multi\nline\",ml@example.com\n";
+
+        CsvParseResult result = UserMigrationCsvReader.read(csv);
+
+        assertTrue(result.malformedRows().isEmpty());
+        assertEquals(3, result.records().size());
+        assertEquals("Doe, Jane", result.records().get(0).getName());
+        assertEquals("Say \"hi\"", result.records().get(1).getName());
+        assertEquals("Multi\nline", result.records().get(2).getName());
+    }
+
+    @Test
+    void streamsRowsUntilTheConsumerStops() throws IOException {
+        String csv = "id,name,email\n1,Ann,ann@example.com\n2,Bob\n3,Cid,cid@example.com\n4,Dee,dee@example.com\n";
+        List<String> ids = new ArrayList<>();
+        List<MalformedRow> malformedRows = new ArrayList<>();
+
+        UserMigrationCsvReader.read(new StringReader(csv), record -> {
+            ids.add(record.getId());
+            return ids.size() < 2;
+        }, malformedRows::add);
+
+        assertEquals(List.of("1", "3"), ids);
+        assertEquals(1, malformedRows.size());
+        assertEquals(3, malformedRows.get(0).lineNumber());
+    }
+
+    @Test
+    void reportsMalformedRowsInsteadOfThrowing() {
+        String csv = """
+                id,name,email
+                1,Alice
+                2,Bob,bob@example.com
+
+                3,"Carol"x,carol@example.com
+                4,"Dan,dan@example.com
+                """;
+
+        CsvParseResult result = UserMigrationCsvReader.read(csv);
+
+        assertEquals(1, result.records().size());
+        assertEquals("2", result.records().get(0).getId());
+        assertEquals(3, result.malformedRows().size());
+        assertEquals(2, result.malformedRows().get(0).lineNumber());
+        assertEquals(5, result.malformedRows().get(1).lineNumber());
+        assertEquals("Unterminated quoted field", result.malformedRows().get(2).reason());
+    }
+
+    @Test
+    void rejectsHeaderWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class, () -> UserMigrationCsvReader.read("id,name\n1,Alice\n"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.singh.csv.rules;
+
+import com.singh.csv.UserMigrationRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RulePipelineTests {
+
+    private static RulePipeline defaultPipeline(int chunkSize, int parallelism) {
+        return new RulePipeline(
+                TransformRules.byNames(Arrays.asList(TransformRules.DEFAULT_RULES.split(","))), chunkSize, parallelism);
+    }
+
+    @Test
+    void trimsAndNormalizesAcceptedRecords() {
+        UserMigrationRecord record = new UserMigrationRecord(" 1 ", "  Jane \t  Doe ", " Jane.Doe@Example.COM ");
+
+        RuleOutcome outcome = defaultPipeline(16, 1).apply(List.of(record));
+
+        assertEquals(List.of(new UserMigrationRecord("1", "Jane Doe", "jane.doe@example.com")), outcome.accepted());
+        assertEquals(List.of(), outcome.rejected());
+    }
+
+    @Test
+    void derivesMissingNameFromEmail() {
+        RuleOutcome outcome = defaultPipeline(16, 1).apply(List.of(new UserMigrationRecord("1", " ", "jane.doe@example.com")));
+
+        assertEquals("Jane Doe", outcome.accepted().get(0).getName());
+    }
+
+    @Test
+    void rejectsRowsWithTheFirstFailingRule() {
+        List<UserMigrationRecord> records = List.of(
+                new UserMigrationRecord("", "Nobody", "nobody@example.com"),
+                new UserMigrationRecord("2", "Bad Email", "bad-email@"),
+                new UserMigrationRecord("3", "", "not-an-email"),
+                new UserMigrationRecord("4", "Good", "good@example.com"));
+
+        RuleOutcome outcome = defaultPipeline(16, 1).apply(records);
+
+        assertEquals(1, outcome.accepted().size());
+        assertEquals("4", outcome.accepted().get(0).getId());
+        assertEquals(List.of("validate-id", "validate-email", "validate-email"),
+                outcome.rejected().stream().map(RejectedRow::rule).toList());
+        assertEquals("email is not a valid address", outcome.rejected().get(1).reason());
+        assertEquals("2", outcome.rejected().get(1).record().getId());
+    }
+
+    @Test
+    void parallelChunksKeepInputOrder() {
+        List<UserMigrationRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            records.add(new UserMigrationRecord(Integer.toString(i), "User " + i,
+                    i % 10 == 0 ? "invalid" : "User." + i + "@Example.com"));
+        }
+
+        RuleOutcome outcome = defaultPipeline(64, 4).apply(records);
+
+        assertEquals(9_000, outcome.accepted().size());
+        assertEquals(1_000, outcome.rejected().size());
+        List<Integer> acceptedIds = outcome.accepted().stream().map(r -> Integer.parseInt(r.getId())).toList();
+        assertEquals(acceptedIds.stream().sorted().toList(), acceptedIds);
+        assertEquals("user.1@example.com", outcome.accepted().get(0).getEmail());
+    }
+
+    @Test
+    void unknownRuleNameFailsFast() {
+        assertThrows(IllegalArgumentException.class, () -> TransformRules.byNames(List.of("trim", "no-such-rule")));
+    }
+
+    @Test
+    void ruleListSkipsBlankNames() {
+        assertEquals(List.of("trim", "validate-id"),
+                TransformRules.byNames(" trim, ,validate-id,").stream().map(TransformRule::name).toList());
+        assertTrue(TransformRules.byNames("").isEmpty());
+    }
+
+    @Test
+    void transformRulesNeverReject() {
+        assertNull(TransformRules.byName("trim").apply(new UserMigrationRecord(null, null, null)));
+    }
+}
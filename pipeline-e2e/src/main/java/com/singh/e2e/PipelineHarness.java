@@ -0,0 +1,336 @@
+package com.singh.e2e;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamViewType;
+import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.singh.dispatcher.config.CheckpointConfig;
+import com.singh.dispatcher.handler.S3IngestHandler;
+import com.singh.dispatcher.handler.SnsDispatcherHandler;
+import com.singh.e2e.load.LoadGenerator;
+import com.singh.e2e.stub.InMemoryDynamoDbClient;
+import com.singh.e2e.stub.InMemoryS3Client;
+import com.singh.e2e.stub.InMemorySnsAsyncClient;
+import com.singh.e2e.stub.InMemorySnsClient;
+import com.singh.metrics.PipelineMetrics;
+import com.singh.progress.JobProgress;
+import com.singh.transform.config.TransformRulesConfig;
+import com.singh.transform.handler.TransformHandler;
+import com.singh.writer.batch.AdaptiveWriteLimiter;
+import com.singh.writer.batch.ChunkCommitLog;
+import com.singh.writer.batch.ContentHashFilter;
+import com.singh.writer.batch.DynamoBatchWriter;
+import com.singh.writer.codec.RecordPayloadParser;
+import com.singh.writer.dto.UserMigrationRecord;
+import com.singh.writer.handler.DynamoWriterHandler;
+import com.singh.writer.schema.UserMigrationRecordTableSchema;
+import io.awspring.cloud.dynamodb.DefaultDynamoDbTableNameResolver;
+import io.awspring.cloud.dynamodb.DefaultDynamoDbTableSchemaResolver;
+import io.awspring.cloud.dynamodb.DynamoDbTableNameResolver;
+import io.awspring.cloud.dynamodb.DynamoDbTableSchemaResolver;
+import io.awspring.cloud.sns.core.SnsTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.env.MapPropertySource;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsClient;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Runs ingest → transform → write → dispatch in one JVM. Each stage is the real handler bean in
+ * its own Spring context, as in its own Lambda, wired to in-memory S3, SNS and DynamoDB stand-ins:
+ * an S3 event per object invokes ingest, SNS messages invoke transform and the writer, and DynamoDB
+ * stream changes are handed to the dispatcher in batches. Nothing but the network is left out.
+ * <p>
+ * Stages overlap like they do on AWS; a run ends once every stage has drained in order.
+ */
+public class PipelineHarness implements AutoCloseable {
+
+    public static final String BUCKET = "user-migration-e2e";
+    public static final String INGEST_TOPIC_ARN = "arn:aws:sns:us-east-1:000000000000:e2e-ingest-to-transform";
+    public static final String TRANSFORM_TOPIC_ARN = "arn:aws:sns:us-east-1:000000000000:e2e-transform-to-dynamo";
+    public static final String FANOUT_TOPIC_ARN = "arn:aws:sns:us-east-1:000000000000:e2e-user-migration-fanout";
+
+    private static final String UNTHROTTLED_WRITE_RATE = "1000000000";
+
+    private final Options options;
+    private final InMemoryS3Client s3 = new InMemoryS3Client();
+    private final InMemorySnsClient sns = new InMemorySnsClient();
+    private final InMemoryDynamoDbClient dynamoDb = new InMemoryDynamoDbClient();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AnnotationConfigApplicationContext> contexts = new ArrayList<>();
+
+    private final String tableName;
+    private final Stage<S3EventNotification> ingest;
+    private final Stage<SNSEvent> transform;
+    private final Stage<SNSEvent> write;
+    private final Stage<DynamodbEvent> dispatch;
+
+    private final List<DynamodbEvent.DynamodbStreamRecord> streamBatch = new ArrayList<>();
+
+    public PipelineHarness(Options options) {
+        this.options = options;
+
+        AnnotationConfigApplicationContext ingestContext = context("ingest", context -> {
+            context.registerBean(S3Client.class, () -> s3);
+            context.registerBean(SnsTemplate.class, () -> new SnsTemplate(sns));
+            context.registerBean(JobProgress.class, () -> JobProgress.disabled(JobProgress.INGEST));
+            context.register(CheckpointConfig.class, S3IngestHandler.class);
+        });
+        AnnotationConfigApplicationContext transformContext = context("transform", context -> {
+            context.registerBean(SnsClient.class, () -> sns);
+            context.registerBean(SnsAsyncClient.class, () -> new InMemorySnsAsyncClient(sns));
+            context.registerBean(JobProgress.class, () -> JobProgress.disabled(JobProgress.TRANSFORM));
+            context.register(com.singh.transform.config.RecordBatchCodecConfig.class, TransformRulesConfig.class,
+                    TransformHandler.class);
+        });
+        AnnotationConfigApplicationContext writeContext = context("write", context -> {
+            DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                    .dynamoDbClient(dynamoDb)
+                    .build();
+            context.registerBean(DynamoDbClient.class, () -> dynamoDb);
+            context.registerBean(DynamoDbEnhancedClient.class, () -> enhancedClient);
+            context.registerBean(DynamoDbTableSchemaResolver.class,
+                    () -> new DefaultDynamoDbTableSchemaResolver(List.of(UserMigrationRecordTableSchema.INSTANCE)));
+            context.registerBean(DynamoDbTableNameResolver.class, () -> new DefaultDynamoDbTableNameResolver());
+            context.registerBean(JobProgress.class, () -> JobProgress.disabled(JobProgress.WRITE));
+            context.register(com.singh.writer.config.RecordBatchCodecConfig.class, RecordPayloadParser.class,
+                    ContentHashFilter.class, ChunkCommitLog.class, AdaptiveWriteLimiter.class, DynamoBatchWriter.class,
+                    DynamoWriterHandler.class);
+        });
+        AnnotationConfigApplicationContext dispatchContext = context("dispatch", context -> {
+            context.registerBean(SnsClient.class, () -> sns);
+            context.register(SnsDispatcherHandler.class);
+        });
+
+        tableName = writeContext.getBean(DynamoDbTableNameResolver.class).resolve(UserMigrationRecord.class);
+        ingest = new Stage<>("ingest", ingestContext.getBean(S3IngestHandler.class), options.concurrency());
+        transform = new Stage<>("transform", transformContext.getBean(TransformHandler.class), options.concurrency());
+        write = new Stage<>("write", writeContext.getBean(DynamoWriterHandler.class), options.concurrency());
+        dispatch = new Stage<>("dispatch", dispatchContext.getBean(SnsDispatcherHandler.class), options.concurrency());
+
+        sns.subscribe(INGEST_TOPIC_ARN, message -> transform.submit(snsEvent(INGEST_TOPIC_ARN, message)));
+        sns.subscribe(TRANSFORM_TOPIC_ARN, message -> write.submit(snsEvent(TRANSFORM_TOPIC_ARN, message)));
+        dynamoDb.setStreamListener(this::onStreamChange);
+    }
+
+    public InMemoryS3Client s3() {
+        return s3;
+    }
+
+    public InMemoryDynamoDbClient dynamoDb() {
+        return dynamoDb;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    /**
+     * Uploads {@code rows} synthetic rows spread over {@code objects} objects, then pushes them
+     * through the pipeline. Generating the input is not part of the measured run.
+     */
+    public PipelineReport run(int rows, int objects) {
+        List<String> keys = LoadGenerator.upload(s3, BUCKET, rows, objects);
+        List<Stage<?>> stages = List.of(ingest, transform, write, dispatch);
+        Map<String, long[]> rowsBefore = new HashMap<>();
+        stages.forEach(stage -> rowsBefore.put(stage.name(), rowCounts(stage.name())));
+        long fanoutBefore = sns.publishedCount(FANOUT_TOPIC_ARN);
+
+        System.gc();
+        resetPeakHeap();
+        stages.forEach(Stage::start);
+        long start = System.nanoTime();
+
+        keys.forEach(key -> ingest.submit(s3Event(key)));
+        ingest.drain();
+        transform.drain();
+        write.drain();
+        flushStream();
+        dispatch.drain();
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        long peakHeap = peakHeap();
+
+        List<StageReport> reports = stages.stream()
+                .map(stage -> {
+                    long[] before = rowsBefore.get(stage.name());
+                    long[] after = rowCounts(stage.name());
+                    return stage.report(after[0] - before[0], after[1] - before[1]);
+                })
+                .toList();
+        return new PipelineReport(rows, elapsed, dynamoDb.size(tableName),
+                sns.publishedCount(FANOUT_TOPIC_ARN) - fanoutBefore, peakHeap, reports);
+    }
+
+    private AnnotationConfigApplicationContext context(String stage, Consumer<AnnotationConfigApplicationContext> beans) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("SNS_INGEST_TO_TRANSFORM_TOPIC_ARN", INGEST_TOPIC_ARN);
+        properties.put("SNS_TRANSFORM_TO_DYNAMO_TOPIC_ARN", TRANSFORM_TOPIC_ARN);
+        properties.put("SNS_USER_MIGRATION_FANOUT_TOPIC_ARN", FANOUT_TOPIC_ARN);
+        // The in-memory table never throttles; start the write limiter at its ceiling instead of ramping up
+        properties.put("dynamo.write.rate.initial", UNTHROTTLED_WRITE_RATE);
+        properties.put("dynamo.write.rate.max", UNTHROTTLED_WRITE_RATE);
+        properties.putAll(options.properties());
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("pipeline-harness", properties));
+        context.registerBean("conversionService", ConversionService.class, ApplicationConversionService::getSharedInstance);
+        context.registerBean(ObjectMapper.class, () -> new ObjectMapper());
+        // Meters only, on one registry shared by every stage; EMF lines would flood the output
+        context.registerBean(PipelineMetrics.class,
+                () -> new PipelineMetrics(meterRegistry, PipelineMetrics.DEFAULT_NAMESPACE, stage, null));
+        beans.accept(context);
+        context.refresh();
+        contexts.add(context);
+        return context;
+    }
+
+    private long[] rowCounts(String stage) {
+        return new long[]{count("pipeline.rows.in", stage), count("pipeline.rows.out", stage)};
+    }
+
+    private long count(String meter, String stage) {
+        Counter counter = meterRegistry.find(meter).tag("stage", stage).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    /**
+     * Collects stream records into batches of {@code streamBatchSize}, like the Lambda event source
+     * polling a shard; the last, partial batch is flushed when the writer has drained.
+     */
+    private void onStreamChange(InMemoryDynamoDbClient.StreamChange change) {
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventID(UUID.randomUUID().toString());
+        record.setEventName(change.eventName());
+        record.setEventSource("aws:dynamodb");
+        record.setDynamodb(new StreamRecord()
+                .withSequenceNumber(change.sequenceNumber())
+                .withStreamViewType(StreamViewType.NEW_AND_OLD_IMAGES)
+                .withKeys(Map.of("id", new AttributeValue().withS(change.newImage().get("id").s())))
+                .withNewImage(image(change.newImage()))
+                .withOldImage(image(change.oldImage())));
+
+        List<DynamodbEvent.DynamodbStreamRecord> full = null;
+        synchronized (streamBatch) {
+            streamBatch.add(record);
+            if (streamBatch.size() >= options.streamBatchSize()) {
+                full = List.copyOf(streamBatch);
+                streamBatch.clear();
+            }
+        }
+        if (full != null) {
+            dispatch.submit(dynamodbEvent(full));
+        }
+    }
+
+    private void flushStream() {
+        List<DynamodbEvent.DynamodbStreamRecord> rest;
+        synchronized (streamBatch) {
+            rest = List.copyOf(streamBatch);
+            streamBatch.clear();
+        }
+        if (!rest.isEmpty()) {
+            dispatch.submit(dynamodbEvent(rest));
+        }
+    }
+
+    private static Map<String, AttributeValue> image(Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> item) {
+        if (item == null) {
+            return null;
+        }
+        Map<String, AttributeValue> image = new HashMap<>();
+        item.forEach((name, value) -> {
+            if (value.s() != null) {
+                image.put(name, new AttributeValue().withS(value.s()));
+            } else if (value.n() != null) {
+                image.put(name, new AttributeValue().withN(value.n()));
+            }
+        });
+        return image;
+    }
+
+    private static DynamodbEvent dynamodbEvent(List<DynamodbEvent.DynamodbStreamRecord> records) {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(records);
+        return event;
+    }
+
+    private static SNSEvent snsEvent(String topicArn, String message) {
+        SNSEvent.SNS sns = new SNSEvent.SNS();
+        sns.setMessageId(UUID.randomUUID().toString());
+        sns.setTopicArn(topicArn);
+        sns.setMessage(message);
+        SNSEvent.SNSRecord record = new SNSEvent.SNSRecord();
+        record.setEventSource("aws:sns");
+        record.setSns(sns);
+        SNSEvent event = new SNSEvent();
+        event.setRecords(List.of(record));
+        return event;
+    }
+
+    private static S3EventNotification s3Event(String key) {
+        S3EventNotification.S3Entity s3 = new S3EventNotification.S3Entity("pipeline-harness",
+                new S3EventNotification.S3BucketEntity(BUCKET, null, "arn:aws:s3:::" + BUCKET),
+                new S3EventNotification.S3ObjectEntity(key, null, null, null, null),
+                "1.0");
+        return new S3EventNotification(List.of(new S3EventNotification.S3EventNotificationRecord(
+                "us-east-1", "ObjectCreated:Put", "aws:s3", null, "2.1", null, null, s3, null)));
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    @Override
+    public void close() {
+        contexts.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    /**
+     * @param concurrency     concurrent invocations per stage, like a Lambda concurrency limit
+     * @param streamBatchSize stream records per dispatcher invocation
+     * @param properties      application properties applied to every stage, e.g.
+     *                        {@code pipeline.codec.format=json} or {@code dynamo.write.skip-unchanged=true}
+     */
+    public record Options(int concurrency, int streamBatchSize, Map<String, String> properties) {
+
+        public static Options defaults() {
+            return new Options(10, 100, Map.of());
+        }
+    }
+}
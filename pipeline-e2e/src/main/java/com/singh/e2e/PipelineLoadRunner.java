@@ -0,0 +1,42 @@
+package com.singh.e2e;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command-line load run over the in-process pipeline:
+ * <pre>
+ * java -Xmx4g -jar pipeline-e2e/target/pipeline-e2e.jar --rows=2000000 --objects=4 --concurrency=10
+ * </pre>
+ * {@code --rows}, {@code --objects}, {@code --concurrency} and {@code --stream-batch-size} shape the
+ * run; any other {@code --name=value} is passed to every stage as an application property.
+ */
+public final class PipelineLoadRunner {
+
+    private PipelineLoadRunner() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            arguments.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        int rows = Integer.parseInt(arguments.getOrDefault("rows", "1000000"));
+        int objects = Integer.parseInt(arguments.getOrDefault("objects", "4"));
+        PipelineHarness.Options defaults = PipelineHarness.Options.defaults();
+        int concurrency = Integer.parseInt(arguments.getOrDefault("concurrency", String.valueOf(defaults.concurrency())));
+        int streamBatchSize = Integer.parseInt(arguments.getOrDefault("stream-batch-size", String.valueOf(defaults.streamBatchSize())));
+        arguments.keySet().removeAll(Set.of("rows", "objects", "concurrency", "stream-batch-size"));
+
+        try (PipelineHarness harness = new PipelineHarness(new PipelineHarness.Options(concurrency, streamBatchSize, arguments))) {
+            PipelineReport report = harness.run(rows, objects);
+            System.out.print(report.format());
+        }
+    }
+}
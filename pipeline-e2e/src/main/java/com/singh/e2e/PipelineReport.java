@@ -0,0 +1,43 @@
+package com.singh.e2e;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * End-to-end result of a load run: from the first ingest invocation until the last fan-out publish.
+ *
+ * @param peakHeapBytes sum of the peak usage of every heap pool during the run, an upper bound
+ *                      on the true peak since pools do not peak at the same moment
+ */
+public record PipelineReport(long rows,
+                             Duration elapsed,
+                             long tableItems,
+                             long fanoutMessages,
+                             long peakHeapBytes,
+                             List<StageReport> stages) {
+
+    public double rowsPerSecond() {
+        return elapsed.isZero() ? 0 : rows * 1_000_000_000d / elapsed.toNanos();
+    }
+
+    public StageReport stage(String name) {
+        return stages.stream()
+                .filter(stage -> stage.stage().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No stage " + name));
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("rows=%d elapsed=%d ms throughput=%.0f rows/s peakHeap=%d MB tableItems=%d fanoutMessages=%d%n",
+                rows, elapsed.toMillis(), rowsPerSecond(), peakHeapBytes / (1024 * 1024), tableItems, fanoutMessages));
+        out.append(String.format("%-10s %11s %6s %10s %10s %9s %9s %9s%n",
+                "stage", "invocations", "errors", "rowsIn", "rowsOut", "p50 ms", "p99 ms", "max ms"));
+        for (StageReport stage : stages) {
+            out.append(String.format("%-10s %11d %6d %10d %10d %9.1f %9.1f %9.1f%n",
+                    stage.stage(), stage.invocations(), stage.errors(), stage.rowsIn(), stage.rowsOut(),
+                    stage.p50Millis(), stage.p99Millis(), stage.maxMillis()));
+        }
+        return out.toString();
+    }
+}
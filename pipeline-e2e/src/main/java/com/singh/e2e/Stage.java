@@ -0,0 +1,95 @@
+package com.singh.e2e;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs one handler the way Lambda would: every event is its own invocation, at most
+ * {@code concurrency} run at once, and events wait in an unbounded queue (the SNS or stream
+ * backlog) until a slot frees up. Invocation durations are kept for the percentiles.
+ */
+final class Stage<E> {
+
+    private static final Logger log = LoggerFactory.getLogger(Stage.class);
+
+    private final String name;
+    private final Function<E, ?> handler;
+    private final int concurrency;
+
+    private final List<Long> durations = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private ExecutorService executor;
+    private Semaphore permits;
+
+    Stage(String name, Function<E, ?> handler, int concurrency) {
+        this.name = name;
+        this.handler = handler;
+        this.concurrency = concurrency;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void start() {
+        durations.clear();
+        errors.set(0);
+        permits = new Semaphore(concurrency);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    void submit(E event) {
+        executor.submit(() -> invoke(event));
+    }
+
+    /**
+     * Waits for every submitted invocation; call once the upstream stage has drained.
+     */
+    void drain() {
+        executor.close();
+    }
+
+    private void invoke(E event) {
+        permits.acquireUninterruptibly();
+        long start = System.nanoTime();
+        try {
+            handler.apply(event);
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            log.error("{} invocation failed", name, e);
+        } finally {
+            durations.add(System.nanoTime() - start);
+            permits.release();
+        }
+    }
+
+    StageReport report(long rowsIn, long rowsOut) {
+        long[] sorted;
+        synchronized (durations) {
+            sorted = durations.stream().mapToLong(Long::longValue).toArray();
+        }
+        Arrays.sort(sorted);
+        return new StageReport(name, sorted.length, errors.get(), rowsIn, rowsOut,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000d);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000d;
+    }
+}
@@ -0,0 +1,15 @@
+package com.singh.e2e;
+
+/**
+ * Per-stage result of a load run. Rows come from the stage's {@code pipeline.rows.*} meters;
+ * latencies are whole-invocation durations, including time spent waiting on downstream stand-ins.
+ */
+public record StageReport(String stage,
+                          int invocations,
+                          int errors,
+                          long rowsIn,
+                          long rowsOut,
+                          double p50Millis,
+                          double p99Millis,
+                          double maxMillis) {
+}
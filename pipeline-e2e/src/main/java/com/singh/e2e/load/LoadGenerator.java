@@ -0,0 +1,45 @@
+package com.singh.e2e.load;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uploads synthetic user CSVs for a load run. Rows are spread evenly over {@code objects} objects
+ * with disjoint ids, so every row ends up as its own item. Works against any {@link S3Client},
+ * the in-memory stand-in as well as LocalStack.
+ */
+public final class LoadGenerator {
+
+    public static final String KEY_PREFIX = "users/load-";
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * @return the keys of the uploaded objects
+     */
+    public static List<String> upload(S3Client s3, String bucket, int rows, int objects) {
+        if (rows < 1 || objects < 1 || objects > rows) {
+            throw new IllegalArgumentException("Need at least one row per object, got rows=" + rows + ", objects=" + objects);
+        }
+        List<String> keys = new ArrayList<>(objects);
+        int from = 0;
+        for (int i = 0; i < objects; i++) {
+            int count = rows / objects + (i < rows % objects ? 1 : 0);
+            String key = KEY_PREFIX + i + ".csv";
+            s3.putObject(PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType("text/csv")
+                            .build(),
+                    RequestBody.fromBytes(SyntheticCsv.generateBytes(from, count)));
+            keys.add(key);
+            from += count;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,41 @@
+package com.singh.e2e.load;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates deterministic user migration CSV payloads of a given size.
+ */
+public final class SyntheticCsv {
+
+    public static final String HEADER = "id,name,email";
+
+    private SyntheticCsv() {
+    }
+
+    public static String generate(int rows) {
+        return generate(0, rows);
+    }
+
+    /**
+     * Rows {@code from} to {@code from + rows - 1}, so several objects can carry distinct ids.
+     */
+    public static String generate(int from, int rows) {
+        StringBuilder csv = new StringBuilder(rows * 48 + 16);
+        csv.append(HEADER).append('\n');
+        for (int i = from; i < from + rows; i++) {
+            appendRow(csv, i);
+        }
+        return csv.toString();
+    }
+
+    public static byte[] generateBytes(int from, int rows) {
+        return generate(from, rows).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void appendRow(StringBuilder csv, int i) {
+        csv.append(100_000 + i)
+                .append(",User ").append(i)
+                .append(",User.").append(i).append("@Example.COM")
+                .append('\n');
+    }
+}
@@ -0,0 +1,127 @@
+package com.singh.e2e.stub;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * DynamoDB stand-in that keeps items in memory, keyed by table name and {@code id}. It sits under
+ * the real enhanced client and {@code DynamoDbTemplate}, so marshalling and batching run exactly
+ * as they do against AWS, minus the network.
+ * <p>
+ * A stream listener, when set, receives a {@link StreamChange} for every put that inserts or
+ * modifies an item; like DynamoDB Streams, rewriting an identical item produces no change.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private static final String KEY_ATTRIBUTE = "id";
+
+    private final Map<String, Map<String, Map<String, AttributeValue>>> tables = new ConcurrentHashMap<>();
+    private final AtomicLong sequenceNumbers = new AtomicLong();
+
+    private volatile Consumer<StreamChange> streamListener;
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        put(request.tableName(), request.item());
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        request.requestItems().forEach((tableName, writes) -> {
+            for (WriteRequest write : writes) {
+                if (write.putRequest() != null) {
+                    put(tableName, write.putRequest().item());
+                } else if (write.deleteRequest() != null) {
+                    table(tableName).remove(write.deleteRequest().key().get(KEY_ATTRIBUTE).s());
+                }
+            }
+        });
+        return BatchWriteItemResponse.builder().unprocessedItems(Map.of()).build();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        Map<String, AttributeValue> item = table(request.tableName()).get(request.key().get(KEY_ATTRIBUTE).s());
+        return GetItemResponse.builder().item(item).build();
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        request.requestItems().forEach((tableName, keysAndAttributes) -> {
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (Map<String, AttributeValue> key : keysAndAttributes.keys()) {
+                Map<String, AttributeValue> item = table(tableName).get(key.get(KEY_ATTRIBUTE).s());
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+            responses.put(tableName, items);
+        });
+        return BatchGetItemResponse.builder().responses(responses).unprocessedKeys(Map.of()).build();
+    }
+
+    public void setStreamListener(Consumer<StreamChange> streamListener) {
+        this.streamListener = streamListener;
+    }
+
+    public int size(String tableName) {
+        return table(tableName).size();
+    }
+
+    public List<Map<String, AttributeValue>> items(String tableName) {
+        return List.copyOf(table(tableName).values());
+    }
+
+    public void clear() {
+        tables.clear();
+    }
+
+    private void put(String tableName, Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> previous = table(tableName).put(item.get(KEY_ATTRIBUTE).s(), item);
+        Consumer<StreamChange> listener = streamListener;
+        if (listener != null && !Objects.equals(previous, item)) {
+            listener.accept(new StreamChange(tableName, previous == null ? "INSERT" : "MODIFY",
+                    Long.toString(sequenceNumbers.incrementAndGet()), previous, item));
+        }
+    }
+
+    private Map<String, Map<String, AttributeValue>> table(String tableName) {
+        return tables.computeIfAbsent(tableName, name -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * One stream record with {@code NEW_AND_OLD_IMAGES}; {@code oldImage} is {@code null} on insert.
+     */
+    public record StreamChange(String tableName, String eventName, String sequenceNumber,
+                               Map<String, AttributeValue> oldImage, Map<String, AttributeValue> newImage) {
+    }
+}
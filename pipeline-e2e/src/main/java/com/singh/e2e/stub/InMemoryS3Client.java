@@ -0,0 +1,112 @@
+package com.singh.e2e.stub;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * S3 stand-in holding objects in memory. Supports what the pipeline uses: PUT, HEAD, and GET with
+ * {@code Range} and {@code If-Match}, so both the single-stream and the ranged-GET read paths of the
+ * ingest stage run unchanged.
+ */
+public class InMemoryS3Client implements S3Client {
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    public void putObject(String bucket, String key, byte[] content, String contentType) {
+        objects.put(bucket + "/" + key, new StoredObject(content, contentType, "\"" + versions.incrementAndGet() + "\""));
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            putObject(request.bucket(), request.key(), in.readAllBytes(), request.contentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PutObjectResponse.builder().eTag(object(request.bucket(), request.key()).eTag()).build();
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        StoredObject object = object(request.bucket(), request.key());
+        return HeadObjectResponse.builder()
+                .contentLength((long) object.content().length)
+                .contentType(object.contentType())
+                .eTag(object.eTag())
+                .build();
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+                                       ResponseTransformer<GetObjectResponse, ReturnT> responseTransformer) {
+        StoredObject object = object(request.bucket(), request.key());
+        if (request.ifMatch() != null && !request.ifMatch().equals(object.eTag())) {
+            throw S3Exception.builder().statusCode(412).message("Precondition Failed").build();
+        }
+
+        int start = 0;
+        int end = object.content().length - 1;
+        if (request.range() != null) {
+            // bytes=<start>-<end>, the only form the pipeline sends
+            String[] bounds = request.range().substring("bytes=".length()).split("-");
+            start = Integer.parseInt(bounds[0]);
+            end = Math.min(Integer.parseInt(bounds[1]), end);
+        }
+        int length = Math.max(0, end - start + 1);
+
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength((long) length)
+                .contentType(object.contentType())
+                .eTag(object.eTag())
+                .build();
+        try {
+            return responseTransformer.transform(response,
+                    AbortableInputStream.create(new ByteArrayInputStream(object.content(), start, length)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to transform GetObject response", e);
+        }
+    }
+
+    private StoredObject object(String bucket, String key) {
+        StoredObject object = objects.get(bucket + "/" + key);
+        if (object == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("No such key: " + key).build();
+        }
+        return object;
+    }
+
+    public void clear() {
+        objects.clear();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private record StoredObject(byte[] content, String contentType, String eTag) {
+    }
+}
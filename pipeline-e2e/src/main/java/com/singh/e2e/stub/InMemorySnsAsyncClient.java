@@ -0,0 +1,49 @@
+package com.singh.e2e.stub;
+
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@code SnsAsyncClient} view of an {@link InMemorySnsClient}: messages are delivered on the
+ * publishing thread and the returned futures are already complete.
+ */
+public class InMemorySnsAsyncClient implements SnsAsyncClient {
+
+    private final InMemorySnsClient sns;
+
+    public InMemorySnsAsyncClient(InMemorySnsClient sns) {
+        this.sns = sns;
+    }
+
+    @Override
+    public CompletableFuture<PublishResponse> publish(PublishRequest request) {
+        try {
+            return CompletableFuture.completedFuture(sns.publish(request));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<PublishBatchResponse> publishBatch(PublishBatchRequest request) {
+        try {
+            return CompletableFuture.completedFuture(sns.publishBatch(request));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
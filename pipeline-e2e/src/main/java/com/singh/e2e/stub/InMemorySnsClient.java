@@ -0,0 +1,75 @@
+package com.singh.e2e.stub;
+
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * SNS stand-in that hands every published message to the subscribers of its topic on the publishing
+ * thread, and counts messages per topic. Works under both {@code SnsClient} users and
+ * {@code SnsTemplate}, which publishes through the client when given a topic ARN.
+ */
+public class InMemorySnsClient implements SnsClient {
+
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> published = new ConcurrentHashMap<>();
+
+    public void subscribe(String topicArn, Consumer<String> subscriber) {
+        subscribers.computeIfAbsent(topicArn, arn -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    @Override
+    public PublishResponse publish(PublishRequest request) {
+        deliver(request.topicArn(), request.message());
+        return PublishResponse.builder().messageId(UUID.randomUUID().toString()).build();
+    }
+
+    @Override
+    public PublishBatchResponse publishBatch(PublishBatchRequest request) {
+        List<PublishBatchResultEntry> successful = new ArrayList<>(request.publishBatchRequestEntries().size());
+        for (PublishBatchRequestEntry entry : request.publishBatchRequestEntries()) {
+            deliver(request.topicArn(), entry.message());
+            successful.add(PublishBatchResultEntry.builder()
+                    .id(entry.id())
+                    .messageId(UUID.randomUUID().toString())
+                    .build());
+        }
+        return PublishBatchResponse.builder().successful(successful).build();
+    }
+
+    public long publishedCount(String topicArn) {
+        LongAdder count = published.get(topicArn);
+        return count == null ? 0 : count.sum();
+    }
+
+    public void clear() {
+        published.clear();
+    }
+
+    private void deliver(String topicArn, String message) {
+        published.computeIfAbsent(topicArn, arn -> new LongAdder()).increment();
+        subscribers.getOrDefault(topicArn, List.of()).forEach(subscriber -> subscriber.accept(message));
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
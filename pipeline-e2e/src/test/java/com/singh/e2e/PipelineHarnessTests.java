@@ -0,0 +1,54 @@
+package com.singh.e2e;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PipelineHarnessTests {
+
+    @Test
+    void movesEveryRowThroughAllStages() {
+        try (PipelineHarness harness = new PipelineHarness(PipelineHarness.Options.defaults())) {
+            PipelineReport report = harness.run(20_000, 3);
+
+            assertEquals(20_000, report.tableItems());
+            assertEquals(20_000, report.fanoutMessages());
+            for (StageReport stage : report.stages()) {
+                assertEquals(0, stage.errors(), stage.stage());
+                assertEquals(20_000, stage.rowsIn(), stage.stage());
+                assertEquals(20_000, stage.rowsOut(), stage.stage());
+            }
+            assertEquals(3, report.stage("ingest").invocations());
+            assertEquals(200, report.stage("dispatch").invocations());
+        }
+    }
+
+    @Test
+    void readsLargeObjectsWithRangedGets() {
+        PipelineHarness.Options options = new PipelineHarness.Options(4, 100, Map.of(
+                "ingest.ranged-get.threshold-bytes", "1",
+                "ingest.ranged-get.part-size", "65536",
+                "pipeline.codec.format", "json"));
+        try (PipelineHarness harness = new PipelineHarness(options)) {
+            PipelineReport report = harness.run(10_000, 1);
+
+            assertEquals(10_000, report.tableItems());
+            assertEquals(10_000, report.fanoutMessages());
+        }
+    }
+
+    @Test
+    void rerunOfUnchangedRowsDispatchesNothing() {
+        try (PipelineHarness harness = new PipelineHarness(PipelineHarness.Options.defaults())) {
+            harness.run(5_000, 1);
+            PipelineReport rerun = harness.run(5_000, 1);
+
+            assertEquals(5_000, rerun.tableItems());
+            assertEquals(5_000, rerun.stage("write").rowsOut());
+            assertEquals(0, rerun.stage("dispatch").invocations());
+            assertEquals(0, rerun.fanoutMessages());
+        }
+    }
+}
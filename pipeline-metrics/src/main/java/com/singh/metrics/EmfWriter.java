@@ -0,0 +1,156 @@
+package com.singh.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds one CloudWatch Embedded Metric Format document: the {@code _aws} metadata declaring the
+ * metrics, the dimension value, and the metric values at the root.
+ *
+ * <pre>
+ * {"_aws":{"Timestamp":..,"CloudWatchMetrics":[{"Namespace":..,"Dimensions":[["Stage"]],"Metrics":[{"Name":"RowsIn","Unit":"Count"},..]}]},
+ *  "Stage":"transform","RowsIn":1000,"PublishLatency":[12.5,9.1],..}
+ * </pre>
+ */
+final class EmfWriter {
+
+    static final String UNIT_COUNT = "Count";
+    static final String UNIT_BYTES = "Bytes";
+    static final String UNIT_MILLISECONDS = "Milliseconds";
+
+    /** EMF accepts at most 100 values per metric in one document. */
+    static final int MAX_VALUES = 100;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String namespace;
+    private final String dimension;
+    private final String dimensionValue;
+    private final long timestamp;
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final Map<String, String> units = new LinkedHashMap<>();
+
+    EmfWriter(String namespace, String dimension, String dimensionValue, long timestamp) {
+        this.namespace = namespace;
+        this.dimension = dimension;
+        this.dimensionValue = dimensionValue;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * {@code publish} + {@code Latency} becomes {@code PublishLatency}; non-alphanumerics are dropped.
+     */
+    static String metricName(String phase, String suffix) {
+        StringBuilder name = new StringBuilder(phase.length() + suffix.length());
+        boolean upper = true;
+        for (int i = 0; i < phase.length(); i++) {
+            char c = phase.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                upper = true;
+                continue;
+            }
+            name.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        return name.append(suffix).toString();
+    }
+
+    void metric(String name, double value, String unit) {
+        values.put(name, value);
+        units.put(name, unit);
+    }
+
+    void samples(String name, Samples samples) {
+        List<Double> snapshot = samples.snapshot();
+        if (!snapshot.isEmpty()) {
+            values.put(name, snapshot);
+            units.put(name, samples.unit);
+        }
+    }
+
+    String toJson() {
+        StringWriter out = new StringWriter(256 + values.size() * 32);
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("_aws");
+            json.writeNumberField("Timestamp", timestamp);
+            json.writeArrayFieldStart("CloudWatchMetrics");
+            json.writeStartObject();
+            json.writeStringField("Namespace", namespace);
+            json.writeArrayFieldStart("Dimensions");
+            json.writeStartArray();
+            json.writeString(dimension);
+            json.writeEndArray();
+            json.writeEndArray();
+            json.writeArrayFieldStart("Metrics");
+            for (Map.Entry<String, String> unit : units.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("Name", unit.getKey());
+                json.writeStringField("Unit", unit.getValue());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+
+            json.writeStringField(dimension, dimensionValue);
+            for (Map.Entry<String, Object> value : values.entrySet()) {
+                json.writeFieldName(value.getKey());
+                if (value.getValue() instanceof List<?> list) {
+                    json.writeStartArray();
+                    for (Object sample : list) {
+                        json.writeNumber((Double) sample);
+                    }
+                    json.writeEndArray();
+                } else {
+                    json.writeNumber((Double) value.getValue());
+                }
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render EMF document", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Values of one distribution metric. Beyond {@link #MAX_VALUES} a uniform reservoir sample is
+     * kept, so CloudWatch percentiles stay representative of the whole invocation.
+     */
+    static final class Samples {
+
+        private final String unit;
+        private final List<Double> values = new ArrayList<>();
+        private long seen;
+
+        Samples(String unit) {
+            this.unit = unit;
+        }
+
+        synchronized void add(double value) {
+            seen++;
+            if (values.size() < MAX_VALUES) {
+                values.add(value);
+                return;
+            }
+            long slot = ThreadLocalRandom.current().nextLong(seen);
+            if (slot < MAX_VALUES) {
+                values.set((int) slot, value);
+            }
+        }
+
+        synchronized List<Double> snapshot() {
+            return List.copyOf(values);
+        }
+    }
+}
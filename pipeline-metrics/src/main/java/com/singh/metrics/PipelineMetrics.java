@@ -0,0 +1,222 @@
+package com.singh.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Throughput and latency meters for one pipeline stage. Every measurement goes to Micrometer
+ * ({@code pipeline.rows.in}, {@code pipeline.rows.out}, {@code pipeline.bytes.read},
+ * {@code pipeline.latency}, {@code pipeline.batch.size}, {@code pipeline.retries}, all tagged with
+ * {@code stage}) and to the {@link Invocation} that is open at the time. Closing the invocation
+ * writes its measurements as one CloudWatch Embedded Metric Format line to the EMF sink, so
+ * metrics cost a log line instead of a network call.
+ * <p>
+ * A Lambda container runs one invocation at a time, so a single open invocation is tracked rather
+ * than one per thread; measurements from worker threads of that invocation are attributed to it.
+ * Instances are thread-safe.
+ */
+public class PipelineMetrics {
+
+    public static final String DEFAULT_NAMESPACE = "UserMigrationPipeline";
+
+    private final MeterRegistry registry;
+    private final String namespace;
+    private final String stage;
+    private final Consumer<String> emfSink;
+
+    private final Counter rowsInCounter;
+    private final Counter rowsOutCounter;
+    private final Counter bytesReadCounter;
+    private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> batchSizeSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Counter> retryCounters = new ConcurrentHashMap<>();
+
+    private volatile Invocation current;
+
+    /**
+     * @param emfSink receives one EMF JSON line per closed invocation; {@code null} turns EMF off
+     */
+    public PipelineMetrics(MeterRegistry registry, String namespace, String stage, Consumer<String> emfSink) {
+        this.registry = registry;
+        this.namespace = namespace;
+        this.stage = stage;
+        this.emfSink = emfSink;
+        this.rowsInCounter = Counter.builder("pipeline.rows.in")
+                .description("Rows received by the stage")
+                .tag("stage", stage)
+                .register(registry);
+        this.rowsOutCounter = Counter.builder("pipeline.rows.out")
+                .description("Rows emitted or persisted by the stage")
+                .tag("stage", stage)
+                .register(registry);
+        this.bytesReadCounter = Counter.builder("pipeline.bytes.read")
+                .description("Input bytes read by the stage")
+                .baseUnit("bytes")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    /**
+     * EMF sink for Lambda: stdout lines are shipped to CloudWatch Logs, which extracts the metrics.
+     */
+    public static Consumer<String> stdoutSink() {
+        return System.out::println;
+    }
+
+    public String stage() {
+        return stage;
+    }
+
+    /**
+     * Opens the invocation that collects measurements until it is closed.
+     */
+    public Invocation begin() {
+        Invocation invocation = new Invocation();
+        current = invocation;
+        return invocation;
+    }
+
+    public void rowsIn(long rows) {
+        rowsInCounter.increment(rows);
+        Invocation invocation = current;
+        if (invocation != null) {
+            invocation.rowsIn.add(rows);
+        }
+    }
+
+    public void rowsOut(long rows) {
+        rowsOutCounter.increment(rows);
+        Invocation invocation = current;
+        if (invocation != null) {
+            invocation.rowsOut.add(rows);
+        }
+    }
+
+    public void bytesRead(long bytes) {
+        bytesReadCounter.increment(bytes);
+        Invocation invocation = current;
+        if (invocation != null) {
+            invocation.bytesRead.add(bytes);
+        }
+    }
+
+    /**
+     * Records how long one {@code phase} (parse, serialize, publish, write...) took.
+     */
+    public void latency(String phase, long nanos) {
+        latencyTimers.computeIfAbsent(phase, p -> Timer.builder("pipeline.latency")
+                        .description("Latency of one stage phase")
+                        .tags("stage", stage, "phase", p)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Invocation invocation = current;
+        if (invocation != null) {
+            invocation.samples(EmfWriter.metricName(phase, "Latency"), EmfWriter.UNIT_MILLISECONDS).add(nanos / 1_000_000d);
+        }
+    }
+
+    public <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            latency(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the number of items sent in one batch call of {@code phase}.
+     */
+    public void batchSize(String phase, int size) {
+        batchSizeSummaries.computeIfAbsent(phase, p -> DistributionSummary.builder("pipeline.batch.size")
+                        .description("Items per batch call")
+                        .tags("stage", stage, "phase", p)
+                        .register(registry))
+                .record(size);
+        Invocation invocation = current;
+        if (invocation != null) {
+            invocation.samples(EmfWriter.metricName(phase, "BatchSize"), EmfWriter.UNIT_COUNT).add(size);
+        }
+    }
+
+    public void retries(String phase, int retries) {
+        if (retries <= 0) {
+            return;
+        }
+        retryCounters.computeIfAbsent(phase, p -> Counter.builder("pipeline.retries")
+                        .description("Retried calls")
+                        .tags("stage", stage, "phase", p)
+                        .register(registry))
+                .increment(retries);
+        Invocation invocation = current;
+        if (invocation != null) {
+            invocation.retries.computeIfAbsent(EmfWriter.metricName(phase, "Retries"), name -> new LongAdder()).add(retries);
+        }
+    }
+
+    /**
+     * Measurements of one function invocation; closing it emits them as an EMF line.
+     */
+    public final class Invocation implements AutoCloseable {
+
+        private final long startMillis = System.currentTimeMillis();
+        private final LongAdder rowsIn = new LongAdder();
+        private final LongAdder rowsOut = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final Map<String, LongAdder> retries = new ConcurrentHashMap<>();
+        private final Map<String, EmfWriter.Samples> samples = new ConcurrentHashMap<>();
+
+        private Invocation() {
+        }
+
+        private EmfWriter.Samples samples(String metric, String unit) {
+            return samples.computeIfAbsent(metric, name -> new EmfWriter.Samples(unit));
+        }
+
+        public long rowsIn() {
+            return rowsIn.sum();
+        }
+
+        public long rowsOut() {
+            return rowsOut.sum();
+        }
+
+        public long bytesRead() {
+            return bytesRead.sum();
+        }
+
+        /**
+         * Renders the invocation as an EMF document without closing it.
+         */
+        public String toEmf() {
+            EmfWriter emf = new EmfWriter(namespace, "Stage", stage, startMillis);
+            emf.metric("RowsIn", rowsIn.sum(), EmfWriter.UNIT_COUNT);
+            emf.metric("RowsOut", rowsOut.sum(), EmfWriter.UNIT_COUNT);
+            emf.metric("BytesRead", bytesRead.sum(), EmfWriter.UNIT_BYTES);
+            emf.metric("Duration", System.currentTimeMillis() - startMillis, EmfWriter.UNIT_MILLISECONDS);
+            retries.forEach((name, count) -> emf.metric(name, count.sum(), EmfWriter.UNIT_COUNT));
+            samples.forEach(emf::samples);
+            return emf.toJson();
+        }
+
+        @Override
+        public void close() {
+            if (current == this) {
+                current = null;
+            }
+            if (emfSink != null) {
+                emfSink.accept(toEmf());
+            }
+        }
+    }
+}
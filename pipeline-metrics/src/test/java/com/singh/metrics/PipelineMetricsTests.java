@@ -0,0 +1,71 @@
+package com.singh.metrics;
+
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineMetricsTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> lines = new ArrayList<>();
+    private final PipelineMetrics metrics = new PipelineMetrics(registry, "Test", "transform", lines::add);
+
+    @Test
+    void closingAnInvocationEmitsOneEmfDocument() {
+        try (PipelineMetrics.Invocation invocation = metrics.begin()) {
+            metrics.rowsIn(10);
+            metrics.rowsOut(8);
+            metrics.bytesRead(512);
+            metrics.latency("publish", 2_500_000);
+            metrics.batchSize("publish", 8);
+            metrics.retries("publish", 2);
+            assertEquals(10, invocation.rowsIn());
+        }
+
+        assertEquals(1, lines.size());
+        String emf = lines.get(0);
+        assertEquals("Test", JsonPath.read(emf, "$._aws.CloudWatchMetrics[0].Namespace"));
+        assertEquals(List.of("Stage"), JsonPath.read(emf, "$._aws.CloudWatchMetrics[0].Dimensions[0]"));
+        assertEquals("transform", JsonPath.read(emf, "$.Stage"));
+        assertEquals(10.0, JsonPath.<Double>read(emf, "$.RowsIn"));
+        assertEquals(512.0, JsonPath.<Double>read(emf, "$.BytesRead"));
+        assertEquals(List.of(2.5), JsonPath.read(emf, "$.PublishLatency"));
+        assertEquals(List.of(8.0), JsonPath.read(emf, "$.PublishBatchSize"));
+        assertEquals(2.0, JsonPath.<Double>read(emf, "$.PublishRetries"));
+        List<String> declared = JsonPath.read(emf, "$._aws.CloudWatchMetrics[0].Metrics[*].Name");
+        assertTrue(declared.containsAll(List.of("RowsIn", "RowsOut", "BytesRead", "PublishLatency", "PublishBatchSize")));
+    }
+
+    @Test
+    void metersAccumulateAcrossInvocationsAndWithoutOne() {
+        metrics.rowsIn(5);
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            metrics.rowsIn(7);
+        }
+        metrics.rowsIn(1);
+
+        assertEquals(13.0, registry.get("pipeline.rows.in").tag("stage", "transform").counter().count());
+        assertEquals(7.0, JsonPath.<Double>read(lines.get(0), "$.RowsIn"));
+    }
+
+    @Test
+    void keepsAtMostOneHundredSamplesPerMetric() {
+        try (PipelineMetrics.Invocation ignored = metrics.begin()) {
+            for (int i = 0; i < 1000; i++) {
+                metrics.batchSize("write", 25);
+            }
+        }
+
+        List<Double> samples = JsonPath.read(lines.get(0), "$.WriteBatchSize");
+        assertEquals(EmfWriter.MAX_VALUES, samples.size());
+        assertEquals(1000, registry.get("pipeline.batch.size").tag("phase", "write").summary().count());
+        assertFalse(lines.get(0).contains("\n"));
+    }
+}
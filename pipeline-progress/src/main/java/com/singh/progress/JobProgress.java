@@ -0,0 +1,217 @@
+package com.singh.progress;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rows one pipeline stage has processed per migration job, kept as sharded counters in the job
+ * table. Rows are added up in memory and flushed as one {@code UpdateItem} per job onto a random one
+ * of {@link #SHARDS} counter items, at most every flush interval and when the invocation ends. A busy
+ * stage costs a few writes per invocation whatever its row count, and concurrent instances spread
+ * over the shards instead of contending for one item.
+ * <p>
+ * Counting is best effort and at least once: rows of a failed flush are retried with the next one,
+ * and redelivered messages count again. Off without a table, and for rows without a job id.
+ * Instances are thread-safe.
+ */
+public class JobProgress {
+
+    /** SNS and SQS message attribute carrying the job id from ingest to the writer. */
+    public static final String JOB_ID_ATTRIBUTE = "jobId";
+    /** S3 user metadata ({@code x-amz-meta-job-id}) the upload stamps the job id on. */
+    public static final String JOB_ID_METADATA = "job-id";
+
+    public static final String INGEST = "ingest";
+    public static final String TRANSFORM = "transform";
+    public static final String REJECTED = "rejected";
+    public static final String WRITE = "write";
+
+    /** Counter items per job; readers fetch every one, so this is fixed rather than configured. */
+    public static final int SHARDS = 8;
+
+    static final String ID = "id";
+    static final String EXPIRES_AT = "expiresAt";
+
+    private static final Logger log = LoggerFactory.getLogger(JobProgress.class);
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+    private final String stage;
+    private final long flushIntervalNanos;
+    private final Duration ttl;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong flushedAt = new AtomicLong(System.nanoTime());
+
+    public JobProgress(DynamoDbClient dynamoDb, String tableName, String stage, Duration flushInterval,
+                       Duration ttl) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+        this.stage = stage;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.ttl = ttl;
+    }
+
+    /** Counts nothing; for stages running without a job table. */
+    public static JobProgress disabled(String stage) {
+        return new JobProgress(null, null, stage, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * A recorder for another stage on the same table, e.g. for the rows a stage rejects.
+     */
+    public JobProgress forStage(String otherStage) {
+        return new JobProgress(dynamoDb, tableName, otherStage, Duration.ofNanos(flushIntervalNanos), ttl);
+    }
+
+    public boolean isEnabled() {
+        return dynamoDb != null;
+    }
+
+    public void add(String jobId, long rows) {
+        add(jobId, rows, 0);
+    }
+
+    /**
+     * Counts {@code rows} (and {@code bytes} of source data) of {@code jobId}; flushes when the flush
+     * interval has passed since the last flush.
+     */
+    public void add(String jobId, long rows, long bytes) {
+        if (!isEnabled() || jobId == null || (rows == 0 && bytes == 0)) {
+            return;
+        }
+        Pending counts = pending.computeIfAbsent(jobId, id -> new Pending(System.currentTimeMillis()));
+        counts.rows.add(rows);
+        counts.bytes.add(bytes);
+        long last = flushedAt.get();
+        long now = System.nanoTime();
+        if (now - last >= flushIntervalNanos && flushedAt.compareAndSet(last, now)) {
+            flush();
+        }
+    }
+
+    /**
+     * Records that this stage has seen all rows of {@code jobId}; ingest calls it once the source
+     * object is read to the end.
+     */
+    public void done(String jobId) {
+        if (!isEnabled() || jobId == null) {
+            return;
+        }
+        try {
+            dynamoDb.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of(ID, AttributeValue.fromS(jobId)))
+                    .updateExpression("SET #done = :now, #expires = :expires")
+                    .expressionAttributeNames(Map.of("#done", doneAtAttribute(stage), "#expires", EXPIRES_AT))
+                    .expressionAttributeValues(Map.of(
+                            ":now", number(System.currentTimeMillis()),
+                            ":expires", number(expiresAt())))
+                    .build());
+        } catch (SdkException e) {
+            log.warn("Failed to mark stage {} of job {} done", stage, jobId, e);
+        }
+    }
+
+    /**
+     * Writes the counts added since the last flush; call when the invocation ends.
+     */
+    public void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+            Pending counts = entry.getValue();
+            long rows = counts.rows.sumThenReset();
+            long bytes = counts.bytes.sumThenReset();
+            if (rows == 0 && bytes == 0) {
+                continue;
+            }
+            try {
+                dynamoDb.updateItem(increment(entry.getKey(), ThreadLocalRandom.current().nextInt(SHARDS),
+                        rows, bytes, counts.since));
+            } catch (SdkException e) {
+                counts.rows.add(rows);
+                counts.bytes.add(bytes);
+                log.warn("Failed to flush {} {} rows of job {}; retrying with the next flush",
+                        rows, stage, entry.getKey(), e);
+            }
+        }
+        flushedAt.set(System.nanoTime());
+    }
+
+    private UpdateItemRequest increment(String jobId, int shard, long rows, long bytes, long since) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(ID, AttributeValue.fromS(shardId(jobId, shard))))
+                .updateExpression("ADD #rows :rows, #bytes :bytes "
+                        + "SET #first = if_not_exists(#first, :since), #last = :now, #expires = :expires")
+                .expressionAttributeNames(Map.of(
+                        "#rows", rowsAttribute(stage),
+                        "#bytes", bytesAttribute(stage),
+                        "#first", firstAtAttribute(stage),
+                        "#last", lastAtAttribute(stage),
+                        "#expires", EXPIRES_AT))
+                .expressionAttributeValues(Map.of(
+                        ":rows", number(rows),
+                        ":bytes", number(bytes),
+                        ":since", number(since),
+                        ":now", number(System.currentTimeMillis()),
+                        ":expires", number(expiresAt())))
+                .build();
+    }
+
+    private long expiresAt() {
+        return System.currentTimeMillis() / 1000 + ttl.toSeconds();
+    }
+
+    static String shardId(String jobId, int shard) {
+        return jobId + "#" + shard;
+    }
+
+    static String rowsAttribute(String stage) {
+        return stage + "Rows";
+    }
+
+    static String bytesAttribute(String stage) {
+        return stage + "Bytes";
+    }
+
+    static String firstAtAttribute(String stage) {
+        return stage + "FirstAt";
+    }
+
+    static String lastAtAttribute(String stage) {
+        return stage + "LastAt";
+    }
+
+    static String doneAtAttribute(String stage) {
+        return stage + "DoneAt";
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.fromN(Long.toString(value));
+    }
+
+    /** Counts not yet flushed, and when this instance first counted rows of the job (epoch millis). */
+    private static final class Pending {
+
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final long since;
+
+        private Pending(long since) {
+            this.since = since;
+        }
+    }
+}
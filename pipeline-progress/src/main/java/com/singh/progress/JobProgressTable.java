@@ -0,0 +1,173 @@
+package com.singh.progress;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * The job side of the job table: one item per job, written when its upload completes, next to the
+ * {@link JobProgress#SHARDS} counter items the stages add to. {@link #read} folds the shards back
+ * into one count per stage.
+ */
+public class JobProgressTable {
+
+    public static final List<String> STAGES =
+            List.of(JobProgress.INGEST, JobProgress.TRANSFORM, JobProgress.REJECTED, JobProgress.WRITE);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+    private final Duration ttl;
+
+    public JobProgressTable(DynamoDbClient dynamoDb, String tableName, Duration ttl) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Registers an uploaded object as a job. Set attribute by attribute, so it cannot overwrite a
+     * stage that got to the job first.
+     *
+     * @param sourceBytes uncompressed size of the object, or -1 when it was uploaded compressed
+     */
+    public void register(String jobId, String bucket, String key, long objectBytes, long sourceBytes,
+                         Instant createdAt) {
+        Map<String, AttributeValue> attributes = new LinkedHashMap<>();
+        attributes.put("bucket", AttributeValue.fromS(bucket));
+        attributes.put("key", AttributeValue.fromS(key));
+        attributes.put("objectBytes", number(objectBytes));
+        if (sourceBytes >= 0) {
+            attributes.put("sourceBytes", number(sourceBytes));
+        }
+        attributes.put("createdAt", number(createdAt.toEpochMilli()));
+        attributes.put(JobProgress.EXPIRES_AT, number(Instant.now().plus(ttl).getEpochSecond()));
+
+        StringJoiner expression = new StringJoiner(", ", "SET ", "");
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        attributes.forEach((name, value) -> {
+            expression.add("#" + name + " = :" + name);
+            names.put("#" + name, name);
+            values.put(":" + name, value);
+        });
+        dynamoDb.updateItem(UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(JobProgress.ID, AttributeValue.fromS(jobId)))
+                .updateExpression(expression.toString())
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build());
+    }
+
+    /**
+     * The job and its counts so far; empty when neither the job nor any count of it exists.
+     */
+    public Optional<Snapshot> read(String jobId) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(JobProgress.SHARDS + 1);
+        keys.add(Map.of(JobProgress.ID, AttributeValue.fromS(jobId)));
+        for (int shard = 0; shard < JobProgress.SHARDS; shard++) {
+            keys.add(Map.of(JobProgress.ID, AttributeValue.fromS(JobProgress.shardId(jobId, shard))));
+        }
+        Map<String, KeysAndAttributes> request = Map.of(tableName,
+                KeysAndAttributes.builder().keys(keys).consistentRead(true).build());
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS && !request.isEmpty(); attempt++) {
+            BatchGetItemResponse response = dynamoDb.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(request)
+                    .build());
+            items.addAll(response.responses().getOrDefault(tableName, List.of()));
+            request = response.unprocessedKeys();
+        }
+        if (!request.isEmpty()) {
+            throw new IllegalStateException("Job table did not return all counters of job " + jobId);
+        }
+        if (items.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, AttributeValue> job = Map.of();
+        for (Map<String, AttributeValue> item : items) {
+            if (jobId.equals(item.get(JobProgress.ID).s())) {
+                job = item;
+            }
+        }
+        Map<String, StageCounts> stages = new LinkedHashMap<>();
+        for (String stage : STAGES) {
+            long rows = 0;
+            long bytes = 0;
+            Instant firstAt = null;
+            Instant lastAt = null;
+            for (Map<String, AttributeValue> item : items) {
+                rows += number(item, JobProgress.rowsAttribute(stage), 0);
+                bytes += number(item, JobProgress.bytesAttribute(stage), 0);
+                firstAt = earlier(firstAt, instant(item, JobProgress.firstAtAttribute(stage)));
+                lastAt = later(lastAt, instant(item, JobProgress.lastAtAttribute(stage)));
+            }
+            stages.put(stage, new StageCounts(rows, bytes, firstAt, lastAt,
+                    instant(job, JobProgress.doneAtAttribute(stage))));
+        }
+        return Optional.of(new Snapshot(jobId, string(job, "bucket"), string(job, "key"),
+                number(job, "objectBytes", -1), number(job, "sourceBytes", -1), instant(job, "createdAt"), stages));
+    }
+
+    private static String string(Map<String, AttributeValue> item, String attribute) {
+        AttributeValue value = item.get(attribute);
+        return value == null ? null : value.s();
+    }
+
+    private static long number(Map<String, AttributeValue> item, String attribute, long fallback) {
+        AttributeValue value = item.get(attribute);
+        return value == null || value.n() == null ? fallback : Long.parseLong(value.n());
+    }
+
+    private static Instant instant(Map<String, AttributeValue> item, String attribute) {
+        long millis = number(item, attribute, -1);
+        return millis < 0 ? null : Instant.ofEpochMilli(millis);
+    }
+
+    private static Instant earlier(Instant a, Instant b) {
+        return a == null || (b != null && b.isBefore(a)) ? b : a;
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.fromN(Long.toString(value));
+    }
+
+    /**
+     * A job as the table has it; {@code bucket}, {@code key} and {@code createdAt} are {@code null}
+     * and the sizes -1 while the upload has not registered it.
+     */
+    public record Snapshot(String jobId, String bucket, String key, long objectBytes, long sourceBytes,
+                           Instant createdAt, Map<String, StageCounts> stages) {
+
+        public StageCounts stage(String stage) {
+            return stages.get(stage);
+        }
+    }
+
+    /**
+     * Rows a stage has counted for a job, when it counted the first and the last of them, and when
+     * it marked the job done ({@code null} until then).
+     */
+    public record StageCounts(long rows, long bytes, Instant firstAt, Instant lastAt, Instant doneAt) {
+    }
+}
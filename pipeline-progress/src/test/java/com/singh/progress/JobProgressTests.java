@@ -0,0 +1,123 @@
+package com.singh.progress;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobProgressTests {
+
+    private final DynamoDbClient dynamoDb = mock(DynamoDbClient.class);
+
+    @Test
+    void flushWritesOneIncrementPerJobOntoAShard() {
+        JobProgress progress = new JobProgress(dynamoDb, "jobs", JobProgress.INGEST, Duration.ofHours(1),
+                Duration.ofDays(1));
+        progress.add("job-1", 100, 4_000);
+        progress.add("job-1", 50, 2_000);
+        progress.add("job-2", 7);
+        progress.add(null, 10);
+
+        progress.flush();
+
+        ArgumentCaptor<UpdateItemRequest> requests = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDb, times(2)).updateItem(requests.capture());
+        UpdateItemRequest job1 = requests.getAllValues().stream()
+                .filter(request -> request.key().get("id").s().startsWith("job-1#"))
+                .findFirst()
+                .orElseThrow();
+        int shard = Integer.parseInt(job1.key().get("id").s().substring("job-1#".length()));
+        assertTrue(shard >= 0 && shard < JobProgress.SHARDS);
+        assertEquals("ingestRows", job1.expressionAttributeNames().get("#rows"));
+        assertEquals("150", job1.expressionAttributeValues().get(":rows").n());
+        assertEquals("6000", job1.expressionAttributeValues().get(":bytes").n());
+
+        // Nothing new to write
+        progress.flush();
+        verify(dynamoDb, times(2)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void keepsRowsOfAFailedFlushForTheNextOne() {
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(DynamoDbException.builder().message("throttled").build())
+                .thenReturn(UpdateItemResponse.builder().build());
+        JobProgress progress = new JobProgress(dynamoDb, "jobs", JobProgress.WRITE, Duration.ofHours(1),
+                Duration.ofDays(1));
+
+        progress.add("job-1", 25);
+        progress.flush();
+        progress.add("job-1", 5);
+        progress.flush();
+
+        ArgumentCaptor<UpdateItemRequest> requests = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDb, times(2)).updateItem(requests.capture());
+        assertEquals("30", requests.getAllValues().get(1).expressionAttributeValues().get(":rows").n());
+    }
+
+    @Test
+    void disabledProgressWritesNothing() {
+        JobProgress progress = JobProgress.disabled(JobProgress.TRANSFORM);
+        progress.add("job-1", 10);
+        progress.done("job-1");
+        progress.flush();
+
+        verify(dynamoDb, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void readFoldsShardsIntoOneCountPerStage() {
+        when(dynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(BatchGetItemResponse.builder()
+                .responses(Map.of("jobs", List.of(
+                        Map.of("id", s("job-1"), "bucket", s("bucket"), "key", s("/users/users.csv"),
+                                "objectBytes", n(1_000), "createdAt", n(1_000), "ingestDoneAt", n(9_000)),
+                        Map.of("id", s("job-1#0"), "ingestRows", n(60), "ingestFirstAt", n(2_000),
+                                "ingestLastAt", n(5_000), "writeRows", n(10)),
+                        Map.of("id", s("job-1#5"), "ingestRows", n(40), "ingestFirstAt", n(1_500),
+                                "ingestLastAt", n(8_000)))))
+                .build());
+
+        JobProgressTable.Snapshot snapshot = new JobProgressTable(dynamoDb, "jobs", Duration.ofDays(1))
+                .read("job-1")
+                .orElseThrow();
+
+        assertEquals("/users/users.csv", snapshot.key());
+        assertEquals(-1, snapshot.sourceBytes());
+        JobProgressTable.StageCounts ingest = snapshot.stage(JobProgress.INGEST);
+        assertEquals(100, ingest.rows());
+        assertEquals(Instant.ofEpochMilli(1_500), ingest.firstAt());
+        assertEquals(Instant.ofEpochMilli(8_000), ingest.lastAt());
+        assertEquals(Instant.ofEpochMilli(9_000), ingest.doneAt());
+        assertEquals(10, snapshot.stage(JobProgress.WRITE).rows());
+        assertEquals(0, snapshot.stage(JobProgress.TRANSFORM).rows());
+        assertNull(snapshot.stage(JobProgress.TRANSFORM).firstAt());
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.fromS(value);
+    }
+
+    private static AttributeValue n(long value) {
+        return AttributeValue.fromN(Long.toString(value));
+    }
+}